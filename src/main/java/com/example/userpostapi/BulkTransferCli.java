@@ -0,0 +1,39 @@
+package com.example.userpostapi;
+
+import com.example.userpostapi.model.BulkTransferResult;
+import com.example.userpostapi.persistence.BulkTransfer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Offline export and import: {@code export <file>} or {@code import <file>}, followed by any
+ * application properties, e.g. {@code --app.durability.enabled=true}. Starts the application
+ * without the web server, so with durability enabled an export reads the data directory and an
+ * import ends with a snapshot in it.
+ */
+public class BulkTransferCli {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2 || !("export".equals(args[0]) || "import".equals(args[0]))) {
+			System.err.println("Usage: BulkTransferCli export|import <file> [--property=value ...]");
+			System.exit(2);
+		}
+		Path file = Paths.get(args[1]);
+		String[] properties = Arrays.copyOfRange(args, 2, args.length);
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserPostApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(properties)) {
+			BulkTransfer bulkTransfer = context.getBean(BulkTransfer.class);
+			BulkTransferResult result = "export".equals(args[0])
+					? bulkTransfer.exportTo(file)
+					: bulkTransfer.importFrom(file);
+			System.out.printf("%s: %d users, %d posts, %d bytes in %d ms%n", result.getFile(),
+					result.getUsers(), result.getPosts(), result.getBytes(), result.getDurationMillis());
+		}
+	}
+}
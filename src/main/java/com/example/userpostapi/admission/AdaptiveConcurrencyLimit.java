@@ -0,0 +1,80 @@
+package com.example.userpostapi.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency (AIMD).
+ *
+ * <p>While requests finish within the target latency and the limit is actually in use, it grows
+ * by one per limit's worth of completions. A completion slower than the target cuts it by
+ * {@link #BACKOFF}. Queueing shows up as latency before it shows up as errors, so the limit
+ * settles near the concurrency the server can handle without building a queue.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int currentLimit;
+
+    // Guarded by this.
+    private double limit;
+    private long lastDecreaseNanos;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatency, TimeUnit unit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max: "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = unit.toNanos(targetLatency);
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+    }
+
+    /** Takes a slot if fewer than the current limit are in use; never blocks. */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Returns a slot taken by {@link #tryAcquire} and feeds the request's latency back. */
+    void release(long latencyNanos) {
+        int used = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latencyNanos > targetLatencyNanos) {
+                // Requests admitted together finish slow together; count that as one signal.
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                    lastDecreaseNanos = now;
+                }
+            } else if (used * 2 >= limit) {
+                // Only grow while the limit is in use; an idle server proves nothing about it.
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            currentLimit = (int) limit;
+        }
+    }
+
+    int limit() {
+        return currentLimit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
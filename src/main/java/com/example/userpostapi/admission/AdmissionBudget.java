@@ -0,0 +1,40 @@
+package com.example.userpostapi.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/** Concurrency limit and per-client rate limits shared by one class of requests. */
+final class AdmissionBudget {
+
+    final String name;
+    final AdaptiveConcurrencyLimit concurrency;
+    final ClientRateLimiter rateLimiter;
+    final Counter rateLimited;
+    final Counter shed;
+
+    AdmissionBudget(String name, AdaptiveConcurrencyLimit concurrency, ClientRateLimiter rateLimiter,
+                    MeterRegistry meterRegistry) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.rateLimiter = rateLimiter;
+        this.rateLimited = rejectedCounter(meterRegistry, name, "rate-limit");
+        this.shed = rejectedCounter(meterRegistry, name, "concurrency-limit");
+        Gauge.builder("api.admission.limit", concurrency, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("budget", name)
+                .register(meterRegistry);
+        Gauge.builder("api.admission.in-flight", concurrency, AdaptiveConcurrencyLimit::inFlight)
+                .description("Admitted requests still in progress")
+                .tag("budget", name)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String budget, String reason) {
+        return Counter.builder("api.admission.rejected")
+                .description("Requests turned away before reaching a controller")
+                .tag("budget", budget)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
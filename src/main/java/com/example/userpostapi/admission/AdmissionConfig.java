@@ -0,0 +1,80 @@
+package com.example.userpostapi.admission;
+
+import com.example.userpostapi.admission.AdmissionControlInterceptor.RequestClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for {@code /users} and {@code /posts} (enabled with
+ * {@code app.admission.enabled=true}).
+ *
+ * <p>Every {@link RequestClass} is configured under {@code app.admission.<class>.*}, e.g.
+ * {@code app.admission.read.target-latency}. The change feed is not covered; it has its own
+ * subscriber limit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true")
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final String clientIdHeader;
+    private final Duration retryAfter;
+    private final int maxClients;
+
+    public AdmissionConfig(Environment environment,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.admission.client-id-header:}") String clientIdHeader,
+                           @Value("${app.admission.retry-after:1s}") Duration retryAfter,
+                           @Value("${app.admission.max-clients:100000}") int maxClients) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.clientIdHeader = clientIdHeader;
+        this.retryAfter = retryAfter;
+        this.maxClients = maxClients;
+    }
+
+    @Bean
+    public AdmissionControlInterceptor admissionControlInterceptor() {
+        Map<RequestClass, AdmissionBudget> budgets = new EnumMap<>(RequestClass.class);
+        budgets.put(RequestClass.READ, budget(RequestClass.READ, 256, 16, 2048, Duration.ofMillis(20), 500, 1000));
+        budgets.put(RequestClass.QUERY, budget(RequestClass.QUERY, 16, 2, 128, Duration.ofMillis(250), 20, 40));
+        budgets.put(RequestClass.WRITE, budget(RequestClass.WRITE, 64, 4, 512, Duration.ofMillis(50), 100, 200));
+        return new AdmissionControlInterceptor(budgets, clientIdHeader, Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor())
+                .addPathPatterns("/users", "/users/**", "/posts", "/posts/**");
+    }
+
+    private AdmissionBudget budget(RequestClass requestClass, int initialLimit, int minLimit, int maxLimit,
+                                   Duration targetLatency, double clientRate, double clientBurst) {
+        String name = requestClass.name().toLowerCase(Locale.ROOT);
+        String prefix = "app.admission." + name + ".";
+        AdaptiveConcurrencyLimit concurrency = new AdaptiveConcurrencyLimit(
+                environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+                environment.getProperty(prefix + "min-limit", Integer.class, minLimit),
+                environment.getProperty(prefix + "max-limit", Integer.class, maxLimit),
+                environment.getProperty(prefix + "target-latency", Duration.class, targetLatency).toNanos(),
+                TimeUnit.NANOSECONDS);
+        ClientRateLimiter rateLimiter = new ClientRateLimiter(
+                environment.getProperty(prefix + "client-rate", Double.class, clientRate),
+                environment.getProperty(prefix + "client-burst", Double.class, clientBurst),
+                maxClients);
+        return new AdmissionBudget(name, concurrency, rateLimiter, meterRegistry);
+    }
+}
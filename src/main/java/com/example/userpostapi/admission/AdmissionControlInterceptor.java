@@ -0,0 +1,113 @@
+package com.example.userpostapi.admission;
+
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import com.example.userpostapi.exception.TooManyRequestsException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits or rejects requests before they reach the controllers.
+ *
+ * <p>Each request falls into a {@link RequestClass} with its own {@link AdmissionBudget}, so a
+ * flood of expensive listings cannot starve single-entity reads, and neither can starve writes.
+ * A client over its rate for the class gets 429; a request arriving while the class is at its
+ * concurrency limit gets 503. Both carry {@code Retry-After} and go through
+ * {@code RestExceptionHandler} like any other error.
+ *
+ * <p>A slot is held until the request completes, including asynchronous processing
+ * ({@code StreamingResponseBody}, {@code CompletableFuture}), and the time taken feeds the
+ * adaptive limit.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    /** Request classes with separate budgets. */
+    public enum RequestClass {
+        /** {@code GET /users/{id}}, {@code GET /posts/{id}}. */
+        READ,
+        /** Every other GET: listings, pages, streams, search. */
+        QUERY,
+        /** POST, PUT and DELETE. */
+        WRITE
+    }
+
+    private static final String ADMISSION = AdmissionControlInterceptor.class.getName() + ".admission";
+
+    private final Map<RequestClass, AdmissionBudget> budgets;
+    private final String clientIdHeader;
+    private final long shedRetryAfterSeconds;
+
+    AdmissionControlInterceptor(Map<RequestClass, AdmissionBudget> budgets, String clientIdHeader,
+                                long shedRetryAfterSeconds) {
+        this.budgets = new EnumMap<>(budgets);
+        this.clientIdHeader = clientIdHeader;
+        this.shedRetryAfterSeconds = shedRetryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Resumed async processing; the slot was taken on the initial dispatch.
+            return true;
+        }
+        AdmissionBudget budget = budgets.get(classify(request));
+        long waitNanos = budget.rateLimiter.tryAcquire(clientId(request));
+        if (waitNanos > 0) {
+            budget.rateLimited.increment();
+            throw new TooManyRequestsException("Rate limit exceeded for " + budget.name + ", try again later.",
+                    TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+        }
+        if (!budget.concurrency.tryAcquire()) {
+            budget.shed.increment();
+            throw new ServiceUnavailableException("Server is at capacity for " + budget.name + ", try again later.",
+                    shedRetryAfterSeconds);
+        }
+        request.setAttribute(ADMISSION, new Admission(budget, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Not called when the initial dispatch starts async processing, only after it finishes.
+        Admission admission = (Admission) request.getAttribute(ADMISSION);
+        if (admission != null) {
+            request.removeAttribute(ADMISSION);
+            admission.budget.concurrency.release(System.nanoTime() - admission.startNanos);
+        }
+    }
+
+    static RequestClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return RequestClass.WRITE;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null && pattern.toString().endsWith("/{id}") ? RequestClass.READ : RequestClass.QUERY;
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (!clientIdHeader.isEmpty()) {
+            String header = request.getHeader(clientIdHeader);
+            if (header != null && !header.isBlank()) {
+                return header;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static final class Admission {
+        final AdmissionBudget budget;
+        final long startNanos;
+
+        Admission(AdmissionBudget budget, long startNanos) {
+            this.budget = budget;
+            this.startNanos = startNanos;
+        }
+    }
+}
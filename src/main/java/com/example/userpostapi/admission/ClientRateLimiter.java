@@ -0,0 +1,55 @@
+package com.example.userpostapi.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client {@link TokenBucket}s. Once more than {@code maxClients} buckets exist, buckets that
+ * have refilled completely are dropped, at most once per second; a returning client simply
+ * gets a new full bucket.
+ */
+final class ClientRateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double tokensPerSecond;
+    private final double burst;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+
+    ClientRateLimiter(double tokensPerSecond, double burst, int maxClients) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1: " + tokensPerSecond + ", " + burst);
+        }
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.maxClients = maxClients;
+    }
+
+    /** Takes a token for the client and returns 0, or returns the nanoseconds to wait. */
+    long tryAcquire(String client) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) {
+                sweep(now);
+            }
+            bucket = buckets.computeIfAbsent(client, key -> new TokenBucket(tokensPerSecond, burst, now));
+        }
+        return bucket.tryTake(now);
+    }
+
+    int clients() {
+        return buckets.size();
+    }
+
+    private void sweep(long now) {
+        long last = lastSweepNanos.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+}
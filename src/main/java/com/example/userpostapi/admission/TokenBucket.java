@@ -0,0 +1,42 @@
+package com.example.userpostapi.admission;
+
+/** Token bucket refilled continuously at a fixed rate up to its burst size. */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double burst;
+
+    // Guarded by this.
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double tokensPerSecond, double burst, long nowNanos) {
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = nowNanos;
+    }
+
+    /** Takes one token and returns 0, or returns the nanoseconds until a token is available. */
+    synchronized long tryTake(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    /** A full bucket behaves exactly like a new one, so it can be dropped. */
+    synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= burst;
+    }
+
+    private void refill(long nowNanos) {
+        if (nowNanos > refilledAt) {
+            tokens = Math.min(burst, tokens + (nowNanos - refilledAt) * tokensPerNano);
+            refilledAt = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.userpostapi.changes;
+
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import com.example.userpostapi.model.ChangeEvent;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.persistence.DurabilityManager;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+import com.example.userpostapi.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Publishes every committed save and delete of users and posts as a {@link ChangeEvent} and
+ * streams them to Server-Sent Events subscribers.
+ *
+ * <p>Writers take the event's sequence number in the {@link ChangeLog} ring buffer while they
+ * hold the entity's lock, which keeps the events of one entity in write order, but publish the
+ * event only once the lock is released and the write has committed, then wake the subscribers.
+ * A write another listener fails leaves an aborted marker in its place, which subscribers skip,
+ * so they never see a change that did not happen. With durability enabled, the write-ahead log's
+ * listener is registered first, so a change is published only once it is durable; a write whose
+ * durable wait fails leaves aborted markers too. Each subscriber is drained by a task on the delivery pool that sends at
+ * most {@link #BATCH} events before yielding; a subscriber never has more than one task in
+ * flight, so a slow connection only ever holds one delivery thread and never holds up a writer.
+ * A subscriber that falls so far behind that its next event has been overwritten is sent a
+ * {@code reset} event and disconnected; it has to reload and subscribe again.
+ *
+ * <p>Event ids are {@code <epoch>-<sequence>}. The epoch is drawn at random when the feed
+ * starts, because sequence numbers restart with the process: a resume point from before a
+ * restart carries another epoch and gets a {@code reset} instead of resuming at whatever change
+ * now has its number.
+ */
+@Component
+public class ChangeFeed {
+
+    static final int BATCH = 256;
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final ObjectProvider<DurabilityManager> durabilityManager;
+    private final ChangeLog changeLog;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration heartbeatInterval;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    private ExecutorService deliveryPool;
+    private ScheduledExecutorService heartbeats;
+
+    public ChangeFeed(UserRepository userRepository,
+                      PostRepository postRepository,
+                      ObjectProvider<DurabilityManager> durabilityManager,
+                      @Value("${app.changes.capacity:65536}") int capacity,
+                      @Value("${app.changes.max-subscribers:256}") int maxSubscribers,
+                      @Value("${app.changes.timeout:30m}") Duration timeout,
+                      @Value("${app.changes.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.durabilityManager = durabilityManager;
+        this.changeLog = new ChangeLog(capacity);
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        deliveryPool = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = heartbeatInterval.toMillis();
+        heartbeats.scheduleWithFixedDelay(() -> subscribers.forEach(Subscriber::heartbeat),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        // Starting the durability manager first registers its listener ahead of ours, so its
+        // afterCommit has waited for the write to be durable when ours publishes it.
+        durabilityManager.getIfAvailable();
+        userRepository.addListener(new PublishingListener<>("user", User::getId, User::getVersion));
+        postRepository.addListener(new PublishingListener<>("post", Post::getId, Post::getVersion));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(subscriber -> subscriber.close(null));
+        heartbeats.shutdownNow();
+        deliveryPool.shutdownNow();
+    }
+
+    /**
+     * Opens a stream of the changes after the event with id {@code since}, or of new changes only
+     * when it is null. An id from another epoch gets a {@code reset}.
+     */
+    public SseEmitter subscribe(String since) {
+        long next = changeLog.lastSequence() + 1;
+        String resetReason = null;
+        if (since != null) {
+            long[] eventId = parseEventId(since);
+            if (eventId[0] == epoch) {
+                next = eventId[1] + 1;
+            } else {
+                resetReason = "Event " + since + " is from before a restart; reload and subscribe again.";
+            }
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Too many change feed subscribers, try again later.");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, next, resetReason);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscriber.close(null));
+        emitter.onError(error -> subscriber.close(null));
+        subscribers.add(subscriber);
+        subscriber.signal();
+        return emitter;
+    }
+
+    /** Epoch of this feed's event ids. */
+    long epoch() {
+        return epoch;
+    }
+
+    private static long[] parseEventId(String eventId) {
+        int dash = eventId.indexOf('-');
+        try {
+            long[] parsed = {Long.parseLong(eventId.substring(0, dash)), Long.parseLong(eventId.substring(dash + 1))};
+            if (parsed[0] > 0 && parsed[1] >= 0) {
+                return parsed;
+            }
+        } catch (RuntimeException e) {
+            // Reported below, like an out-of-range id.
+        }
+        throw new InvalidRequestException("Event id must be <epoch>-<sequence> as sent on the stream: " + eventId);
+    }
+
+    /** Sequence number of the latest change, or 0 before the first one. */
+    public long lastSequence() {
+        return changeLog.lastSequence();
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final String resetReason;
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+        // Only touched by the one drain task in flight.
+        private long next;
+
+        Subscriber(SseEmitter emitter, long next, String resetReason) {
+            this.emitter = emitter;
+            this.next = next;
+            this.resetReason = resetReason;
+        }
+
+        void signal() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                deliveryPool.execute(this::drain);
+            }
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            signal();
+        }
+
+        private void drain() {
+            try {
+                if (resetReason != null) {
+                    close(resetReason);
+                    return;
+                }
+                if (next > changeLog.lastSequence() + 1) {
+                    close("Sequence " + (next - 1) + " is unknown; reload and subscribe again.");
+                    return;
+                }
+                int sent = 0;
+                while (sent < BATCH && !closed) {
+                    if (next < changeLog.firstAvailable()) {
+                        close("Subscriber fell behind the change buffer; reload and subscribe again.");
+                        return;
+                    }
+                    ChangeEvent event = changeLog.read(next);
+                    if (event == null) {
+                        break;
+                    }
+                    next++;
+                    sent++;
+                    if (ChangeLog.isAborted(event)) {
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event()
+                            .id(epoch + "-" + event.getSequence())
+                            .name("change")
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                if (sent == 0 && heartbeatDue) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                heartbeatDue = false;
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, or the emitter completed under us.
+                close(null);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // Re-check after clearing the flag: a writer whose signal found us busy published first.
+            if (changeLog.read(next) != null || next < changeLog.firstAvailable()) {
+                signal();
+            }
+        }
+
+        void close(String resetReason) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            subscribers.remove(this);
+            try {
+                if (resetReason != null) {
+                    emitter.send(SseEmitter.event().name("reset").data(resetReason));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Takes each event's sequence number under the entity's lock and keeps the event with the
+     * writing thread until {@link #afterCommit}, which publishes it; {@link #onAbort} and
+     * {@link #afterFailedCommit} turn it into an aborted marker instead.
+     */
+    private final class PublishingListener<T> implements RepositoryListener<T> {
+        private final String entity;
+        private final Function<T, Long> id;
+        private final Function<T, Long> version;
+        private final ThreadLocal<List<ChangeEvent>> staged = ThreadLocal.withInitial(ArrayList::new);
+
+        PublishingListener(String entity, Function<T, Long> id, Function<T, Long> version) {
+            this.entity = entity;
+            this.id = id;
+            this.version = version;
+        }
+
+        @Override
+        public void onSave(T saved) {
+            staged.get().add(new ChangeEvent(changeLog.reserve(), entity, "saved", id.apply(saved), version.apply(saved), saved));
+        }
+
+        @Override
+        public void onDelete(Long deletedId) {
+            staged.get().add(new ChangeEvent(changeLog.reserve(), entity, "deleted", deletedId, null, null));
+        }
+
+        @Override
+        public void onAbort() {
+            List<ChangeEvent> events = staged.get();
+            changeLog.abort(events.remove(events.size() - 1).getSequence());
+        }
+
+        @Override
+        public void afterCommit() {
+            List<ChangeEvent> events = staged.get();
+            if (events.isEmpty()) {
+                return;
+            }
+            events.forEach(changeLog::publish);
+            events.clear();
+            subscribers.forEach(Subscriber::signal);
+        }
+
+        @Override
+        public void afterFailedCommit() {
+            List<ChangeEvent> events = staged.get();
+            if (events.isEmpty()) {
+                return;
+            }
+            // The write may be lost on a restart, so it is not announced.
+            events.forEach(event -> changeLog.abort(event.getSequence()));
+            events.clear();
+            subscribers.forEach(Subscriber::signal);
+        }
+    }
+}
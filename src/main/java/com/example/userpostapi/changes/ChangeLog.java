@@ -0,0 +1,83 @@
+package com.example.userpostapi.changes;
+
+import com.example.userpostapi.model.ChangeEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring buffer of the most recent change events, numbered from 1.
+ *
+ * <p>Appending never blocks: a writer takes the next sequence number with one atomic increment
+ * and publishes its event into slot {@code sequence % capacity}, overwriting the event
+ * {@code capacity} positions older. Readers poll by sequence number. Because a writer publishes
+ * after taking its number, a reader can see a gap; {@link #read} then returns null and the
+ * reader tries again once the writer has signalled. A number taken for a write that then
+ * failed is filled with an aborted marker, which readers skip.
+ */
+final class ChangeLog {
+
+    private final AtomicReferenceArray<ChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    ChangeLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    ChangeEvent append(String entity, String type, long id, Long version, Object data) {
+        ChangeEvent event = new ChangeEvent(reserve(), entity, type, id, version, data);
+        publish(event);
+        return event;
+    }
+
+    /** Takes the next sequence number for an event published later with {@link #publish} or {@link #abort}. */
+    long reserve() {
+        return lastSequence.incrementAndGet();
+    }
+
+    /** Publishes an event under the sequence number reserved for it. */
+    void publish(ChangeEvent event) {
+        long sequence = event.getSequence();
+        int slot = (int) (sequence & mask);
+        while (true) {
+            // A writer stalled for a whole lap must not overwrite a newer event.
+            ChangeEvent current = slots.get(slot);
+            if (current != null && current.getSequence() > sequence
+                    || slots.compareAndSet(slot, current, event)) {
+                return;
+            }
+        }
+    }
+
+    /** Fills a reserved sequence number whose write failed, so readers move past it. */
+    void abort(long sequence) {
+        publish(new ChangeEvent(sequence, null, null, 0, null, null));
+    }
+
+    /** Whether {@code event} is the marker of an aborted write rather than a change. */
+    static boolean isAborted(ChangeEvent event) {
+        return event.getType() == null;
+    }
+
+    /** Sequence number of the latest change, or 0 before the first one. */
+    long lastSequence() {
+        return lastSequence.get();
+    }
+
+    /** Oldest sequence number that has not been overwritten yet. */
+    long firstAvailable() {
+        return Math.max(1, lastSequence.get() - mask);
+    }
+
+    /**
+     * Returns the event with this sequence number, or null if it is not published yet or has
+     * been overwritten (check {@link #firstAvailable} to tell the two apart).
+     */
+    ChangeEvent read(long sequence) {
+        ChangeEvent event = slots.get((int) (sequence & mask));
+        return event != null && event.getSequence() == sequence ? event : null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.userpostapi.controller;
+
+import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.model.BulkTransferResult;
+import com.example.userpostapi.persistence.BulkTransfer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(name = "app.bulk.admin-endpoints", havingValue = "true")
+public class AdminController {
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    private final BulkTransfer bulkTransfer;
+
+    public AdminController(BulkTransfer bulkTransfer) {
+        this.bulkTransfer = bulkTransfer;
+    }
+
+    @PostMapping("/export")
+    public BulkTransferResult exportAll(@RequestParam String file) { //
+        try {
+            return bulkTransfer.exportTo(bulkTransfer.resolve(file));
+        } catch (IOException e) {
+            log.error("Export to {} failed", file, e);
+            throw new OperationFailedException("Export to " + file + " failed: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/import")
+    public BulkTransferResult importAll(@RequestParam String file) { //
+        try {
+            return bulkTransfer.importFrom(bulkTransfer.resolve(file));
+        } catch (IOException e) {
+            log.error("Import from {} failed", file, e);
+            throw new OperationFailedException("Import from " + file + " failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.userpostapi.controller;
+
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.exception.PreconditionFailedException;
+import com.example.userpostapi.exception.VersionConflictException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Strong entity tags derived from entity versions and response formats: version 3 is tagged
+ * {@code "3"} in JSON, {@code "3-cbor"} in CBOR and {@code "3-smile"} in Smile. The version
+ * changes with every write, so the tag can be checked without serializing the entity. Each
+ * format's bytes differ, so each gets its own tag, and responses carrying one say
+ * {@code Vary: Accept}.
+ */
+final class ETags {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    // In the order the message converters are registered, which picks JSON for */*.
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+    private static final List<String> SUFFIXES = List.of("", "-cbor", "-smile");
+
+    private ETags() {
+    }
+
+    /** The tag of {@code version} in the format content negotiation picks for {@code accept}. */
+    static String of(Long version, String accept) {
+        return "\"" + version + SUFFIXES.get(FORMATS.indexOf(format(accept))) + "\"";
+    }
+
+    /**
+     * The response format for an {@code Accept} header, chosen like Spring's content negotiation:
+     * the most specific, highest-quality accepted type that one of the formats matches. JSON when
+     * the header is absent, malformed or matches none, which then fails negotiation anyway.
+     */
+    static MediaType format(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            for (MediaType format : FORMATS) {
+                if (type.isCompatibleWith(format) && type.getQualityValue() > 0) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Parses an {@code If-Match} header into the version the client expects, or null when the
+     * header is absent or {@code *}. Only a single strong tag can name a version; weak tags
+     * never match under strong comparison, so they are rejected like lists and malformed tags.
+     * The tag of any format names its version.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new InvalidRequestException("If-Match must be a single strong entity tag or *: " + ifMatch);
+        }
+        String opaque = tag.substring(1, tag.length() - 1);
+        for (int i = 1; i < SUFFIXES.size(); i++) {
+            if (opaque.endsWith(SUFFIXES.get(i))) {
+                opaque = opaque.substring(0, opaque.length() - SUFFIXES.get(i).length());
+                break;
+            }
+        }
+        try {
+            return Long.parseLong(opaque);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("If-Match must be a single strong entity tag or *: " + ifMatch);
+        }
+    }
+
+    /**
+     * The failure to complete a conditional update with: a stale {@code If-Match} is a failed
+     * precondition, while a stale version in the body stays a conflict.
+     */
+    static RuntimeException updateFailed(Long expectedVersion, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (expectedVersion != null && cause instanceof VersionConflictException) {
+            return new PreconditionFailedException(cause.getMessage());
+        }
+        return failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
+}
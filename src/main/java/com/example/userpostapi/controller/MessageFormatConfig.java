@@ -0,0 +1,30 @@
+package com.example.userpostapi.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary alternatives to JSON for request and response bodies: CBOR ({@code application/cbor})
+ * and Smile ({@code application/x-jackson-smile}). Clients pick one with {@code Content-Type}
+ * and {@code Accept}; JSON stays the default. Both mappers come from Spring Boot's builder, so
+ * they serialize exactly the same fields as the JSON one, and {@code Utf8Post} writes its stored
+ * UTF-8 text to them without decoding it.
+ */
+@Configuration
+public class MessageFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
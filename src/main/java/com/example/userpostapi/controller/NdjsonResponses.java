@@ -0,0 +1,41 @@
+package com.example.userpostapi.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.stream.Stream;
+
+/**
+ * Writes a lazily evaluated stream of entities as newline-delimited JSON. Each element is
+ * serialized as it is pulled from the stream, so memory use is bounded by the generator's
+ * buffer instead of the size of the result.
+ */
+final class NdjsonResponses {
+
+    private NdjsonResponses() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> of(Stream<T> items, ObjectMapper objectMapper) {
+        // Serializers are resolved per runtime type, so repository-specific subtypes keep their own.
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (Stream<T> stream = items;
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Lines are delimited explicitly below, not by Jackson's default space separator.
+                generator.setRootValueSeparator(null);
+                for (T item : (Iterable<T>) stream::iterator) {
+                    writer.writeValue(generator, item);
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -2,29 +2,48 @@ package com.example.userpostapi.controller;
 
 
 
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
 import com.example.userpostapi.model.Post;
 import com.example.userpostapi.service.PostService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/posts")
 public class PostController {
 
     private final PostService postService;
+    private final ObjectMapper objectMapper;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ObjectMapper objectMapper) {
         this.postService = postService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{id}")
-    public Post getPostById(@PathVariable Long id) { //
-        return postService.getPostById(id);
+    public ResponseEntity<Post> getPostById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                            ServletWebRequest request) { //
+        Post post = postService.getPostById(id);
+        String eTag = ETags.of(post.getVersion(), accept);
+        if (request.checkNotModified(eTag)) {
+            // 304 Not Modified with the ETag; the body is never serialized.
+            request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(post);
     }
 
     @GetMapping
@@ -32,20 +51,54 @@ public class PostController {
         return postService.getAllPosts();
     }
 
+    @GetMapping(params = "limit")
+    public CursorPage<Post> getPostsPage(@RequestParam(required = false) String after, @RequestParam int limit) { //
+        return postService.getPostsPage(after, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPosts() { //
+        return NdjsonResponses.of(postService.streamAllPosts(), objectMapper);
+    }
+
+    @GetMapping("/search")
+    public List<Post> searchPosts(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) { //
+        return postService.searchPosts(q, limit);
+    }
+
     @PostMapping
-    public ResponseEntity<Post> createPost(@Valid @RequestBody Post post) { //
-        Post createdPost = postService.createPost(post);
-        return new ResponseEntity<>(createdPost, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<Post>> createPost(@Valid @RequestBody Post post,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) { //
+        return postService.createPostAsync(post).thenApply(createdPost -> ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(ETags.of(createdPost.getVersion(), accept)).varyBy(HttpHeaders.ACCEPT).body(createdPost));
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<Post>>>> createPosts(@RequestBody List<Post> posts) { //
+        return postService.createPostsAsync(posts).thenApply(results -> {
+            boolean allCreated = results.stream().allMatch(BatchItemResult::isSuccess);
+            return new ResponseEntity<>(results, allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+        });
     }
 
     @PutMapping("/{id}")
-    public Post updatePost(@PathVariable Long id, @Valid @RequestBody Post post) { //
-        return postService.updatePost(id, post);
+    public CompletableFuture<ResponseEntity<Post>> updatePost(@PathVariable Long id, @Valid @RequestBody Post post,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) { //
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        if (expectedVersion != null) {
+            post.setVersion(expectedVersion);
+        }
+        return postService.updatePostAsync(id, post)
+                .exceptionally(failure -> {
+                    throw ETags.updateFailed(expectedVersion, failure);
+                })
+                .thenApply(updatedPost -> ResponseEntity.ok()
+                        .eTag(ETags.of(updatedPost.getVersion(), accept)).varyBy(HttpHeaders.ACCEPT).body(updatedPost));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePost(@PathVariable Long id) { //
-        postService.deletePost(id);
-        return ResponseEntity.noContent().build();
+    public CompletableFuture<ResponseEntity<Void>> deletePost(@PathVariable Long id) { //
+        return postService.deletePostAsync(id).thenApply(deleted -> ResponseEntity.noContent().build());
     }
 }
@@ -0,0 +1,26 @@
+package com.example.userpostapi.controller;
+
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.service.PostService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final PostService postService;
+
+    public StatsController(PostService postService) {
+        this.postService = postService;
+    }
+
+    @GetMapping("/top-authors")
+    public List<AuthorStats> getTopAuthors(@RequestParam(defaultValue = "10") int n) { //
+        return postService.getTopAuthors(n);
+    }
+}
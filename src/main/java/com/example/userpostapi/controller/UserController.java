@@ -1,28 +1,62 @@
 package com.example.userpostapi.controller;
 
 
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
+import com.example.userpostapi.model.Post;
 import com.example.userpostapi.model.User;
+import com.example.userpostapi.service.PostService;
 import com.example.userpostapi.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userService;
+    private final PostService postService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, PostService postService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.postService = postService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Long id) { //
-        return userService.getUserById(id);
+    public ResponseEntity<User> getUserById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                            ServletWebRequest request) { //
+        User user = userService.getUserById(id);
+        String eTag = ETags.of(user.getVersion(), accept);
+        if (request.checkNotModified(eTag)) {
+            // 304 Not Modified with the ETag; the body is never serialized.
+            request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(user);
+    }
+
+    @GetMapping("/{id}/posts")
+    public List<Post> getPostsByUserId(@PathVariable Long id) { //
+        return postService.getPostsByUserId(id);
+    }
+
+    @GetMapping("/{id}/stats")
+    public AuthorStats getUserStats(@PathVariable Long id) { //
+        return postService.getUserStats(id);
     }
 
     @GetMapping
@@ -30,20 +64,54 @@ public class UserController {
         return userService.getAllUsers();
     }
 
+    @GetMapping(params = "email")
+    public List<User> getUsersByEmail(@RequestParam String email) { //
+        return userService.getUsersByEmail(email);
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<User> getUsersPage(@RequestParam(required = false) String after, @RequestParam int limit) { //
+        return userService.getUsersPage(after, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() { //
+        return NdjsonResponses.of(userService.streamAllUsers(), objectMapper);
+    }
+
     @PostMapping
-    public ResponseEntity<User> createUser(@Valid @RequestBody User user) { //
-        User createdUser = userService.createUser(user);
-        return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<User>> createUser(@Valid @RequestBody User user,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) { //
+        return userService.createUserAsync(user).thenApply(createdUser -> ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(ETags.of(createdUser.getVersion(), accept)).varyBy(HttpHeaders.ACCEPT).body(createdUser));
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<User>>>> createUsers(@RequestBody List<User> users) { //
+        return userService.createUsersAsync(users).thenApply(results -> {
+            boolean allCreated = results.stream().allMatch(BatchItemResult::isSuccess);
+            return new ResponseEntity<>(results, allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+        });
     }
 
     @PutMapping("/{id}")
-    public User updateUser(@PathVariable Long id, @Valid @RequestBody User user) { //
-        return userService.updateUser(id, user);
+    public CompletableFuture<ResponseEntity<User>> updateUser(@PathVariable Long id, @Valid @RequestBody User user,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) { //
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        if (expectedVersion != null) {
+            user.setVersion(expectedVersion);
+        }
+        return userService.updateUserAsync(id, user)
+                .exceptionally(failure -> {
+                    throw ETags.updateFailed(expectedVersion, failure);
+                })
+                .thenApply(updatedUser -> ResponseEntity.ok()
+                        .eTag(ETags.of(updatedUser.getVersion(), accept)).varyBy(HttpHeaders.ACCEPT).body(updatedUser));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) { //
-        userService.deleteUser(id);
-        return ResponseEntity.noContent().build();
+    public CompletableFuture<ResponseEntity<Void>> deleteUser(@PathVariable Long id) { //
+        return userService.deleteUserAsync(id).thenApply(deleted -> ResponseEntity.noContent().build());
     }
 }
\ No newline at end of file
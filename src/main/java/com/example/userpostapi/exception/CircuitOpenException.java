@@ -0,0 +1,13 @@
+package com.example.userpostapi.exception;
+
+/** A call rejected without reaching the repository because its circuit breaker is open. */
+public class CircuitOpenException extends TransientDataAccessException {
+    private final long retryAfterSeconds;
+
+    public CircuitOpenException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,5 @@
+package com.example.userpostapi.exception;
+
+public class DuplicateEmailException extends RuntimeException {
+    public DuplicateEmailException(String message) { super(message); }
+}
@@ -0,0 +1,27 @@
+package com.example.userpostapi.exception;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Thrown by a repository's saveAll when some of the batch was not written. Per position of the
+ * batch, {@link #getSaved()} holds the saved entity or null, and {@link #getFailures()} the
+ * failure of a write that was tried and failed, or null. A position with neither was not tried.
+ */
+public class PartialBatchException extends RuntimeException {
+    private final List<?> saved;
+    private final List<RuntimeException> failures;
+
+    public PartialBatchException(Object[] saved, RuntimeException[] failures) {
+        super("Batch partly written: " + Arrays.stream(failures).filter(Objects::nonNull).count()
+                + " of " + failures.length + " items failed",
+                Arrays.stream(failures).filter(Objects::nonNull).findFirst().orElse(null));
+        this.saved = Collections.unmodifiableList(Arrays.asList(saved));
+        this.failures = Collections.unmodifiableList(Arrays.asList(failures));
+    }
+
+    public List<?> getSaved() { return saved; }
+    public List<RuntimeException> getFailures() { return failures; }
+}
@@ -0,0 +1,5 @@
+package com.example.userpostapi.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) { super(message); }
+}
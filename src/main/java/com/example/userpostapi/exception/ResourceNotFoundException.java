@@ -1,5 +1,10 @@
 package com.example.userpostapi.exception;
 
+/**
+ * A requested id does not exist. Clients probe missing ids routinely, so this is an expected
+ * outcome rather than a fault: it is created without a stack trace, which is most of the cost
+ * of an exception.
+ */
 public class ResourceNotFoundException extends RuntimeException {
-    public ResourceNotFoundException(String message) { super(message); }
+    public ResourceNotFoundException(String message) { super(message, null, false, false); }
 }
@@ -1,6 +1,8 @@
 package com.example.userpostapi.exception;
 
-
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,15 +14,95 @@ import java.util.Map;
 @ControllerAdvice
 public class RestExceptionHandler {
 
+    // One counter per mapped exception, created up front so handling an error does no lookup.
+    private final Counter resourceNotFound;
+    private final Counter invalidRequest;
+    private final Counter versionConflict;
+    private final Counter duplicateEmail;
+    private final Counter preconditionFailed;
+    private final Counter operationFailed;
+    private final Counter serviceUnavailable;
+    private final Counter tooManyRequests;
+
+    public RestExceptionHandler(MeterRegistry meterRegistry) {
+        this.resourceNotFound = errorCounter(meterRegistry, ResourceNotFoundException.class, HttpStatus.NOT_FOUND);
+        this.invalidRequest = errorCounter(meterRegistry, InvalidRequestException.class, HttpStatus.BAD_REQUEST);
+        this.versionConflict = errorCounter(meterRegistry, VersionConflictException.class, HttpStatus.CONFLICT);
+        this.duplicateEmail = errorCounter(meterRegistry, DuplicateEmailException.class, HttpStatus.CONFLICT);
+        this.preconditionFailed = errorCounter(meterRegistry, PreconditionFailedException.class, HttpStatus.PRECONDITION_FAILED);
+        this.operationFailed = errorCounter(meterRegistry, OperationFailedException.class, HttpStatus.INTERNAL_SERVER_ERROR);
+        this.serviceUnavailable = errorCounter(meterRegistry, ServiceUnavailableException.class, HttpStatus.SERVICE_UNAVAILABLE);
+        this.tooManyRequests = errorCounter(meterRegistry, TooManyRequestsException.class, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private static Counter errorCounter(MeterRegistry meterRegistry, Class<? extends RuntimeException> type, HttpStatus status) {
+        return Counter.builder("api.errors")
+                .description("Exceptions mapped to error responses")
+                .tag("exception", type.getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleResourceNotFound(ResourceNotFoundException ex) {
+        resourceNotFound.increment();
         Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRequest(InvalidRequestException ex) {
+        invalidRequest.increment();
+        Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Map<String, String>> handleVersionConflict(VersionConflictException ex) {
+        versionConflict.increment();
+        Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(DuplicateEmailException.class)
+    public ResponseEntity<Map<String, String>> handleDuplicateEmail(DuplicateEmailException ex) {
+        duplicateEmail.increment();
+        Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handlePreconditionFailed(PreconditionFailedException ex) {
+        preconditionFailed.increment();
+        Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
     @ExceptionHandler(OperationFailedException.class)
     public ResponseEntity<Map<String, String>> handleOperationFailed(OperationFailedException ex) {
+        operationFailed.increment();
         Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleServiceUnavailable(ServiceUnavailableException ex) {
+        serviceUnavailable.increment();
+        Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
+        if (ex.getRetryAfterSeconds() > 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                    .body(error);
+        }
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequests(TooManyRequestsException ex) {
+        tooManyRequests.increment();
+        Map<String, String> error = Collections.singletonMap("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
 }
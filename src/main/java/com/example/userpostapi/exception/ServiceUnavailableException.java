@@ -0,0 +1,15 @@
+package com.example.userpostapi.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message) { this(message, 0); }
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** Seconds to send in {@code Retry-After}, or 0 to leave the header out. */
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
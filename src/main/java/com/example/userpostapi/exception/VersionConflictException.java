@@ -0,0 +1,5 @@
+package com.example.userpostapi.exception;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) { super(message); }
+}
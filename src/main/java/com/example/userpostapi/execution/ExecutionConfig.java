@@ -0,0 +1,42 @@
+package com.example.userpostapi.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor of the async service methods.
+ *
+ * <p>With Spring Boot's {@code spring.threads.virtual.enabled=true} on Java 21 or later, Boot
+ * serves every request on its own virtual thread, and the async service methods run on virtual
+ * threads too, so a request blocked on a slow repository only holds a cheap virtual thread.
+ * Boot ignores the property on older runtimes. Otherwise the async service methods get a
+ * bounded platform pool of {@code app.threads.service-pool-size} threads.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    /** Runs the {@code CompletableFuture} variants of the service methods. */
+    @Bean
+    public Executor serviceExecutor(Environment environment,
+                                    SimpleAsyncTaskExecutorBuilder virtualThreadExecutorBuilder,
+                                    @Value("${app.threads.service-pool-size:64}") int servicePoolSize) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // Boot's builder already creates virtual threads when the property is active.
+            return virtualThreadExecutorBuilder.threadNamePrefix("service-").build();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(servicePoolSize, runnable -> {
+            Thread thread = new Thread(runnable, "service-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.userpostapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application metrics on top of what Actuator records itself (e.g. {@code http.server.requests}
+ * per endpoint): repository call timers and store size gauges. Retry and circuit breaker meters
+ * are registered by {@code RetryExecutor}. All of it is exposed at {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    static RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registryProvider) {
+        return new RepositoryMetricsPostProcessor(registryProvider);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.userpostapi.metrics;
+
+import com.example.userpostapi.repository.OffHeapPostRepository;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Wraps the repository beans in timing decorators and registers gauges for their sizes. Every
+ * consumer of {@link UserRepository} or {@link PostRepository} therefore gets the timed one.
+ */
+class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    // Resolved lazily: post-processors are created before the registry is.
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof UserRepository userRepository && !(bean instanceof TimedUserRepository)) {
+            MeterRegistry registry = registryProvider.getObject();
+            registerSize(registry, "users", userRepository, UserRepository::count);
+            return new TimedUserRepository(userRepository, new RepositoryTimers(registry, "users"));
+        }
+        if (bean instanceof PostRepository postRepository && !(bean instanceof TimedPostRepository)) {
+            MeterRegistry registry = registryProvider.getObject();
+            registerSize(registry, "posts", postRepository, PostRepository::count);
+            if (bean instanceof OffHeapPostRepository offHeap) {
+                Gauge.builder("repository.off-heap.bytes", offHeap, OffHeapPostRepository::offHeapBytes)
+                        .description("Direct memory holding post text")
+                        .baseUnit("bytes")
+                        .register(registry);
+            }
+            return new TimedPostRepository(postRepository, new RepositoryTimers(registry, "posts"));
+        }
+        return bean;
+    }
+
+    private static <T> void registerSize(MeterRegistry registry, String repository, T target, ToDoubleFunction<T> size) {
+        Gauge.builder("repository.size", target, size)
+                .description("Entities currently stored")
+                .tag("repository", repository)
+                .register(registry);
+    }
+}
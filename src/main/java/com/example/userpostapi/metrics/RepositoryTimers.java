@@ -0,0 +1,52 @@
+package com.example.userpostapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers of one repository, registered once up front so that recording a call is a plain
+ * field access plus {@link Timer#record(long, java.util.concurrent.TimeUnit)}: no tag lookup
+ * and no allocation per call.
+ */
+final class RepositoryTimers {
+
+    static final String METRIC = "repository.operations";
+
+    final Timer findById;
+    final Timer findAll;
+    final Timer findPage;
+    final Timer streamAll;
+    final Timer findByUserId;
+    final Timer findByEmail;
+    final Timer search;
+    final Timer findTopAuthors;
+    final Timer save;
+    final Timer saveAll;
+    final Timer deleteById;
+    final Timer deleteByUserId;
+    final Timer existsById;
+
+    RepositoryTimers(MeterRegistry registry, String repository) {
+        findById = timer(registry, repository, "findById");
+        findAll = timer(registry, repository, "findAll");
+        findPage = timer(registry, repository, "findPage");
+        streamAll = timer(registry, repository, "streamAll");
+        findByUserId = timer(registry, repository, "findByUserId");
+        findByEmail = timer(registry, repository, "findByEmail");
+        search = timer(registry, repository, "search");
+        findTopAuthors = timer(registry, repository, "findTopAuthors");
+        save = timer(registry, repository, "save");
+        saveAll = timer(registry, repository, "saveAll");
+        deleteById = timer(registry, repository, "deleteById");
+        deleteByUserId = timer(registry, repository, "deleteByUserId");
+        existsById = timer(registry, repository, "existsById");
+    }
+
+    private static Timer timer(MeterRegistry registry, String repository, String operation) {
+        return Timer.builder(METRIC)
+                .description("Time spent in repository calls")
+                .tag("repository", repository)
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
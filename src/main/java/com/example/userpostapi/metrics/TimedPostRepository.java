@@ -0,0 +1,163 @@
+package com.example.userpostapi.metrics;
+
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Times every data access of a {@link PostRepository}; listener and recovery hooks pass through. */
+final class TimedPostRepository implements PostRepository {
+
+    private final PostRepository delegate;
+    private final RepositoryTimers timers;
+
+    TimedPostRepository(PostRepository delegate, RepositoryTimers timers) {
+        this.delegate = delegate;
+        this.timers = timers;
+    }
+
+    PostRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Optional<Post> findById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            timers.findById.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Post> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            timers.findAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Post> findPage(Long afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPage(afterId, limit);
+        } finally {
+            timers.findPage.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Times opening the stream only; the walk itself happens while the caller consumes it. */
+    @Override
+    public Stream<Post> streamAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.streamAll();
+        } finally {
+            timers.streamAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Post> findByUserId(Long userId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByUserId(userId);
+        } finally {
+            timers.findByUserId.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long countByUserId(Long userId) {
+        return delegate.countByUserId(userId);
+    }
+
+    @Override
+    public List<AuthorStats> findTopAuthors(int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findTopAuthors(limit);
+        } finally {
+            timers.findTopAuthors.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Post> search(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.search(query, limit);
+        } finally {
+            timers.search.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Post save(Post post) {
+        long start = System.nanoTime();
+        try {
+            return delegate.save(post);
+        } finally {
+            timers.save.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Post> saveAll(List<Post> posts) {
+        long start = System.nanoTime();
+        try {
+            return delegate.saveAll(posts);
+        } finally {
+            timers.saveAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            timers.deleteById.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public int deleteByUserId(Long userId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteByUserId(userId);
+        } finally {
+            timers.deleteByUserId.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void addListener(RepositoryListener<Post> listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void restore(Post post) {
+        delegate.restore(post);
+    }
+
+    @Override
+    public void restoreDeletion(Long id) {
+        delegate.restoreDeletion(id);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.userpostapi.metrics;
+
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.RepositoryListener;
+import com.example.userpostapi.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Times every data access of a {@link UserRepository}; listener and recovery hooks pass through. */
+final class TimedUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final RepositoryTimers timers;
+
+    TimedUserRepository(UserRepository delegate, RepositoryTimers timers) {
+        this.delegate = delegate;
+        this.timers = timers;
+    }
+
+    UserRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            timers.findById.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            timers.findAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPage(afterId, limit);
+        } finally {
+            timers.findPage.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Times opening the stream only; the walk itself happens while the caller consumes it. */
+    @Override
+    public Stream<User> streamAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.streamAll();
+        } finally {
+            timers.streamAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByEmail(email);
+        } finally {
+            timers.findByEmail.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.save(user);
+        } finally {
+            timers.save.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        long start = System.nanoTime();
+        try {
+            return delegate.saveAll(users);
+        } finally {
+            timers.saveAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            timers.deleteById.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.existsById(id);
+        } finally {
+            timers.existsById.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void addListener(RepositoryListener<User> listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void restore(User user) {
+        delegate.restore(user);
+    }
+
+    @Override
+    public void restoreDeletion(Long id) {
+        delegate.restoreDeletion(id);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.userpostapi.model;
+
+/** Number of posts a user has written, as served by {@code /users/{id}/stats} and {@code /stats/top-authors}. */
+public class AuthorStats {
+    private final Long userId;
+    private final long postCount;
+
+    public AuthorStats(Long userId, long postCount) {
+        this.userId = userId;
+        this.postCount = postCount;
+    }
+
+    public Long getUserId() { return userId; }
+    public long getPostCount() { return postCount; }
+}
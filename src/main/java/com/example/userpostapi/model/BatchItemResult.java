@@ -0,0 +1,39 @@
+package com.example.userpostapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one element of a batch request. {@code index} is the element's position in the
+ * request; {@code status} is an HTTP status code describing that element's outcome.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult<T> {
+    private final int index;
+    private final int status;
+    private final T item;
+    private final String error;
+
+    private BatchItemResult(int index, int status, T item, String error) {
+        this.index = index;
+        this.status = status;
+        this.item = item;
+        this.error = error;
+    }
+
+    public static <T> BatchItemResult<T> created(int index, T item) {
+        return new BatchItemResult<>(index, 201, item, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(int index, int status, String error) {
+        return new BatchItemResult<>(index, status, null, error);
+    }
+
+    public int getIndex() { return index; }
+    public int getStatus() { return status; }
+    public T getItem() { return item; }
+    public String getError() { return error; }
+
+    @JsonIgnore
+    public boolean isSuccess() { return status < 300; }
+}
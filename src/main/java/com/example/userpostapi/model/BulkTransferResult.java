@@ -0,0 +1,24 @@
+package com.example.userpostapi.model;
+
+/** Outcome of a bulk export or import: what moved, how many bytes the file holds and how long it took. */
+public class BulkTransferResult {
+    private final String file;
+    private final long users;
+    private final long posts;
+    private final long bytes;
+    private final long durationMillis;
+
+    public BulkTransferResult(String file, long users, long posts, long bytes, long durationMillis) {
+        this.file = file;
+        this.users = users;
+        this.posts = posts;
+        this.bytes = bytes;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getFile() { return file; }
+    public long getUsers() { return users; }
+    public long getPosts() { return posts; }
+    public long getBytes() { return bytes; }
+    public long getDurationMillis() { return durationMillis; }
+}
@@ -0,0 +1,35 @@
+package com.example.userpostapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * One committed write, as published on the change feed. {@code sequence} orders all changes
+ * across users and posts; {@code data} is the saved entity and is absent for deletes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"sequence", "entity", "type", "id", "version", "data"})
+public class ChangeEvent {
+    private final long sequence;
+    private final String entity;
+    private final String type;
+    private final long id;
+    private final Long version;
+    private final Object data;
+
+    public ChangeEvent(long sequence, String entity, String type, long id, Long version, Object data) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.data = data;
+    }
+
+    public long getSequence() { return sequence; }
+    public String getEntity() { return entity; }
+    public String getType() { return type; }
+    public long getId() { return id; }
+    public Long getVersion() { return version; }
+    public Object getData() { return data; }
+}
@@ -1,10 +1,15 @@
 package com.example.userpostapi.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// Fixed order, so repository subclasses (e.g. immutable snapshots) serialize the same way.
+@JsonPropertyOrder({"id", "title", "content", "userId", "version"})
 public class Post {
     private Long id;
     private String title;
     private String content;
     private Long userId;
+    private Long version;
 
     // Getters and Setters
     public Long getId() { return id; }
@@ -15,4 +20,6 @@ public class Post {
     public void setContent(String content) { this.content = content; }
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -1,9 +1,14 @@
 package com.example.userpostapi.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// Fixed order, so repository subclasses (e.g. immutable snapshots) serialize the same way.
+@JsonPropertyOrder({"id", "name", "email", "version"})
 public class User {
     private Long id;
     private String name;
     private String email;
+    private Long version;
 
     // Getters and Setters
     public Long getId() { return id; }
@@ -12,4 +17,6 @@ public class User {
     public void setName(String name) { this.name = name; }
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
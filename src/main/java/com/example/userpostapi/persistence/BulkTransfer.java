@@ -0,0 +1,370 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.model.BulkTransferResult;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export and import of all users and posts, for moving data between environments.
+ *
+ * <p>An export file has the snapshot format of {@link DurabilityManager}: a header with the
+ * highest ids, then one framed record per user and per post. It is written through a large
+ * direct buffer while writes continue, so it is a fuzzy copy like a snapshot.
+ *
+ * <p>An import reads the file memory-mapped, twice. The first pass checks it as a whole: every
+ * frame intact, no id twice in the file or already in the store, every post owner present in the
+ * file or the store, and no email twice in the file or taken by a user already in the store; a
+ * failed check rejects the file before anything is written. The second pass writes the records
+ * in parallel batches through the repositories' saveAll, all users before any post, skipping
+ * per-entity service validation. Each entity is created at its id (expected version 0), so it
+ * starts again at version 1, claims its email exclusively, and reaches the listeners like any
+ * other write: the write-ahead log, the change feed and replicas. An id or email that a
+ * concurrent write takes after the check fails the import, keeping what was written before. With
+ * durability enabled a snapshot is written afterwards, so recovery does not replay the import.
+ */
+@Component
+public class BulkTransfer {
+    private static final Logger log = LoggerFactory.getLogger(BulkTransfer.class);
+
+    private static final int BUFFER_BYTES = 8 * 1024 * 1024;
+    private static final int BATCH_RECORDS = 4096;
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final ObjectProvider<DurabilityManager> durabilityManager;
+    private final Path directory;
+    private final int parallelism;
+
+    public BulkTransfer(UserRepository userRepository,
+                        PostRepository postRepository,
+                        ObjectProvider<DurabilityManager> durabilityManager,
+                        @Value("${app.bulk.directory:bulk}") String directory,
+                        @Value("${app.bulk.parallelism:0}") int parallelism) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.durabilityManager = durabilityManager;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Resolves a plain file name inside {@code app.bulk.directory}; anything else is rejected. */
+    public Path resolve(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new InvalidRequestException("A file name is required.");
+        }
+        Path file = directory.resolve(fileName).normalize();
+        if (!Objects.equals(file.getParent(), directory)) {
+            throw new InvalidRequestException("File name must not contain a path: " + fileName);
+        }
+        return file;
+    }
+
+    /** Writes all users and posts to {@code file}, replacing it atomically once complete. */
+    public BulkTransferResult exportTo(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        Path target = file.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long[] counts = new long[2];
+        long[] maxIds = new long[2];
+        long bytes;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            FrameWriter writer = new FrameWriter(channel, BUFFER_BYTES);
+            // The highest ids are known only at the end; the header has a fixed size and is rewritten then.
+            writer.write(LogRecords.snapshotHeader(0, 0));
+            try (Stream<User> users = userRepository.streamAll()) {
+                users.forEach(user -> {
+                    writer.write(LogRecords.userSaved(user));
+                    counts[0]++;
+                    maxIds[0] = Math.max(maxIds[0], user.getId());
+                });
+            }
+            try (Stream<Post> posts = postRepository.streamAll()) {
+                posts.forEach(post -> {
+                    writer.write(LogRecords.postSaved(post));
+                    counts[1]++;
+                    maxIds[1] = Math.max(maxIds[1], post.getId());
+                });
+            }
+            writer.flush();
+            byte[] headerBody = LogRecords.snapshotHeader(maxIds[0], maxIds[1]);
+            ByteBuffer header = ByteBuffer.allocate(LogRecords.FRAME_HEADER_BYTES + headerBody.length);
+            LogRecords.frame(header, headerBody);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            bytes = channel.size();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return finished("Exported", target, counts[0], counts[1], bytes, startNanos);
+    }
+
+    /** Checks {@code file} as a whole, then loads its users and posts into the repositories. */
+    public BulkTransferResult importFrom(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        if (!Files.isRegularFile(file)) {
+            throw new InvalidRequestException("Import file " + file.getFileName() + " does not exist.");
+        }
+        long[] counts = check(file);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, new ImportThreadFactory());
+        try (RecordReader reader = new RecordReader(file)) {
+            // Bounds the batches read ahead of the workers.
+            Semaphore inFlight = new Semaphore(2 * parallelism);
+            List<Future<?>> batches = new ArrayList<>();
+            reader.next();
+            List<ByteBuffer> batch = new ArrayList<>(BATCH_RECORDS);
+            byte batchType = LogRecords.USER_SAVED;
+            for (ByteBuffer body = reader.next(); body != null; body = reader.next()) {
+                byte type = LogRecords.type(body);
+                if (type != batchType) {
+                    // Users are all written first, so no listener sees a post before its owner.
+                    batches.add(submit(pool, inFlight, batch));
+                    batch = new ArrayList<>(BATCH_RECORDS);
+                    awaitAll(batches);
+                    batchType = type;
+                }
+                batch.add(body);
+                if (batch.size() == BATCH_RECORDS) {
+                    batches.add(submit(pool, inFlight, batch));
+                    batch = new ArrayList<>(BATCH_RECORDS);
+                }
+            }
+            batches.add(submit(pool, inFlight, batch));
+            awaitAll(batches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import of " + file + " was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Import of " + file + " failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        DurabilityManager durability = durabilityManager.getIfAvailable();
+        if (durability != null) {
+            durability.snapshot();
+        }
+        return finished("Imported", file, counts[0], counts[1], Files.size(file), startNanos);
+    }
+
+    private Future<?> submit(ExecutorService pool, Semaphore inFlight, List<ByteBuffer> batch) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            return pool.submit(() -> {
+                try {
+                    apply(batch);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> batches) throws InterruptedException, ExecutionException {
+        for (Future<?> done : batches) {
+            done.get();
+        }
+        batches.clear();
+    }
+
+    /** Creates the entities of a batch, which holds only users or only posts, at their ids. */
+    private void apply(List<ByteBuffer> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (LogRecords.type(batch.get(0)) == LogRecords.USER_SAVED) {
+                userRepository.saveAll(batch.stream().map(BulkTransfer::newUser).toList());
+            } else {
+                postRepository.saveAll(batch.stream().map(BulkTransfer::newPost).toList());
+            }
+        } catch (PartialBatchException e) {
+            // The failed write says what went wrong, e.g. an email a concurrent request took.
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static User newUser(ByteBuffer body) {
+        User user = LogRecords.readUser(body);
+        user.setVersion(0L);
+        return user;
+    }
+
+    private static Post newPost(ByteBuffer body) {
+        Post post = LogRecords.readPost(body);
+        post.setVersion(0L);
+        return post;
+    }
+
+    /** The first pass: validates the file without writing anything and counts users and posts. */
+    private long[] check(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        LongArray userIds = new LongArray();
+        LongArray postIds = new LongArray();
+        LongArray ownerIds = new LongArray();
+        Map<String, Long> userIdsByEmail = new HashMap<>();
+        boolean storeHasUsers = userRepository.count() > 0;
+        boolean storeHasPosts = postRepository.count() > 0;
+        try (RecordReader reader = new RecordReader(file)) {
+            ByteBuffer header = reader.next();
+            if (header == null || LogRecords.type(header) != LogRecords.SNAPSHOT_HEADER) {
+                throw new InvalidRequestException(name + " is not an export file.");
+            }
+            for (ByteBuffer body = reader.next(); body != null; body = reader.next()) {
+                long id = body.getLong(body.position() + 1);
+                switch (LogRecords.type(body)) {
+                    case LogRecords.USER_SAVED -> {
+                        if (storeHasUsers && userRepository.existsById(id)) {
+                            throw new InvalidRequestException("Import rejected: user " + id + " already exists.");
+                        }
+                        userIds.add(id);
+                        checkEmail(id, LogRecords.readUserEmail(body), userIdsByEmail, storeHasUsers);
+                    }
+                    case LogRecords.POST_SAVED -> {
+                        if (storeHasPosts && postRepository.findById(id).isPresent()) {
+                            throw new InvalidRequestException("Import rejected: post " + id + " already exists.");
+                        }
+                        postIds.add(id);
+                        Long owner = LogRecords.readPostUserId(body);
+                        if (owner != null) {
+                            ownerIds.add(owner);
+                        }
+                    }
+                    default -> throw new InvalidRequestException(name + " holds a record that is not a user or a post.");
+                }
+            }
+            if (reader.validLength() < reader.size()) {
+                throw new InvalidRequestException(name + " is corrupt or truncated at byte " + reader.validLength() + ".");
+            }
+        }
+        long users = userIds.size;
+        long posts = postIds.size;
+        userIds.sortDistinct();
+        postIds.sortDistinct();
+        if (userIds.size < users || postIds.size < posts) {
+            throw new InvalidRequestException("Import rejected: " + name + " holds "
+                    + (users - userIds.size + posts - postIds.size) + " ids more than once.");
+        }
+        ownerIds.sortDistinct();
+        long missing = 0;
+        long example = 0;
+        for (int i = 0; i < ownerIds.size; i++) {
+            long owner = ownerIds.values[i];
+            if (!userIds.contains(owner) && !userRepository.existsById(owner)) {
+                missing++;
+                example = owner;
+            }
+        }
+        if (missing > 0) {
+            throw new InvalidRequestException("Import rejected: posts reference " + missing
+                    + " users that are neither in the file nor in the store, e.g. user " + example + ".");
+        }
+        return new long[] {users, posts};
+    }
+
+    private void checkEmail(long id, String email, Map<String, Long> userIdsByEmail, boolean storeHasUsers) {
+        String key = UserRepository.normalizeEmail(email);
+        if (key == null) {
+            return;
+        }
+        Long other = userIdsByEmail.putIfAbsent(key, id);
+        if (other == null && storeHasUsers) {
+            other = userRepository.findByEmail(email).map(User::getId).orElse(null);
+        }
+        if (other != null) {
+            throw new InvalidRequestException("Import rejected: email " + email.trim()
+                    + " of user " + id + " is already used by user " + other + ".");
+        }
+    }
+
+    private static BulkTransferResult finished(String action, Path file, long users, long posts, long bytes,
+                                               long startNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("{} {} users and {} posts ({} bytes) in {} ms via {}", action, users, posts, bytes, millis, file);
+        return new BulkTransferResult(file.getFileName().toString(), users, posts, bytes, millis);
+    }
+
+    /** Growable array of primitive ids, so checking millions of records does not box them. */
+    private static final class LongArray {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void sortDistinct() {
+            Arrays.sort(values, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || values[i] != values[distinct - 1]) {
+                    values[distinct++] = values[i];
+                }
+            }
+            size = distinct;
+        }
+
+        boolean contains(long value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+
+    private static final class ImportThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "bulk-import-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
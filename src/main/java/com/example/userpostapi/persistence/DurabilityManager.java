@@ -0,0 +1,305 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+import com.example.userpostapi.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Optional durability for the in-memory repositories (enabled with {@code app.durability.enabled=true}).
+ *
+ * <p>Every save and delete is appended to a {@link WriteAheadLog}. Periodically the log is
+ * rotated and a compacted snapshot of the live entities is written; older segments and
+ * snapshots are then deleted. On startup the latest snapshot is loaded and the segments written
+ * after it are replayed. The snapshot is taken while writes continue, but records only carry
+ * full entity state, so replaying the newer segments on top of it converges to the right state.
+ *
+ * <p>Only the newest segment can end in a torn record, since rotation forces a segment to disk
+ * before the next one starts and a snapshot is complete on disk before it gets its name. So the
+ * newest segment is truncated after its last intact record, while a bad record anywhere else is
+ * corruption and fails startup rather than recovering a store with a hole in it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.durability.enabled", havingValue = "true")
+public class DurabilityManager {
+    private static final Logger log = LoggerFactory.getLogger(DurabilityManager.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{16})\\.log");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{16})\\.snap");
+    private static final int SNAPSHOT_BUFFER_BYTES = 4 * 1024 * 1024;
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final Path directory;
+    private final boolean syncCommit;
+    private final Duration snapshotInterval;
+
+    // Highest ids ever assigned, kept so ids of deleted entities are not reissued after a restart.
+    private final AtomicLong userIdWatermark = new AtomicLong();
+    private final AtomicLong postIdWatermark = new AtomicLong();
+
+    private WriteAheadLog writeAheadLog;
+    private ScheduledExecutorService snapshotScheduler;
+
+    public DurabilityManager(UserRepository userRepository,
+                             PostRepository postRepository,
+                             @Value("${app.durability.directory:data}") String directory,
+                             @Value("${app.durability.sync-commit:true}") boolean syncCommit,
+                             @Value("${app.durability.snapshot-interval:10m}") Duration snapshotInterval) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.directory = Paths.get(directory);
+        this.syncCommit = syncCommit;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        long nextSegment = recover();
+        writeAheadLog = new WriteAheadLog(directory, nextSegment);
+        userRepository.addListener(new LoggingListener<>(LogRecords::userSaved, LogRecords::userDeleted,
+                user -> userIdWatermark.accumulateAndGet(user.getId(), Math::max)));
+        postRepository.addListener(new LoggingListener<>(LogRecords::postSaved, LogRecords::postDeleted,
+                post -> postIdWatermark.accumulateAndGet(post.getId(), Math::max)));
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = snapshotInterval.toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    /**
+     * Loads the latest snapshot and replays the log segments written after it.
+     *
+     * @return the index to use for the next log segment
+     */
+    long recover() throws IOException {
+        Files.createDirectories(directory);
+        long startNanos = System.nanoTime();
+        List<Long> snapshots = indexes(SNAPSHOT_NAME);
+        long replayFrom = 0;
+        long records = 0;
+        if (!snapshots.isEmpty()) {
+            replayFrom = snapshots.get(snapshots.size() - 1);
+            records += loadSnapshot(snapshotPath(replayFrom));
+        }
+
+        List<Long> segments = indexes(SEGMENT_NAME);
+        long nextSegment = replayFrom;
+        for (Long segment : segments) {
+            if (segment < replayFrom) {
+                continue;
+            }
+            boolean newest = segment.equals(segments.get(segments.size() - 1));
+            records += replaySegment(WriteAheadLog.segmentPath(directory, segment), newest);
+            nextSegment = segment + 1;
+        }
+
+        // Ids of entities deleted before the snapshot are only known through the watermarks.
+        if (userRepository.findById(userIdWatermark.get()).isEmpty()) {
+            userRepository.restoreDeletion(userIdWatermark.get());
+        }
+        if (postRepository.findById(postIdWatermark.get()).isEmpty()) {
+            postRepository.restoreDeletion(postIdWatermark.get());
+        }
+        log.info("Recovered {} records from {} in {} ms", records, directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return nextSegment;
+    }
+
+    /** Rotates the log and writes a compacted snapshot of the live entities. */
+    public synchronized void snapshot() throws IOException {
+        long index = writeAheadLog.rotate();
+        Path target = snapshotPath(index);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            FrameWriter writer = new FrameWriter(channel, SNAPSHOT_BUFFER_BYTES);
+            writer.write(LogRecords.snapshotHeader(userIdWatermark.get(), postIdWatermark.get()));
+            try (Stream<User> users = userRepository.streamAll()) {
+                users.forEach(user -> writer.write(LogRecords.userSaved(user)));
+            }
+            try (Stream<Post> posts = postRepository.streamAll()) {
+                posts.forEach(post -> writer.write(LogRecords.postSaved(post)));
+            }
+            writer.flush();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Long segment : indexes(SEGMENT_NAME)) {
+            if (segment < index) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(directory, segment));
+            }
+        }
+        for (Long snapshot : indexes(SNAPSHOT_NAME)) {
+            if (snapshot < index) {
+                Files.deleteIfExists(snapshotPath(snapshot));
+            }
+        }
+        log.info("Wrote snapshot {}", target);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Snapshot failed, the write-ahead log keeps growing until the next attempt.", e);
+        }
+    }
+
+    private long loadSnapshot(Path file) throws IOException {
+        long records = 0;
+        try (RecordReader reader = new RecordReader(file)) {
+            ByteBuffer header = reader.next();
+            if (header == null) {
+                throw new DataAccessException("Snapshot " + file + " is empty or its header is corrupt.");
+            }
+            long[] watermarks = LogRecords.readSnapshotHeader(header);
+            userIdWatermark.accumulateAndGet(watermarks[0], Math::max);
+            postIdWatermark.accumulateAndGet(watermarks[1], Math::max);
+            for (ByteBuffer body = reader.next(); body != null; body = reader.next()) {
+                apply(body);
+                records++;
+            }
+            if (reader.validLength() < reader.size()) {
+                throw new DataAccessException("Snapshot " + file + " is corrupt at byte " + reader.validLength()
+                        + " of " + reader.size() + "; refusing to recover a partial store.");
+            }
+        }
+        return records;
+    }
+
+    /** Replays a segment; only the {@code newest} one may end in a torn record, which is cut off. */
+    private long replaySegment(Path file, boolean newest) throws IOException {
+        long records = 0;
+        long validLength;
+        long size;
+        try (RecordReader reader = new RecordReader(file)) {
+            for (ByteBuffer body = reader.next(); body != null; body = reader.next()) {
+                apply(body);
+                records++;
+            }
+            validLength = reader.validLength();
+            size = reader.size();
+        }
+        if (validLength < size && !newest) {
+            throw new DataAccessException("Write-ahead log segment " + file + " is corrupt at byte " + validLength
+                    + " of " + size + ", before newer segments; refusing to replay past the gap.");
+        }
+        if (validLength < size) {
+            log.warn("Truncating torn tail of {} at {} of {} bytes", file, validLength, size);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+        return records;
+    }
+
+    private void apply(ByteBuffer body) {
+        byte type = LogRecords.type(body);
+        long id = body.getLong(body.position() + 1);
+        if (type == LogRecords.USER_SAVED || type == LogRecords.USER_DELETED) {
+            userIdWatermark.accumulateAndGet(id, Math::max);
+        } else if (type == LogRecords.POST_SAVED || type == LogRecords.POST_DELETED) {
+            postIdWatermark.accumulateAndGet(id, Math::max);
+        }
+        LogRecords.apply(body, userRepository, postRepository);
+    }
+
+    private Path snapshotPath(long index) {
+        return directory.resolve(String.format("snapshot-%016d.snap", index));
+    }
+
+    private List<Long> indexes(Pattern pattern) throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    indexes.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    private final class LoggingListener<T> implements RepositoryListener<T> {
+        private final Function<T, byte[]> saved;
+        private final Function<Long, byte[]> deleted;
+        private final Consumer<T> onAssigned;
+
+        LoggingListener(Function<T, byte[]> saved,
+                        Function<Long, byte[]> deleted,
+                        Consumer<T> onAssigned) {
+            this.saved = saved;
+            this.deleted = deleted;
+            this.onAssigned = onAssigned;
+        }
+
+        @Override
+        public void onSave(T entity) {
+            onAssigned.accept(entity);
+            writeAheadLog.append(saved.apply(entity));
+        }
+
+        @Override
+        public void onDelete(Long id) {
+            writeAheadLog.append(deleted.apply(id));
+        }
+
+        @Override
+        public void afterCommit() {
+            if (syncCommit) {
+                writeAheadLog.awaitDurable();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.userpostapi.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends framed records to a file channel through one direct buffer, so a large file is
+ * written in a few big writes without copying each record through the heap again.
+ * I/O errors surface as {@link UncheckedIOException}, which lets callers write from a stream.
+ */
+final class FrameWriter {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    FrameWriter(FileChannel channel, int bufferBytes) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    void write(byte[] body) {
+        if (buffer.remaining() < LogRecords.FRAME_HEADER_BYTES + body.length) {
+            drain(buffer);
+        }
+        if (buffer.remaining() < LogRecords.FRAME_HEADER_BYTES + body.length) {
+            ByteBuffer large = ByteBuffer.allocate(LogRecords.FRAME_HEADER_BYTES + body.length);
+            LogRecords.frame(large, body);
+            drain(large);
+            return;
+        }
+        LogRecords.frame(buffer, body);
+    }
+
+    /** Writes out everything buffered so far. */
+    void flush() {
+        drain(buffer);
+    }
+
+    private void drain(ByteBuffer source) {
+        source.flip();
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        source.clear();
+    }
+}
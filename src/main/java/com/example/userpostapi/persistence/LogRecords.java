@@ -0,0 +1,246 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary encoding shared by the write-ahead log and snapshots.
+ *
+ * <p>Every record is framed as {@code [int bodyLength][int crc32c(body)][body]}; the body starts
+ * with a one-byte type and the entity id. Strings are written as a UTF-8 byte count followed by
+ * the bytes, with {@code -1} for {@code null}. Saved records end with the entity version;
+ * records written before versions existed stop short of it and restore as version 1.
+ */
+final class LogRecords {
+
+    static final int FRAME_HEADER_BYTES = 2 * Integer.BYTES;
+    static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+
+    static final byte SNAPSHOT_HEADER = 0;
+    static final byte USER_SAVED = 1;
+    static final byte USER_DELETED = 2;
+    static final byte POST_SAVED = 3;
+    static final byte POST_DELETED = 4;
+    // Only sent to replicas, in place of a record whose write failed after it was numbered.
+    static final byte ABORTED = 5;
+
+    private LogRecords() {
+    }
+
+    static byte[] userSaved(User user) {
+        return encode(USER_SAVED, user.getId(), out -> {
+            writeString(out, user.getName());
+            writeString(out, user.getEmail());
+            out.writeLong(user.getVersion());
+        });
+    }
+
+    static byte[] postSaved(Post post) {
+        return encode(POST_SAVED, post.getId(), out -> {
+            writeString(out, post.getTitle());
+            writeString(out, post.getContent());
+            writeNullableLong(out, post.getUserId());
+            out.writeLong(post.getVersion());
+        });
+    }
+
+    static byte[] userDeleted(Long id) {
+        return encode(USER_DELETED, id, out -> { });
+    }
+
+    static byte[] postDeleted(Long id) {
+        return encode(POST_DELETED, id, out -> { });
+    }
+
+    static byte[] aborted() {
+        return encode(ABORTED, 0, out -> { });
+    }
+
+    /** Snapshot preamble carrying the highest user and post ids ever assigned. */
+    static byte[] snapshotHeader(long userIdWatermark, long postIdWatermark) {
+        return encode(SNAPSHOT_HEADER, userIdWatermark, out -> out.writeLong(postIdWatermark));
+    }
+
+    static int checksum(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+
+    static void frame(ByteBuffer target, byte[] body) {
+        target.putInt(body.length);
+        target.putInt(checksum(ByteBuffer.wrap(body)));
+        target.put(body);
+    }
+
+    static byte type(ByteBuffer body) {
+        return body.get(body.position());
+    }
+
+    /** Applies one record to the repositories through their recovery hooks. */
+    static void apply(ByteBuffer body, UserRepository userRepository, PostRepository postRepository) {
+        apply(body, userRepository, postRepository, false);
+    }
+
+    /**
+     * Like {@link #apply}, but skips a saved record when the repository already holds a newer
+     * version of the entity, so records that are older than the current state can be replayed.
+     */
+    static void applyIfNewer(ByteBuffer body, UserRepository userRepository, PostRepository postRepository) {
+        apply(body, userRepository, postRepository, true);
+    }
+
+    private static void apply(ByteBuffer body, UserRepository userRepository, PostRepository postRepository,
+                              boolean newerOnly) {
+        ByteBuffer in = body.duplicate();
+        byte type = in.get();
+        long id = in.getLong();
+        switch (type) {
+            case USER_SAVED -> {
+                User user = readUser(body);
+                if (!newerOnly || !isOlder(user.getVersion(), userRepository.findById(id).map(User::getVersion))) {
+                    userRepository.restore(user);
+                }
+            }
+            case POST_SAVED -> {
+                Post post = readPost(body);
+                if (!newerOnly || !isOlder(post.getVersion(), postRepository.findById(id).map(Post::getVersion))) {
+                    postRepository.restore(post);
+                }
+            }
+            case USER_DELETED -> userRepository.restoreDeletion(id);
+            case POST_DELETED -> postRepository.restoreDeletion(id);
+            case SNAPSHOT_HEADER -> {
+                // Watermarks are read by the snapshot loader, nothing to apply.
+            }
+            case ABORTED -> {
+                // The write never happened on the primary.
+            }
+            default -> throw new DataAccessException("Unknown log record type " + type);
+        }
+    }
+
+    private static boolean isOlder(Long version, Optional<Long> current) {
+        return version != null && current.isPresent() && current.get() != null && version < current.get();
+    }
+
+    /** The user in a {@link #USER_SAVED} record. */
+    static User readUser(ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        in.get();
+        User user = new User();
+        user.setId(in.getLong());
+        user.setName(readString(in));
+        user.setEmail(readString(in));
+        user.setVersion(readVersion(in));
+        return user;
+    }
+
+    /** The post in a {@link #POST_SAVED} record. */
+    static Post readPost(ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        in.get();
+        Post post = new Post();
+        post.setId(in.getLong());
+        post.setTitle(readString(in));
+        post.setContent(readString(in));
+        post.setUserId(readNullableLong(in));
+        post.setVersion(readVersion(in));
+        return post;
+    }
+
+    /** Email of the user in a {@link #USER_SAVED} record. */
+    static String readUserEmail(ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        in.position(in.position() + 1 + Long.BYTES);
+        skipString(in);
+        return readString(in);
+    }
+
+    /** Owner of the post in a {@link #POST_SAVED} record, or null if it has none. */
+    static Long readPostUserId(ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        in.position(in.position() + 1 + Long.BYTES);
+        skipString(in);
+        skipString(in);
+        return readNullableLong(in);
+    }
+
+    static long[] readSnapshotHeader(ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+        if (in.get() != SNAPSHOT_HEADER) {
+            throw new DataAccessException("Snapshot does not start with a header record.");
+        }
+        return new long[] {in.getLong(), in.getLong()};
+    }
+
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, long id, BodyWriter fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            out.writeLong(id);
+            fields.write(out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw.
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeLong(value == null ? 0L : value);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > 0) {
+            in.position(in.position() + length);
+        }
+    }
+
+    private static Long readVersion(ByteBuffer in) {
+        return in.remaining() >= Long.BYTES ? in.getLong() : null;
+    }
+
+    private static Long readNullableLong(ByteBuffer in) {
+        boolean present = in.get() != 0;
+        long value = in.getLong();
+        return present ? value : null;
+    }
+}
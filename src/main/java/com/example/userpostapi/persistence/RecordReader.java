@@ -0,0 +1,75 @@
+package com.example.userpostapi.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads framed records from a log segment or snapshot through a memory-mapped window, so
+ * recovery does not copy the file through the heap. Reading stops at the first frame that is
+ * truncated or fails its checksum, which is how a torn tail left by a crash shows up.
+ */
+final class RecordReader implements Closeable {
+
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    RecordReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    /** Returns the next record body, or {@code null} at the end of the valid data. */
+    ByteBuffer next() throws IOException {
+        if (size - position < LogRecords.FRAME_HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = slice(position, LogRecords.FRAME_HEADER_BYTES);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || length > LogRecords.MAX_BODY_BYTES
+                || size - position - LogRecords.FRAME_HEADER_BYTES < length) {
+            return null;
+        }
+        ByteBuffer body = slice(position + LogRecords.FRAME_HEADER_BYTES, length);
+        if (LogRecords.checksum(body) != checksum) {
+            return null;
+        }
+        position += LogRecords.FRAME_HEADER_BYTES + length;
+        return body;
+    }
+
+    /** Offset just past the last record returned by {@link #next()}. */
+    long validLength() {
+        return position;
+    }
+
+    long size() {
+        return size;
+    }
+
+    private ByteBuffer slice(long offset, int length) throws IOException {
+        if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+            long mapLength = Math.min(Math.max(WINDOW_BYTES, length), size - offset);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, mapLength);
+            windowStart = offset;
+        }
+        int from = (int) (offset - windowStart);
+        return window.slice(from, length).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Refuses writes to {@code /users} and {@code /posts}, and bulk imports, on a replica with 503,
+ * so that clients send them to the primary; reads are served from the replicated state.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.replication.role", havingValue = "replica")
+public class ReplicaWriteGuard implements WebMvcConfigurer, HandlerInterceptor {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/users", "/users/**", "/posts", "/posts/**", "/admin/import");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> {
+                return true;
+            }
+            default -> throw new ServiceUnavailableException("This node is a read-only replica; send writes to the primary.");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.userpostapi.persistence;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring buffer of the most recent repository records for replicas, numbered from 1.
+ *
+ * <p>Works like the change feed's ring: a writer takes the next sequence number with one
+ * atomic increment and publishes into slot {@code sequence % capacity}, overwriting the record
+ * {@code capacity} positions older. A reader can briefly see a gap where a writer has taken
+ * its number but not published yet; {@link #read} then returns null. A number taken for a write
+ * that then failed is filled with an {@link LogRecords#ABORTED} record, which replicas skip.
+ */
+final class ReplicationLog {
+
+    /** One record as logged: its sequence number, when it was appended, and its encoded body. */
+    static final class Entry {
+        final long sequence;
+        final long appendedAtMillis;
+        final byte[] body;
+
+        Entry(long sequence, long appendedAtMillis, byte[] body) {
+            this.sequence = sequence;
+            this.appendedAtMillis = appendedAtMillis;
+            this.body = body;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    ReplicationLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /** Numbers a record, to be published later with {@link #publish} or {@link #abort}. */
+    Entry reserve(byte[] body) {
+        return new Entry(lastSequence.incrementAndGet(), System.currentTimeMillis(), body);
+    }
+
+    /** Publishes a record under the sequence number reserved for it. */
+    void publish(Entry entry) {
+        int slot = (int) (entry.sequence & mask);
+        while (true) {
+            // A writer stalled for a whole lap must not overwrite a newer record.
+            Entry current = slots.get(slot);
+            if (current != null && current.sequence > entry.sequence || slots.compareAndSet(slot, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    /** Fills the sequence number of a reserved record whose write failed, so replicas move past it. */
+    void abort(Entry entry) {
+        publish(new Entry(entry.sequence, entry.appendedAtMillis, LogRecords.aborted()));
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /** Sequence number of the latest record, or 0 before the first one. */
+    long lastSequence() {
+        return lastSequence.get();
+    }
+
+    /** Oldest sequence number that has not been overwritten yet. */
+    long firstAvailable() {
+        return Math.max(1, lastSequence.get() - mask);
+    }
+
+    /** Returns the record with this sequence number, or null if not published yet or overwritten. */
+    Entry read(long sequence) {
+        Entry entry = slots.get((int) (sequence & mask));
+        return entry != null && entry.sequence == sequence ? entry : null;
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+import com.example.userpostapi.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Primary side of replication (enabled with {@code app.replication.role=primary}).
+ *
+ * <p>Every save and delete is encoded as a write-ahead log record and numbered in a
+ * {@link ReplicationLog} backlog while the writer holds the entity's lock, so the records of
+ * one entity are numbered in write order. The record is published once the write has committed;
+ * a write that a later listener fails leaves an aborted record in its place, which replicas skip. Replicas connect over TCP on
+ * {@code app.replication.port}. Each gets a sender thread that ships up to
+ * {@code app.replication.batch-size} records per batch and keeps sending without waiting for
+ * acknowledgements, plus a thread reading those acknowledgements for the lag metric.
+ *
+ * <p>A replica that is new, follows another epoch, or whose next record has left the backlog,
+ * first receives a snapshot of all live entities. The snapshot is read while writes continue, and
+ * a write numbered before the scan started may not be visible to it yet. So the stream resumes
+ * half a backlog before that point, and the replica skips replayed saves older than the version
+ * it holds; since ids are never reused, replaying a delete is harmless too.
+ */
+@Component
+@ConditionalOnProperty(name = "app.replication.role", havingValue = "primary")
+public class ReplicationPrimary {
+    private static final Logger log = LoggerFactory.getLogger(ReplicationPrimary.class);
+
+    private static final int SOCKET_BUFFER_BYTES = 256 * 1024;
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final int port;
+    private final int batchSize;
+    private final Duration heartbeatInterval;
+    private final ReplicationLog replicationLog;
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final List<ReplicaConnection> replicas = new CopyOnWriteArrayList<>();
+
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    public ReplicationPrimary(UserRepository userRepository,
+                              PostRepository postRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.replication.port:7070}") int port,
+                              @Value("${app.replication.backlog:262144}") int backlog,
+                              @Value("${app.replication.batch-size:512}") int batchSize,
+                              @Value("${app.replication.heartbeat-interval:1s}") Duration heartbeatInterval) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.port = port;
+        this.batchSize = batchSize;
+        this.heartbeatInterval = heartbeatInterval;
+        this.replicationLog = new ReplicationLog(backlog);
+        Gauge.builder("replication.sequence", replicationLog, ReplicationLog::lastSequence)
+                .description("Sequence number of the latest replicated record")
+                .register(meterRegistry);
+        Gauge.builder("replication.replicas", replicas, List::size)
+                .description("Connected replicas")
+                .register(meterRegistry);
+        Gauge.builder("replication.lag.records", this, ReplicationPrimary::maxLag)
+                .description("Records the furthest-behind replica has yet to acknowledge")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        userRepository.addListener(new ReplicatingListener<>(LogRecords::userSaved, LogRecords::userDeleted));
+        postRepository.addListener(new ReplicatingListener<>(LogRecords::postSaved, LogRecords::postDeleted));
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+        acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Accepting replicas on port {}", port());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        replicas.forEach(ReplicaConnection::close);
+    }
+
+    /** Port replicas connect to; the bound one when {@code app.replication.port} is 0. */
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Sequence number of the latest record. */
+    public long lastSequence() {
+        return replicationLog.lastSequence();
+    }
+
+    private double maxLag() {
+        long last = replicationLog.lastSequence();
+        long lag = 0;
+        for (ReplicaConnection replica : replicas) {
+            lag = Math.max(lag, last - replica.acknowledged);
+        }
+        return lag;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                ReplicaConnection replica = new ReplicaConnection(socket);
+                replicas.add(replica);
+                replica.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Failed to accept a replica", e);
+                }
+            }
+        }
+    }
+
+    private final class ReplicatingListener<T> implements RepositoryListener<T> {
+        private final Function<T, byte[]> saved;
+        private final Function<Long, byte[]> deleted;
+        // Records numbered under the lock, kept with the writing thread until afterCommit.
+        private final ThreadLocal<List<ReplicationLog.Entry>> staged = ThreadLocal.withInitial(ArrayList::new);
+
+        ReplicatingListener(Function<T, byte[]> saved, Function<Long, byte[]> deleted) {
+            this.saved = saved;
+            this.deleted = deleted;
+        }
+
+        @Override
+        public void onSave(T entity) {
+            staged.get().add(replicationLog.reserve(saved.apply(entity)));
+        }
+
+        @Override
+        public void onDelete(Long id) {
+            staged.get().add(replicationLog.reserve(deleted.apply(id)));
+        }
+
+        @Override
+        public void onAbort() {
+            List<ReplicationLog.Entry> entries = staged.get();
+            replicationLog.abort(entries.remove(entries.size() - 1));
+        }
+
+        @Override
+        public void afterCommit() {
+            List<ReplicationLog.Entry> entries = staged.get();
+            if (entries.isEmpty()) {
+                return;
+            }
+            entries.forEach(replicationLog::publish);
+            entries.clear();
+            for (ReplicaConnection replica : replicas) {
+                replica.wake();
+            }
+        }
+    }
+
+    /** One connected replica: a sender thread streaming records and a reader taking acks. */
+    private final class ReplicaConnection {
+        private final Socket socket;
+        private final String name;
+        private final Thread sender;
+        private volatile long acknowledged;
+        private volatile boolean closed;
+
+        ReplicaConnection(Socket socket) {
+            this.socket = socket;
+            this.name = socket.getRemoteSocketAddress().toString();
+            this.sender = new Thread(this::send, "replication-sender-" + name);
+            this.sender.setDaemon(true);
+        }
+
+        void start() {
+            sender.start();
+        }
+
+        void wake() {
+            LockSupport.unpark(sender);
+        }
+
+        void close() {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close replica connection {}", name, e);
+            }
+            replicas.remove(this);
+            wake();
+        }
+
+        private void send() {
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSendBufferSize(SOCKET_BUFFER_BYTES);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), SOCKET_BUFFER_BYTES));
+                if (in.readByte() != ReplicationProtocol.HELLO || in.readInt() != ReplicationProtocol.MAGIC) {
+                    throw new IOException("Not a replica handshake");
+                }
+                long replicaEpoch = in.readLong();
+                long applied = in.readLong();
+                boolean resumable = replicaEpoch == epoch && applied > 0
+                        && applied + 1 >= replicationLog.firstAvailable() && applied <= replicationLog.lastSequence();
+                acknowledged = resumable ? applied : 0;
+                Thread acks = new Thread(() -> readAcks(in), "replication-acks-" + name);
+                acks.setDaemon(true);
+                acks.start();
+
+                long next = resumable ? applied + 1 : sendSnapshot(out);
+                log.info("Replica {} connected, streaming from sequence {}", name, next);
+                long heartbeatNanos = heartbeatInterval.toNanos();
+                long lastSent = System.nanoTime();
+                while (!closed) {
+                    if (next < replicationLog.firstAvailable()) {
+                        log.warn("Replica {} fell out of the backlog, sending a new snapshot", name);
+                        next = sendSnapshot(out);
+                    }
+                    int sent = sendBatch(out, next);
+                    if (sent > 0) {
+                        next += sent;
+                        lastSent = System.nanoTime();
+                    } else if (System.nanoTime() - lastSent >= heartbeatNanos) {
+                        out.writeByte(ReplicationProtocol.HEARTBEAT);
+                        out.writeLong(replicationLog.lastSequence());
+                        out.flush();
+                        lastSent = System.nanoTime();
+                    } else {
+                        LockSupport.parkNanos(heartbeatNanos);
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                if (!closed) {
+                    log.warn("Replica {} disconnected: {}", name, e.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        /** Sends the published records from {@code first} on, up to one batch; returns how many. */
+        private int sendBatch(DataOutputStream out, long first) throws IOException {
+            int count = 0;
+            while (count < batchSize && replicationLog.read(first + count) != null) {
+                count++;
+            }
+            if (count == 0) {
+                return 0;
+            }
+            ReplicationLog.Entry last = replicationLog.read(first + count - 1);
+            out.writeByte(ReplicationProtocol.BATCH);
+            out.writeLong(first);
+            out.writeInt(count);
+            out.writeLong(replicationLog.lastSequence());
+            out.writeLong(last == null ? System.currentTimeMillis() : last.appendedAtMillis);
+            for (int i = 0; i < count; i++) {
+                ReplicationLog.Entry entry = replicationLog.read(first + i);
+                if (entry == null) {
+                    // Overwritten while being sent; the connection cannot stay consistent.
+                    throw new IOException("Record " + (first + i) + " left the backlog while being sent");
+                }
+                ReplicationProtocol.writeRecord(out, entry.body);
+            }
+            out.flush();
+            return count;
+        }
+
+        /** Streams every live entity and returns the sequence number to continue from. */
+        private long sendSnapshot(DataOutputStream out) throws IOException {
+            // Writes numbered up to here may still be invisible to the scan; replay well before.
+            long resumeAfter = Math.max(replicationLog.firstAvailable(),
+                    replicationLog.lastSequence() + 1 - replicationLog.capacity() / 2) - 1;
+            out.writeByte(ReplicationProtocol.SNAPSHOT_START);
+            out.writeLong(epoch);
+            try (Stream<User> users = userRepository.streamAll()) {
+                users.forEach(user -> writeSnapshotRecord(out, LogRecords.userSaved(user)));
+            }
+            try (Stream<Post> posts = postRepository.streamAll()) {
+                posts.forEach(post -> writeSnapshotRecord(out, LogRecords.postSaved(post)));
+            }
+            out.writeByte(ReplicationProtocol.SNAPSHOT_END);
+            out.writeLong(resumeAfter);
+            out.flush();
+            return resumeAfter + 1;
+        }
+
+        private void writeSnapshotRecord(DataOutputStream out, byte[] body) {
+            try {
+                out.writeByte(ReplicationProtocol.RECORD);
+                ReplicationProtocol.writeRecord(out, body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void readAcks(DataInputStream in) {
+            try {
+                while (!closed) {
+                    if (in.readByte() != ReplicationProtocol.ACK) {
+                        throw new IOException("Unexpected message from replica");
+                    }
+                    acknowledged = in.readLong();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+}
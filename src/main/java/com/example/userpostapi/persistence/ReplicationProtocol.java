@@ -0,0 +1,59 @@
+package com.example.userpostapi.persistence;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Messages exchanged between a primary and its replicas over one TCP connection.
+ *
+ * <p>The replica opens with {@link #HELLO}: a magic number, the epoch of the primary it last
+ * followed and the last sequence number it applied (0 for none). Sequence numbers only mean
+ * something within one epoch, which a primary picks at startup. If the epoch matches and the
+ * following records are still in the backlog, the primary streams from there. Otherwise it sends
+ * a snapshot: {@link #SNAPSHOT_START} with its epoch, one {@link #RECORD} per live entity and
+ * {@link #SNAPSHOT_END} with the sequence number the stream continues after. It then streams
+ * {@link #BATCH}es without waiting for replies, and a {@link #HEARTBEAT} when idle. The replica
+ * sends an {@link #ACK} after applying each batch. Records use the write-ahead log's framing,
+ * checksum included.
+ */
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x55505231;
+
+    // Replica to primary.
+    static final byte HELLO = 1;
+    static final byte ACK = 2;
+
+    // Primary to replica.
+    static final byte SNAPSHOT_START = 10;
+    static final byte RECORD = 11;
+    static final byte SNAPSHOT_END = 12;
+    static final byte BATCH = 13;
+    static final byte HEARTBEAT = 14;
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeRecord(DataOutputStream out, byte[] body) throws IOException {
+        out.writeInt(body.length);
+        out.writeInt(LogRecords.checksum(ByteBuffer.wrap(body)));
+        out.write(body);
+    }
+
+    static ByteBuffer readRecord(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length <= 0 || length > LogRecords.MAX_BODY_BYTES) {
+            throw new IOException("Invalid replication record length " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (LogRecords.checksum(buffer) != checksum) {
+            throw new IOException("Replication record failed its checksum");
+        }
+        return buffer;
+    }
+}
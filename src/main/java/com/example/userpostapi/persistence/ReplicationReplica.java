@@ -0,0 +1,245 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replica side of replication (enabled with {@code app.replication.role=replica}).
+ *
+ * <p>Follows the primary at {@code app.replication.primary-host}:{@code primary-port}, applying
+ * its records in sequence order through the repositories' recovery hooks, and reconnects after
+ * {@code app.replication.reconnect-delay} whenever the connection drops. Recovery hooks do not
+ * notify listeners, so replicated writes reach neither this node's write-ahead log nor its change
+ * feed. HTTP writes are refused by {@link ReplicaWriteGuard}.
+ *
+ * <p>Lag is published as {@code replication.lag.records} (records the primary has that this node
+ * has not applied) and {@code replication.lag.seconds} (age of the latest applied record while
+ * behind, 0 when caught up).
+ */
+@Component
+@ConditionalOnProperty(name = "app.replication.role", havingValue = "replica")
+public class ReplicationReplica {
+    private static final Logger log = LoggerFactory.getLogger(ReplicationReplica.class);
+
+    private static final int SOCKET_BUFFER_BYTES = 256 * 1024;
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final String primaryHost;
+    private final int primaryPort;
+    private final Duration reconnectDelay;
+
+    private volatile long epoch;
+    private volatile long applied;
+    private volatile long appliedAtMillis;
+    private volatile long primarySequence;
+    private volatile boolean connected;
+    private volatile boolean stopped;
+    private volatile Socket socket;
+    private Thread follower;
+
+    public ReplicationReplica(UserRepository userRepository,
+                              PostRepository postRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.replication.primary-host:localhost}") String primaryHost,
+                              @Value("${app.replication.primary-port:7070}") int primaryPort,
+                              @Value("${app.replication.reconnect-delay:1s}") Duration reconnectDelay) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.primaryHost = primaryHost;
+        this.primaryPort = primaryPort;
+        this.reconnectDelay = reconnectDelay;
+        Gauge.builder("replication.lag.records", this, ReplicationReplica::lagRecords)
+                .description("Records the primary has written that this replica has not applied")
+                .register(meterRegistry);
+        Gauge.builder("replication.lag.seconds", this, ReplicationReplica::lagSeconds)
+                .description("Age of the latest applied record while behind the primary")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        follower = new Thread(this::follow, "replication-follower");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        closeSocket();
+        if (follower != null) {
+            follower.interrupt();
+            follower.join(reconnectDelay.toMillis() + 1000);
+        }
+    }
+
+    /** Sequence number of the latest applied record. */
+    public long appliedSequence() {
+        return applied;
+    }
+
+    /** Whether the replica is connected and has applied everything the primary last reported. */
+    public boolean isCaughtUp() {
+        return connected && applied >= primarySequence;
+    }
+
+    /** Drops the connection to the primary, as a network failure would; it is re-established. */
+    void disconnect() {
+        closeSocket();
+    }
+
+    long lagRecords() {
+        return Math.max(0, primarySequence - applied);
+    }
+
+    double lagSeconds() {
+        if (applied >= primarySequence || appliedAtMillis == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - appliedAtMillis) / 1000.0;
+    }
+
+    private void follow() {
+        while (!stopped) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.setTcpNoDelay(true);
+                connection.setReceiveBufferSize(SOCKET_BUFFER_BYTES);
+                connection.connect(new InetSocketAddress(primaryHost, primaryPort));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), SOCKET_BUFFER_BYTES));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                out.writeByte(ReplicationProtocol.HELLO);
+                out.writeInt(ReplicationProtocol.MAGIC);
+                out.writeLong(epoch);
+                out.writeLong(applied);
+                out.flush();
+                connected = true;
+                log.info("Following primary {}:{} from sequence {}", primaryHost, primaryPort, applied);
+                receive(in, out);
+            } catch (IOException | RuntimeException e) {
+                if (!stopped) {
+                    log.warn("Lost primary {}:{}: {}", primaryHost, primaryPort, e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (!stopped) {
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(DataInputStream in, DataOutputStream out) throws IOException {
+        while (!stopped) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT_START -> loadSnapshot(in, in.readLong());
+                case ReplicationProtocol.BATCH -> applyBatch(in, out);
+                case ReplicationProtocol.HEARTBEAT -> primarySequence = in.readLong();
+                default -> throw new IOException("Unexpected replication message " + type);
+            }
+        }
+    }
+
+    /**
+     * Applies the snapshot's records and removes local entities it does not contain. Records that
+     * follow are replayed from before the snapshot, so stale ones are skipped by version.
+     */
+    private void loadSnapshot(DataInputStream in, long primaryEpoch) throws IOException {
+        log.info("Loading snapshot from primary {}:{}", primaryHost, primaryPort);
+        Set<Long> staleUserIds;
+        try (Stream<User> users = userRepository.streamAll()) {
+            staleUserIds = users.map(User::getId).collect(Collectors.toCollection(HashSet::new));
+        }
+        Set<Long> stalePostIds;
+        try (Stream<Post> posts = postRepository.streamAll()) {
+            stalePostIds = posts.map(Post::getId).collect(Collectors.toCollection(HashSet::new));
+        }
+        long records = 0;
+        while (true) {
+            byte type = in.readByte();
+            if (type == ReplicationProtocol.SNAPSHOT_END) {
+                break;
+            }
+            if (type != ReplicationProtocol.RECORD) {
+                throw new IOException("Unexpected replication message " + type + " in a snapshot");
+            }
+            ByteBuffer body = ReplicationProtocol.readRecord(in);
+            long id = body.getLong(body.position() + 1);
+            (LogRecords.type(body) == LogRecords.USER_SAVED ? staleUserIds : stalePostIds).remove(id);
+            LogRecords.apply(body, userRepository, postRepository);
+            records++;
+        }
+        long resumeAfter = in.readLong();
+        stalePostIds.forEach(postRepository::restoreDeletion);
+        staleUserIds.forEach(userRepository::restoreDeletion);
+        epoch = primaryEpoch;
+        applied = resumeAfter;
+        appliedAtMillis = System.currentTimeMillis();
+        primarySequence = Math.max(primarySequence, resumeAfter);
+        log.info("Loaded snapshot of {} entities, removed {} stale ones", records,
+                staleUserIds.size() + stalePostIds.size());
+    }
+
+    private void applyBatch(DataInputStream in, DataOutputStream out) throws IOException {
+        long first = in.readLong();
+        int count = in.readInt();
+        long head = in.readLong();
+        long lastAppendedAtMillis = in.readLong();
+        if (first != applied + 1) {
+            throw new IOException("Expected sequence " + (applied + 1) + " but the primary sent " + first);
+        }
+        for (int i = 0; i < count; i++) {
+            LogRecords.applyIfNewer(ReplicationProtocol.readRecord(in), userRepository, postRepository);
+        }
+        applied = first + count - 1;
+        appliedAtMillis = lastAppendedAtMillis;
+        primarySequence = head;
+        out.writeByte(ReplicationProtocol.ACK);
+        out.writeLong(applied);
+        out.flush();
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Failed to close the connection to the primary", e);
+            }
+        }
+    }
+}
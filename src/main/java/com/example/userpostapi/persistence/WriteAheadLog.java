@@ -0,0 +1,198 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.DataAccessException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only log of repository writes with group commit.
+ *
+ * <p>Writers only copy their record into an in-memory batch; a single flusher thread writes the
+ * whole batch and fsyncs it once, so one {@code force} covers every write that arrived while the
+ * previous one was in progress. Callers that need durability wait on {@link #awaitDurable()}.
+ *
+ * <p>The log is split into numbered segments. {@link #rotate()} starts a new one, which lets a
+ * snapshot declare everything in older segments obsolete.
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final int INITIAL_BATCH_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final Object lock = new Object();
+    private final Thread flusher;
+
+    // Guarded by lock.
+    private ByteBuffer batch = ByteBuffer.allocate(INITIAL_BATCH_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BATCH_BYTES);
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel channel;
+    private long segmentIndex;
+
+    WriteAheadLog(Path directory, long segmentIndex) throws IOException {
+        this.directory = directory;
+        this.segmentIndex = segmentIndex;
+        this.channel = openSegment(segmentIndex);
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("wal-%016d.log", index));
+    }
+
+    /** Queues a record for the next group commit and returns its sequence number. */
+    long append(byte[] body) {
+        int frameBytes = LogRecords.FRAME_HEADER_BYTES + body.length;
+        synchronized (lock) {
+            checkUsable();
+            if (batch.remaining() < frameBytes) {
+                batch = grow(batch, frameBytes);
+            }
+            LogRecords.frame(batch, body);
+            appendedSeq++;
+            lock.notifyAll();
+            return appendedSeq;
+        }
+    }
+
+    /** Blocks until every record appended so far has been fsynced. */
+    void awaitDurable() {
+        synchronized (lock) {
+            long target = appendedSeq;
+            while (durableSeq < target) {
+                checkUsable();
+                waitOnLock();
+            }
+        }
+    }
+
+    /**
+     * Makes all appended records durable, closes the current segment and starts the next one.
+     * Appends are held off for the duration.
+     *
+     * @return the index of the new segment
+     */
+    long rotate() throws IOException {
+        synchronized (lock) {
+            while (flushing) {
+                waitOnLock();
+            }
+            checkUsable();
+            writeFully(batch);
+            channel.force(false);
+            durableSeq = appendedSeq;
+            channel.close();
+            segmentIndex++;
+            channel = openSegment(segmentIndex);
+            lock.notifyAll();
+            return segmentIndex;
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer toWrite;
+            long target;
+            synchronized (lock) {
+                while (!closed && batch.position() == 0) {
+                    waitOnLock();
+                }
+                if (batch.position() == 0) {
+                    return;
+                }
+                toWrite = batch;
+                batch = spare;
+                spare = toWrite;
+                target = appendedSeq;
+                flushing = true;
+            }
+            try {
+                writeFully(toWrite);
+                channel.force(false);
+                synchronized (lock) {
+                    durableSeq = Math.max(durableSeq, target);
+                    flushing = false;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    flushing = false;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    // Called with either the flusher's batch ownership or the lock, never both concurrently.
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private FileChannel openSegment(long index) throws IOException {
+        return FileChannel.open(segmentPath(directory, index),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new DataAccessException("Write-ahead log is unavailable: " + failure.getMessage());
+        }
+        if (closed) {
+            throw new DataAccessException("Write-ahead log is closed.");
+        }
+    }
+
+    private void waitOnLock() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for the write-ahead log.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (failure == null) {
+                writeFully(batch);
+                channel.force(false);
+            }
+            channel.close();
+        }
+    }
+}
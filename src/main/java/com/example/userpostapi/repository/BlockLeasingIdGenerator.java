@@ -0,0 +1,70 @@
+package com.example.userpostapi.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leases blocks of consecutive ids to each thread, so the shared counter is touched once per
+ * {@code blockSize} allocations instead of once per allocation.
+ *
+ * <p>Ids are increasing per thread; across threads they are ordered only to within the blocks
+ * currently leased. Ids left in a block when its thread dies are never issued.
+ */
+public final class BlockLeasingIdGenerator implements IdGenerator {
+
+    private static final class Block {
+        long next;
+        long end;
+    }
+
+    private final int blockSize;
+    private final AtomicLong leased = new AtomicLong();
+    // Highest observed id. Blocks leased before an observe may overlap it, so threads recheck.
+    private volatile long observedFloor;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public BlockLeasingIdGenerator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        Block block = blocks.get();
+        if (block.next >= block.end || block.next <= observedFloor) {
+            lease(block, blockSize);
+        }
+        return block.next++;
+    }
+
+    /** Large requests get a block of their own; smaller ones are served from the thread's block. */
+    @Override
+    public void nextIds(long[] ids) {
+        if (ids.length < blockSize) {
+            IdGenerator.super.nextIds(ids);
+            return;
+        }
+        long next = leased.getAndAdd(ids.length) + 1;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = next++;
+        }
+    }
+
+    @Override
+    public void observe(long id) {
+        // Move the counter first, so a thread that sees the new floor leases a block above it.
+        leased.accumulateAndGet(id, Math::max);
+        synchronized (this) {
+            if (id > observedFloor) {
+                observedFloor = id;
+            }
+        }
+    }
+
+    private void lease(Block block, int size) {
+        long start = leased.getAndAdd(size) + 1;
+        block.next = start;
+        block.end = start + size;
+    }
+}
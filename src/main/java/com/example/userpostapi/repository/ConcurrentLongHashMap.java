@@ -0,0 +1,388 @@
+package com.example.userpostapi.repository;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent hash map keyed by primitive {@code long}, used as the primary store of the
+ * in-memory repositories instead of {@code ConcurrentHashMap<Long, V>}.
+ *
+ * <p>Entries live in open-addressing tables (linear probing over parallel {@code long[]} keys
+ * and {@code Object[]} values), so an entry costs one key slot and one reference instead of a
+ * {@code Node} plus a boxed {@code Long}. The key space is split across striped tables, each
+ * guarded by a {@link StampedLock}: writers take the stripe's write lock, readers run an
+ * optimistic read and only fall back to the read lock if a writer got in the way. Reads
+ * therefore never block in the common case and never box the key.
+ *
+ * <p>Null values are not supported. Iteration is weakly consistent: each stripe is visited
+ * under its read lock, but stripes are not frozen together.
+ */
+public final class ConcurrentLongHashMap<V> {
+
+    /** Remapping function for {@link #compute}; {@code existing} is null when the key is absent. */
+    @FunctionalInterface
+    public interface LongRemappingFunction<V> {
+        V apply(long key, V existing);
+    }
+
+    /** Callback for {@link #remove(long, LongRemovalAction)}. */
+    @FunctionalInterface
+    public interface LongRemovalAction<V> {
+        void removing(long key, V existing);
+    }
+
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final float MAX_LOAD = 0.75f;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    public ConcurrentLongHashMap() {
+        this(Math.max(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1));
+    }
+
+    public ConcurrentLongHashMap(int stripeCount) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+    }
+
+    public V get(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.tryOptimisticRead();
+        Object value = stripe.find(key, hash);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                value = stripe.find(key, hash);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return cast(value);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        requireValue(value);
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return cast(stripe.store(key, hash, value));
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public V putIfAbsent(long key, V value) {
+        requireValue(value);
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            Object existing = stripe.find(key, hash);
+            if (existing == null) {
+                stripe.store(key, hash, value);
+            }
+            return cast(existing);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Replaces the value only if the key currently maps to {@code expected} (by identity). */
+    public boolean replace(long key, V expected, V value) {
+        requireValue(value);
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (expected == null || stripe.find(key, hash) != expected) {
+                return false;
+            }
+            stripe.store(key, hash, value);
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return cast(stripe.delete(key, hash));
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the mapping for {@code key} in one probe of the table, first running
+     * {@code action} on the value under the stripe's write lock. If the action throws, the
+     * mapping stays. Returns the removed value, or null if the key was absent.
+     */
+    public V remove(long key, LongRemovalAction<? super V> action) {
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            int index = stripe.indexOf(key, hash);
+            if (index < 0) {
+                return null;
+            }
+            V existing = cast(stripe.values[index]);
+            action.removing(key, existing);
+            stripe.deleteAt(index);
+            return existing;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Atomically recomputes the mapping for {@code key}; returning null removes it. The function
+     * runs under the stripe's write lock, so it must be short and must not touch this map.
+     */
+    public V compute(long key, LongRemappingFunction<V> remapping) {
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            V existing = cast(stripe.find(key, hash));
+            V updated = remapping.apply(key, existing);
+            if (updated != null) {
+                stripe.store(key, hash, updated);
+            } else if (existing != null) {
+                stripe.delete(key, hash);
+            }
+            return updated;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Like {@link #compute}, but only invoked when the key is present. */
+    public V computeIfPresent(long key, LongRemappingFunction<V> remapping) {
+        long hash = mix(key);
+        Stripe stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            V existing = cast(stripe.find(key, hash));
+            if (existing == null) {
+                return null;
+            }
+            V updated = remapping.apply(key, existing);
+            if (updated != null) {
+                stripe.store(key, hash, updated);
+            } else {
+                stripe.delete(key, hash);
+            }
+            return updated;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                total += stripe.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (Stripe stripe : stripes) {
+            Object[] snapshot;
+            long stamp = stripe.lock.readLock();
+            try {
+                snapshot = stripe.liveValues();
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+            // Run the action outside the lock so it may write back into the map.
+            for (Object value : snapshot) {
+                action.accept(cast(value));
+            }
+        }
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    // Murmur3 finalizer: sequential ids must not cluster in the probe sequence.
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    private static void requireValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("ConcurrentLongHashMap does not accept null values");
+        }
+    }
+
+    /**
+     * One open-addressing table. A null value marks a never-used slot, {@link #TOMBSTONE} a
+     * removed one. Fields are only written under the write lock; {@link #find} is also called
+     * from optimistic readers, so it must tolerate a torn view and always terminate.
+     */
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        long[] keys = new long[MIN_STRIPE_CAPACITY];
+        Object[] values = new Object[MIN_STRIPE_CAPACITY];
+        int size;
+        int tombstones;
+
+        Object find(long key, long hash) {
+            long[] k = keys;
+            Object[] v = values;
+            int mask = Math.min(k.length, v.length) - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = v[index];
+                if (value == null) {
+                    return null;
+                }
+                if (value != TOMBSTONE && k[index] == key) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        Object store(long key, long hash, Object value) {
+            int mask = keys.length - 1;
+            int index = (int) hash & mask;
+            int firstTombstone = -1;
+            while (true) {
+                Object current = values[index];
+                if (current == null) {
+                    break;
+                }
+                if (current == TOMBSTONE) {
+                    if (firstTombstone < 0) {
+                        firstTombstone = index;
+                    }
+                } else if (keys[index] == key) {
+                    values[index] = value;
+                    return current;
+                }
+                index = (index + 1) & mask;
+            }
+            if (firstTombstone >= 0) {
+                index = firstTombstone;
+                tombstones--;
+            } else if (size + tombstones + 1 > keys.length * MAX_LOAD) {
+                rehash();
+                return store(key, hash, value);
+            }
+            // Key before value: an optimistic reader that sees the value must see the key too.
+            keys[index] = key;
+            values[index] = value;
+            size++;
+            return null;
+        }
+
+        Object delete(long key, long hash) {
+            int index = indexOf(key, hash);
+            return index < 0 ? null : deleteAt(index);
+        }
+
+        /** Slot holding {@code key}, or -1. Only called under the write lock. */
+        int indexOf(long key, long hash) {
+            int mask = keys.length - 1;
+            int index = (int) hash & mask;
+            while (true) {
+                Object current = values[index];
+                if (current == null) {
+                    return -1;
+                }
+                if (current != TOMBSTONE && keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        Object deleteAt(int index) {
+            Object current = values[index];
+            values[index] = TOMBSTONE;
+            size--;
+            tombstones++;
+            return current;
+        }
+
+        Object[] liveValues() {
+            Object[] live = new Object[size];
+            int n = 0;
+            for (Object value : values) {
+                if (value != null && value != TOMBSTONE) {
+                    live[n++] = value;
+                }
+            }
+            return live;
+        }
+
+        private void rehash() {
+            // Double only when live entries need it; otherwise rebuilding just clears tombstones.
+            int capacity = keys.length;
+            if (size + 1 > capacity * MAX_LOAD / 2) {
+                capacity <<= 1;
+            }
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[capacity];
+            Object[] newValues = new Object[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                Object value = oldValues[i];
+                if (value != null && value != TOMBSTONE) {
+                    int index = (int) mix(oldKeys[i]) & mask;
+                    while (newValues[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    newKeys[index] = oldKeys[i];
+                    newValues[index] = value;
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+            tombstones = 0;
+        }
+    }
+}
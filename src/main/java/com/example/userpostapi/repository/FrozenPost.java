@@ -0,0 +1,48 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.Post;
+
+/**
+ * An immutable post as held by the repository. One is created for every write and shared with
+ * all readers, so a reader always sees one complete version; changing a post means saving a
+ * new {@link Post}. Setters throw.
+ */
+final class FrozenPost extends Post {
+
+    FrozenPost(Post source, long id, long version) {
+        super.setId(id);
+        super.setTitle(source.getTitle());
+        super.setContent(source.getContent());
+        super.setUserId(source.getUserId());
+        super.setVersion(version);
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw immutable();
+    }
+
+    @Override
+    public void setTitle(String title) {
+        throw immutable();
+    }
+
+    @Override
+    public void setContent(String content) {
+        throw immutable();
+    }
+
+    @Override
+    public void setUserId(Long userId) {
+        throw immutable();
+    }
+
+    @Override
+    public void setVersion(Long version) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Stored posts are immutable; save a new Post instead.");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.User;
+
+/**
+ * An immutable user as held by the repository. One is created for every write and shared with
+ * all readers, so a reader always sees one complete version; changing a user means saving a
+ * new {@link User}. Setters throw.
+ */
+final class FrozenUser extends User {
+
+    FrozenUser(User source, long id, long version) {
+        super.setId(id);
+        super.setName(source.getName());
+        super.setEmail(source.getEmail());
+        super.setVersion(version);
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw immutable();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw immutable();
+    }
+
+    @Override
+    public void setEmail(String email) {
+        throw immutable();
+    }
+
+    @Override
+    public void setVersion(Long version) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Stored users are immutable; save a new User instead.");
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.userpostapi.repository;
+
+/**
+ * Source of ids for new entities. Implementations must be thread-safe and never return the same
+ * id twice, nor any id passed to {@link #observe}. Ids are positive and roughly increasing, but
+ * only {@link SequenceIdGenerator} makes them strictly ordered across threads.
+ */
+public interface IdGenerator {
+
+    long nextId();
+
+    /** Fills {@code ids} with new ids. The default draws them one by one. */
+    default void nextIds(long[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextId();
+        }
+    }
+
+    /** Records an id that already exists (e.g. restored from disk) so it is never issued. */
+    void observe(long id);
+}
@@ -0,0 +1,49 @@
+package com.example.userpostapi.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates one {@link IdGenerator} per repository, chosen with {@code app.id-generator.type}:
+ * {@code sequence} (one shared counter), {@code block} (per-thread leased blocks) or
+ * {@code snowflake} (time-ordered, unique across nodes).
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private final String type;
+    private final int blockSize;
+    private final long nodeId;
+
+    public IdGeneratorConfig(@Value("${app.id-generator.type:sequence}") String type,
+                             @Value("${app.id-generator.block-size:1024}") int blockSize,
+                             @Value("${app.id-generator.node-id:0}") long nodeId) {
+        this.type = type;
+        this.blockSize = blockSize;
+        this.nodeId = nodeId;
+    }
+
+    @Bean
+    public IdGenerator userIdGenerator() {
+        return create(type, blockSize, nodeId);
+    }
+
+    @Bean
+    public IdGenerator postIdGenerator() {
+        return create(type, blockSize, nodeId);
+    }
+
+    public static IdGenerator create(String type, int blockSize, long nodeId) {
+        switch (type) {
+            case "sequence":
+                return new SequenceIdGenerator();
+            case "block":
+                return new BlockLeasingIdGenerator(blockSize);
+            case "snowflake":
+                return new SnowflakeIdGenerator(nodeId);
+            default:
+                throw new IllegalArgumentException("Unknown app.id-generator.type: " + type);
+        }
+    }
+}
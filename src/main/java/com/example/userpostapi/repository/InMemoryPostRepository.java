@@ -1,47 +1,422 @@
 package com.example.userpostapi.repository;
 
 
-import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.model.AuthorStats;
 import com.example.userpostapi.model.Post;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 @Repository
+@ConditionalOnProperty(name = "app.repository.post-storage", havingValue = "heap", matchIfMissing = true)
+@ConditionalOnProperty(name = "app.repository.shards", havingValue = "1", matchIfMissing = true)
 public class InMemoryPostRepository implements PostRepository {
 
-    private final Map<Long, Post> postStore = new ConcurrentHashMap<>();
-    private final AtomicLong postIdCounter = new AtomicLong();
+    private final ConcurrentLongHashMap<Post> postStore = new ConcurrentLongHashMap<>();
+    private final IdGenerator postIdGenerator;
+    // Ordered id index for keyset pagination; postStore itself has no iteration order.
+    private final NavigableSet<Long> postIds = new ConcurrentSkipListSet<>();
+
+    // Secondary index: userId -> ids of that user's posts, kept in id order.
+    private final ConcurrentLongHashMap<Set<Long>> postIdsByUserId = new ConcurrentLongHashMap<>();
+    // userId -> number of posts, updated together with postIdsByUserId.
+    private final PostCounts postCounts = new PostCounts();
+    // Full-text index over title and content.
+    private final InvertedIndex textIndex = new InvertedIndex();
+    private final List<RepositoryListener<Post>> listeners = new CopyOnWriteArrayList<>();
+    // Removal callbacks, built once so that a delete allocates nothing for them.
+    private final ConcurrentLongHashMap.LongRemovalAction<Post> unindex = this::unindex;
+    private final ConcurrentLongHashMap.LongRemovalAction<Post> unindexAndNotify = (postId, existing) -> {
+        RepositoryListener.notifyDelete(listeners, postId);
+        unindex(postId, existing);
+    };
+
+    public InMemoryPostRepository() {
+        this(new SequenceIdGenerator());
+    }
+
+    @Autowired
+    public InMemoryPostRepository(@Qualifier("postIdGenerator") IdGenerator postIdGenerator) {
+        this.postIdGenerator = postIdGenerator;
+    }
 
     @Override
     public Optional<Post> findById(Long id) {
-        return Optional.ofNullable(postStore.get(id));
+        return Optional.ofNullable(lookup(id));
     }
 
     @Override
     public List<Post> findAll() {
-        return new ArrayList<>(postStore.values());
+        List<Post> posts = new ArrayList<>(postStore.size());
+        postStore.forEachValue(stored -> {
+            Post post = serve(stored);
+            if (post != null) {
+                posts.add(post);
+            }
+        });
+        return posts;
+    }
+
+    @Override
+    public Stream<Post> streamAll() {
+        return postIds.stream().map(this::lookup).filter(Objects::nonNull);
+    }
+
+    /** Lazily walks the entities with ids greater than {@code afterId} (all when null), in id order. */
+    Iterator<Post> iterateAfter(Long afterId) {
+        Iterator<Long> ids = (afterId == null ? postIds : postIds.tailSet(afterId, false)).iterator();
+        return new Iterator<>() {
+            private Post next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext()) {
+                    next = lookup(ids.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public Post next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Post current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public List<Post> findPage(Long afterId, int limit) {
+        NavigableSet<Long> ids = afterId == null ? postIds : postIds.tailSet(afterId, false);
+        List<Post> page = new ArrayList<>(Math.min(limit, 64));
+        for (Long id : ids) {
+            if (page.size() == limit) {
+                break;
+            }
+            Post post = lookup(id);
+            if (post != null) {
+                page.add(post);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Post> findByUserId(Long userId) {
+        Set<Long> ownedIds = postIdsByUserId.get(userId);
+        if (ownedIds == null) {
+            return Collections.emptyList();
+        }
+        List<Post> posts = new ArrayList<>(ownedIds.size());
+        for (Long postId : ownedIds) {
+            Post post = lookup(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    @Override
+    public long countByUserId(Long userId) {
+        return postCounts.count(userId);
+    }
+
+    @Override
+    public List<AuthorStats> findTopAuthors(int limit) {
+        return postCounts.top(limit);
+    }
+
+    @Override
+    public List<Post> search(String query, int limit) {
+        long[] ids = textIndex.search(query, limit);
+        List<Post> posts = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Post post = lookup(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
     }
 
     @Override
     public Post save(Post post) {
-        if (post.getId() == null) {
-            post.setId(postIdCounter.incrementAndGet());
+        Post saved = post.getId() == null
+                ? put(post, postIdGenerator.nextId(), null)
+                : put(post, post.getId(), post.getVersion());
+        afterCommit();
+        return saved;
+    }
+
+    /**
+     * Writes the entities in order. If one fails, the ones before it stay saved, the rest are not
+     * tried, and a {@link PartialBatchException} says which is which.
+     */
+    @Override
+    public List<Post> saveAll(List<Post> posts) {
+        long[] newIds = new long[(int) posts.stream().filter(post -> post.getId() == null).count()];
+        postIdGenerator.nextIds(newIds);
+        Post[] saved = new Post[posts.size()];
+        int nextId = 0;
+        try {
+            for (int i = 0; i < saved.length; i++) {
+                Post post = posts.get(i);
+                try {
+                    saved[i] = post.getId() == null
+                            ? put(post, newIds[nextId++], null)
+                            : put(post, post.getId(), post.getVersion());
+                } catch (RuntimeException e) {
+                    RuntimeException[] failures = new RuntimeException[saved.length];
+                    failures[i] = e;
+                    throw new PartialBatchException(saved, failures);
+                }
+            }
+        } finally {
+            // One wait covers the whole batch, e.g. a single group commit of the write-ahead log.
+            afterCommit();
+        }
+        return Arrays.asList(saved);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        if (!remove(id, true)) {
+            return false;
+        }
+        afterCommit();
+        return true;
+    }
+
+    @Override
+    public int deleteByUserId(Long userId) {
+        Set<Long> ownedIds = postIdsByUserId.get(userId);
+        if (ownedIds == null) {
+            return 0;
+        }
+        int deleted = 0;
+        try {
+            // The set is concurrent, so removing its members while walking it is safe.
+            for (Long postId : ownedIds) {
+                if (remove(postId, true)) {
+                    deleted++;
+                }
+            }
+        } finally {
+            afterCommit();
+        }
+        return deleted;
+    }
+
+    @Override
+    public long count() {
+        return postStore.size();
+    }
+
+    @Override
+    public void addListener(RepositoryListener<Post> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void restore(Post post) {
+        postIdGenerator.observe(post.getId());
+        Post snapshot = new FrozenPost(post, post.getId(), post.getVersion() == null ? 1 : post.getVersion());
+        while (!swap(post.getId(), postStore.get(post.getId()), snapshot, false)) {
+            // Recovery is single-threaded; a retry only happens if a write slipped in.
         }
-        postStore.put(post.getId(), post);
-        return post;
     }
 
     @Override
-    public void deleteById(Long id) {
-        if (!postStore.containsKey(id)) {
-            throw new DataAccessException("Cannot delete. Post with id " + id + " does not exist.");
+    public void restoreDeletion(Long id) {
+        postIdGenerator.observe(id);
+        remove(id, false);
+    }
+
+    /**
+     * Converts a post snapshot into the value kept in the store. The default keeps the snapshot
+     * itself; subclasses may swap in a more compact representation, which must keep the id,
+     * userId and version readable.
+     */
+    protected Post stored(Post post) {
+        return post;
+    }
+
+    /**
+     * Converts a stored value back into the post handed to callers, or returns null if the
+     * stored value was replaced while it was being read and the caller should look again.
+     */
+    protected Post served(Post stored) {
+        return stored;
+    }
+
+    /** Called once a stored value has been replaced or removed. */
+    protected void released(Post stored) {
+    }
+
+    private Post lookup(long id) {
+        while (true) {
+            Post stored = postStore.get(id);
+            if (stored == null) {
+                return null;
+            }
+            Post post = served(stored);
+            if (post != null) {
+                return post;
+            }
+        }
+    }
+
+    private Post serve(Post stored) {
+        Post post = served(stored);
+        return post != null ? post : lookup(stored.getId());
+    }
+
+    /**
+     * Replaces the stored snapshot of a post with a new one at the next version. A non-null
+     * {@code expectedVersion} must match the stored version, otherwise the write is rejected;
+     * with null the write applies to whatever version is current. Listeners see the write, but
+     * not its afterCommit, which is left to the caller.
+     */
+    Post put(Post post, long id, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion == 0) {
+            // A create at a chosen id, e.g. by an import: never hand that id out again.
+            postIdGenerator.observe(id);
+        }
+        while (true) {
+            Post current = postStore.get(id);
+            long currentVersion = current == null ? 0 : current.getVersion();
+            if (expectedVersion != null && expectedVersion != currentVersion) {
+                throw new VersionConflictException("Post with id " + id + " is at version " + currentVersion
+                        + ", not " + expectedVersion + ".");
+            }
+            Post snapshot = new FrozenPost(post, id, currentVersion + 1);
+            if (swap(id, current, snapshot, true)) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Stores a post at exactly {@code version}, whatever this repository held for it, and tells
+     * listeners. Used when a post moves in from another shard with its version history.
+     */
+    Post putAt(Post post, long id, long version) {
+        Post snapshot = new FrozenPost(post, id, version);
+        while (!swap(id, postStore.get(id), snapshot, true)) {
+            // Only a concurrent writer of the same post gets here, and shards serialize those.
+        }
+        return snapshot;
+    }
+
+    /** Ids of a user's posts, in id order; a live view. */
+    Set<Long> postIdsOf(Long userId) {
+        Set<Long> ownedIds = postIdsByUserId.get(userId);
+        return ownedIds == null ? Collections.emptySet() : ownedIds;
+    }
+
+    InvertedIndex.Hit[] rank(String query, int limit) {
+        return textIndex.rank(query, limit);
+    }
+
+    /**
+     * Installs {@code snapshot} only if the store still holds {@code expected} (compare-and-set).
+     * The stored form and the term vector are built before taking the lock. compute serializes
+     * writers of the same post, so the store, the id indexes and listeners move together.
+     * Listeners run first: one that throws fails the write before any index has changed. The
+     * text index is the slow one to update, so that happens after the lock is released, and is
+     * skipped if another write of the post has been stored meanwhile.
+     */
+    private boolean swap(long id, Post expected, Post snapshot, boolean notify) {
+        Post stored = stored(snapshot);
+        InvertedIndex.TermVector terms = InvertedIndex.TermVector.of(snapshot.getTitle(), snapshot.getContent());
+        boolean[] swapped = new boolean[1];
+        try {
+            postStore.compute(id, (key, existing) -> {
+                if (existing != expected) {
+                    return existing;
+                }
+                if (notify) {
+                    RepositoryListener.notifySave(listeners, snapshot);
+                }
+                postIds.add(key);
+                reindex(key, existing == null ? null : existing.getUserId(), snapshot.getUserId());
+                if (existing != null) {
+                    released(existing);
+                }
+                swapped[0] = true;
+                return stored;
+            });
+        } finally {
+            if (!swapped[0]) {
+                released(stored);
+            }
+        }
+        if (swapped[0]) {
+            textIndex.put(id, terms, () -> postStore.get(id) == stored);
+        }
+        return swapped[0];
+    }
+
+    /** Removes a post, telling listeners if {@code notify}; afterCommit is left to the caller. */
+    boolean remove(Long id, boolean notify) {
+        if (postStore.remove(id, notify ? unindexAndNotify : unindex) == null) {
+            return false;
+        }
+        textIndex.remove(id, () -> !postStore.containsKey(id));
+        return true;
+    }
+
+    private void unindex(long postId, Post existing) {
+        postIds.remove(postId);
+        reindex(postId, existing.getUserId(), null);
+        released(existing);
+    }
+
+    private void afterCommit() {
+        RepositoryListener.notifyCommit(listeners);
+    }
+
+    private void reindex(Long postId, Long oldUserId, Long newUserId) {
+        if (oldUserId != null && oldUserId.equals(newUserId)) {
+            return;
+        }
+        if (oldUserId != null) {
+            postIdsByUserId.computeIfPresent(oldUserId, (userId, ownedIds) -> {
+                if (ownedIds.remove(postId)) {
+                    postCounts.removed(userId);
+                }
+                return ownedIds.isEmpty() ? null : ownedIds;
+            });
+        }
+        if (newUserId != null) {
+            postIdsByUserId.compute(newUserId, (userId, ownedIds) -> {
+                Set<Long> ids = ownedIds != null ? ownedIds : new ConcurrentSkipListSet<>();
+                if (ids.add(postId)) {
+                    postCounts.added(userId);
+                }
+                return ids;
+            });
         }
-        postStore.remove(id);
     }
-}
\ No newline at end of file
+}
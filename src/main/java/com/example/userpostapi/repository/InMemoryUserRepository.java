@@ -1,21 +1,59 @@
 package com.example.userpostapi.repository;
 
-import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.exception.DuplicateEmailException;
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.exception.VersionConflictException;
 import com.example.userpostapi.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 @Repository
+@ConditionalOnProperty(name = "app.repository.shards", havingValue = "1", matchIfMissing = true)
 public class InMemoryUserRepository implements UserRepository {
 
-    private final Map<Long, User> userStore = new ConcurrentHashMap<>();
-    private final AtomicLong userIdCounter = new AtomicLong();
+    private final ConcurrentLongHashMap<User> userStore = new ConcurrentLongHashMap<>();
+    private final IdGenerator userIdGenerator;
+    // Ordered id index for keyset pagination; userStore itself has no iteration order.
+    private final NavigableSet<Long> userIds = new ConcurrentSkipListSet<>();
+    // Unique index: normalized email -> id of the user holding it.
+    // Shared by all shards of a ShardedUserRepository, which makes emails unique across them.
+    private final ConcurrentHashMap<String, Long> userIdsByEmail;
+    private final List<RepositoryListener<User>> listeners = new CopyOnWriteArrayList<>();
+    // Removal callbacks, built once so that a delete allocates nothing for them.
+    private final ConcurrentLongHashMap.LongRemovalAction<User> unindex = this::unindex;
+    private final ConcurrentLongHashMap.LongRemovalAction<User> unindexAndNotify = (userId, existing) -> {
+        RepositoryListener.notifyDelete(listeners, userId);
+        unindex(userId, existing);
+    };
+
+    public InMemoryUserRepository() {
+        this(new SequenceIdGenerator());
+    }
+
+    @Autowired
+    public InMemoryUserRepository(@Qualifier("userIdGenerator") IdGenerator userIdGenerator) {
+        this(userIdGenerator, new ConcurrentHashMap<>());
+    }
+
+    InMemoryUserRepository(IdGenerator userIdGenerator, ConcurrentHashMap<String, Long> userIdsByEmail) {
+        this.userIdGenerator = userIdGenerator;
+        this.userIdsByEmail = userIdsByEmail;
+    }
 
     @Override
     public Optional<User> findById(Long id) {
@@ -24,28 +62,238 @@ public class InMemoryUserRepository implements UserRepository {
 
     @Override
     public List<User> findAll() {
-        return new ArrayList<>(userStore.values());
+        List<User> users = new ArrayList<>(userStore.size());
+        userStore.forEachValue(users::add);
+        return users;
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return userIds.stream().map(userStore::get).filter(Objects::nonNull);
+    }
+
+    /** Lazily walks the entities with ids greater than {@code afterId} (all when null), in id order. */
+    Iterator<User> iterateAfter(Long afterId) {
+        Iterator<Long> ids = (afterId == null ? userIds : userIds.tailSet(afterId, false)).iterator();
+        return new Iterator<>() {
+            private User next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext()) {
+                    next = userStore.get(ids.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        NavigableSet<Long> ids = afterId == null ? userIds : userIds.tailSet(afterId, false);
+        List<User> page = new ArrayList<>(Math.min(limit, 64));
+        for (Long id : ids) {
+            if (page.size() == limit) {
+                break;
+            }
+            User user = userStore.get(id);
+            if (user != null) {
+                page.add(user);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        String key = UserRepository.normalizeEmail(email);
+        Long id = key == null ? null : userIdsByEmail.get(key);
+        if (id == null) {
+            return Optional.empty();
+        }
+        // The index may already point at a user whose email just changed.
+        return findById(id).filter(user -> key.equals(UserRepository.normalizeEmail(user.getEmail())));
     }
 
     @Override
     public User save(User user) {
-        if (user.getId() == null) {
-            user.setId(userIdCounter.incrementAndGet());
+        User saved = user.getId() == null
+                ? put(user, userIdGenerator.nextId(), null)
+                : put(user, user.getId(), user.getVersion());
+        afterCommit();
+        return saved;
+    }
+
+    /**
+     * Writes the entities in order. If one fails, the ones before it stay saved, the rest are not
+     * tried, and a {@link PartialBatchException} says which is which.
+     */
+    @Override
+    public List<User> saveAll(List<User> users) {
+        long[] newIds = new long[(int) users.stream().filter(user -> user.getId() == null).count()];
+        userIdGenerator.nextIds(newIds);
+        User[] saved = new User[users.size()];
+        int nextId = 0;
+        try {
+            for (int i = 0; i < saved.length; i++) {
+                User user = users.get(i);
+                try {
+                    saved[i] = user.getId() == null
+                            ? put(user, newIds[nextId++], null)
+                            : put(user, user.getId(), user.getVersion());
+                } catch (RuntimeException e) {
+                    RuntimeException[] failures = new RuntimeException[saved.length];
+                    failures[i] = e;
+                    throw new PartialBatchException(saved, failures);
+                }
+            }
+        } finally {
+            // One wait covers the whole batch, e.g. a single group commit of the write-ahead log.
+            afterCommit();
+        }
+        return Arrays.asList(saved);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        if (!remove(id, true)) {
+            return false;
         }
-        userStore.put(user.getId(), user);
-        return user;
+        afterCommit();
+        return true;
+    }
+
+    @Override
+    public long count() {
+        return userStore.size();
+    }
+
+    @Override
+    public void addListener(RepositoryListener<User> listener) {
+        listeners.add(listener);
     }
 
     @Override
-    public void deleteById(Long id) {
-        if (!userStore.containsKey(id)) {
-            throw new DataAccessException("Cannot delete. User with id " + id + " does not exist.");
+    public void restore(User user) {
+        userIdGenerator.observe(user.getId());
+        User snapshot = new FrozenUser(user, user.getId(), user.getVersion() == null ? 1 : user.getVersion());
+        while (!swap(user.getId(), userStore.get(user.getId()), snapshot, false)) {
+            // Recovery is single-threaded; a retry only happens if a write slipped in.
         }
-        userStore.remove(id);
+    }
+
+    @Override
+    public void restoreDeletion(Long id) {
+        userIdGenerator.observe(id);
+        remove(id, false);
     }
 
     @Override
     public boolean existsById(Long id) {
         return userStore.containsKey(id);
     }
+
+    /**
+     * Replaces the stored snapshot of a user with a new one at the next version. A non-null
+     * {@code expectedVersion} must match the stored version, otherwise the write is rejected;
+     * with null the write applies to whatever version is current. Listeners see the write, but
+     * not its afterCommit, which is left to the caller.
+     */
+    User put(User user, long id, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion == 0) {
+            // A create at a chosen id, e.g. by an import: never hand that id out again.
+            userIdGenerator.observe(id);
+        }
+        while (true) {
+            User current = userStore.get(id);
+            long currentVersion = current == null ? 0 : current.getVersion();
+            if (expectedVersion != null && expectedVersion != currentVersion) {
+                throw new VersionConflictException("User with id " + id + " is at version " + currentVersion
+                        + ", not " + expectedVersion + ".");
+            }
+            User snapshot = new FrozenUser(user, id, currentVersion + 1);
+            if (swap(id, current, snapshot, true)) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Installs {@code snapshot} only if the store still holds {@code expected} (compare-and-set).
+     * compute serializes writers of the same user, so the store, the indexes and listeners move
+     * together. A new email is claimed with putIfAbsent on the email index, which is what makes
+     * concurrent claims of one address exclusive without a global lock; the claim fails the
+     * write before anything changes. Listeners run next, and if one throws the claim is given
+     * back; only then is the old email released. Recovery ({@code notify} false) replays history
+     * that may predate the index, so there the latest writer simply takes the address over.
+     */
+    private boolean swap(long id, User expected, User snapshot, boolean notify) {
+        boolean[] swapped = new boolean[1];
+        userStore.compute(id, (key, existing) -> {
+            if (existing != expected) {
+                return existing;
+            }
+            String oldKey = existing == null ? null : UserRepository.normalizeEmail(existing.getEmail());
+            String newKey = UserRepository.normalizeEmail(snapshot.getEmail());
+            boolean emailChanged = !Objects.equals(oldKey, newKey);
+            boolean claimed = emailChanged && newKey != null && claimEmail(key, newKey, snapshot.getEmail(), notify);
+            if (notify) {
+                try {
+                    RepositoryListener.notifySave(listeners, snapshot);
+                } catch (RuntimeException | Error e) {
+                    if (claimed) {
+                        userIdsByEmail.remove(newKey, key);
+                    }
+                    throw e;
+                }
+            }
+            if (emailChanged && oldKey != null) {
+                userIdsByEmail.remove(oldKey, key);
+            }
+            userIds.add(key);
+            swapped[0] = true;
+            return snapshot;
+        });
+        return swapped[0];
+    }
+
+    /** Removes a user, telling listeners if {@code notify}; afterCommit is left to the caller. */
+    boolean remove(Long id, boolean notify) {
+        return userStore.remove(id, notify ? unindexAndNotify : unindex) != null;
+    }
+
+    private void unindex(long userId, User existing) {
+        userIds.remove(userId);
+        String email = UserRepository.normalizeEmail(existing.getEmail());
+        if (email != null) {
+            userIdsByEmail.remove(email, userId);
+        }
+    }
+
+    /** Points {@code key} at the user; returns whether this call added the entry. */
+    private boolean claimEmail(long id, String key, String email, boolean exclusive) {
+        if (!exclusive) {
+            Long previous = userIdsByEmail.put(key, id);
+            return previous == null || previous != id;
+        }
+        Long owner = userIdsByEmail.putIfAbsent(key, id);
+        if (owner != null && owner != id) {
+            throw new DuplicateEmailException("Email " + email.trim() + " is already used by another user.");
+        }
+        return owner == null;
+    }
+
+    private void afterCommit() {
+        RepositoryListener.notifyCommit(listeners);
+    }
 }
@@ -0,0 +1,296 @@
+package com.example.userpostapi.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Full-text index from terms to post ids, queried with BM25 ranking.
+ *
+ * <p>A posting list is a pair of primitive arrays rather than a collection of boxed entries:
+ * ids in ascending order, and per id one int packing the term's frequency with the post's
+ * length, so scoring never has to look the post up. New posts mostly come with
+ * increasing ids, so adding one is usually an append; updates and deletes of older posts shift
+ * the tail with {@link System#arraycopy}. The index keeps each post's term vector, so an update
+ * only touches the lists of terms whose entry changed, and removing a post does not need its
+ * text.
+ *
+ * <p>There is no index-wide lock. Each posting list is changed inside its term's compute of a
+ * {@link ConcurrentHashMap}, so writers only meet on the terms they share. A query copies the
+ * lists of its terms under those same per-term locks and merges the copies in id order without
+ * holding any, keeping only the best {@code limit} hits in a heap. Updates of one post are
+ * serialized by its entry in the map of term vectors. The repository makes them after its own
+ * write, passing a check that the write is still the post's latest, so a write that lost a
+ * race cannot index over a newer one.
+ */
+final class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // BM25 saturates quickly in the term frequency, so 8 bits of it are plenty.
+    private static final int MAX_FREQUENCY = 0xFF;
+    private static final int MAX_LENGTH = 0xFFFFFF;
+
+    /** Distinct terms of one post, sorted, with their frequencies. Built before taking any lock. */
+    static final class TermVector {
+        final String[] terms;
+        final int[] frequencies;
+        final int length;
+
+        private TermVector(String[] terms, int[] frequencies, int length) {
+            this.terms = terms;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+
+        static TermVector of(String... texts) {
+            TreeMap<String, int[]> counts = new TreeMap<>();
+            int[] length = new int[1];
+            for (String text : texts) {
+                Tokenizer.forEachTerm(text, term -> {
+                    counts.computeIfAbsent(term, key -> new int[1])[0]++;
+                    length[0]++;
+                });
+            }
+            String[] terms = new String[counts.size()];
+            int[] frequencies = new int[counts.size()];
+            int i = 0;
+            for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+                terms[i] = entry.getKey();
+                frequencies[i++] = entry.getValue()[0];
+            }
+            return new TermVector(terms, frequencies, length[0]);
+        }
+    }
+
+    private final ConcurrentHashMap<String, PostingList> postings = new ConcurrentHashMap<>();
+    private final ConcurrentLongHashMap<TermVector> indexed = new ConcurrentLongHashMap<>();
+    private final LongAdder totalLength = new LongAdder();
+
+    /**
+     * Indexes a post under the given terms, replacing whatever it was indexed under before. Does
+     * nothing if {@code current} is false by the time the post's entry is locked.
+     */
+    void put(long id, TermVector vector, BooleanSupplier current) {
+        indexed.compute(id, (key, old) -> {
+            if (!current.getAsBoolean()) {
+                return old;
+            }
+            int o = 0;
+            int n = 0;
+            // Both vectors are sorted: one merge pass finds dropped, added and changed terms.
+            while (old != null && o < old.terms.length || n < vector.terms.length) {
+                int order = old == null || o == old.terms.length ? 1
+                        : n == vector.terms.length ? -1
+                        : old.terms[o].compareTo(vector.terms[n]);
+                if (order < 0) {
+                    unlink(old.terms[o++], id);
+                } else {
+                    int entry = entry(vector.frequencies[n], vector.length);
+                    if (order > 0 || entry(old.frequencies[o], old.length) != entry) {
+                        link(vector.terms[n], id, entry);
+                    }
+                    if (order == 0) {
+                        o++;
+                    }
+                    n++;
+                }
+            }
+            totalLength.add(vector.length - (old == null ? 0 : old.length));
+            return vector;
+        });
+    }
+
+    /** Drops a post from the index, unless {@code current} is false by the time its entry is locked. */
+    void remove(long id, BooleanSupplier current) {
+        indexed.computeIfPresent(id, (key, previous) -> {
+            if (!current.getAsBoolean()) {
+                return previous;
+            }
+            for (String term : previous.terms) {
+                unlink(term, id);
+            }
+            totalLength.add(-previous.length);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the ids of up to {@code limit} posts containing any term of {@code query}, best
+     * BM25 score first; equal scores are ordered by id.
+     */
+    long[] search(String query, int limit) {
+        Hit[] hits = rank(query, limit);
+        long[] ids = new long[hits.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = hits[i].id;
+        }
+        return ids;
+    }
+
+    /**
+     * Like {@link #search}, but keeps the scores. They are only comparable between indexes of
+     * similar content, since the idf and average length come from this index alone.
+     */
+    Hit[] rank(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>();
+        Tokenizer.forEachTerm(query, queryTerms::add);
+        int documents = indexed.size();
+        List<PostingList> lists = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            PostingList list = copyOf(term);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty() || limit < 1) {
+            return new Hit[0];
+        }
+        double averageLength = Math.max(1.0, (double) totalLength.sum() / Math.max(1, documents));
+        double[] idf = new double[lists.size()];
+        for (int t = 0; t < idf.length; t++) {
+            int df = lists.get(t).size;
+            idf[t] = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+        }
+
+        // Worst hit on top, so it is the one evicted once the heap is full.
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit, (a, b) -> a.score != b.score
+                ? Double.compare(a.score, b.score) : Long.compare(b.id, a.id));
+        int[] cursors = new int[lists.size()];
+        while (true) {
+            long id = Long.MAX_VALUE;
+            for (int t = 0; t < cursors.length; t++) {
+                PostingList list = lists.get(t);
+                if (cursors[t] < list.size && list.ids[cursors[t]] < id) {
+                    id = list.ids[cursors[t]];
+                }
+            }
+            if (id == Long.MAX_VALUE) {
+                break;
+            }
+            double score = 0;
+            for (int t = 0; t < cursors.length; t++) {
+                PostingList list = lists.get(t);
+                if (cursors[t] < list.size && list.ids[cursors[t]] == id) {
+                    int entry = list.entries[cursors[t]++];
+                    int tf = entry & MAX_FREQUENCY;
+                    double lengthNorm = K1 * (1 - B + B * (entry >>> 8) / averageLength);
+                    score += idf[t] * tf * (K1 + 1) / (tf + lengthNorm);
+                }
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(id, score));
+            } else if (score > best.peek().score) {
+                best.poll();
+                best.add(new Hit(id, score));
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            hits[i] = best.poll();
+        }
+        return hits;
+    }
+
+    private static int entry(int frequency, int length) {
+        return Math.min(length, MAX_LENGTH) << 8 | Math.min(frequency, MAX_FREQUENCY);
+    }
+
+    private void link(String term, long id, int entry) {
+        postings.compute(term, (key, list) -> {
+            PostingList target = list != null ? list : new PostingList();
+            target.put(id, entry);
+            return target;
+        });
+    }
+
+    private void unlink(String term, long id) {
+        postings.computeIfPresent(term, (key, list) -> list.remove(id) && list.size == 0 ? null : list);
+    }
+
+    /** A copy of the term's posting list taken under its lock, or null if no post has the term. */
+    private PostingList copyOf(String term) {
+        PostingList[] copy = new PostingList[1];
+        postings.computeIfPresent(term, (key, list) -> {
+            copy[0] = list.copy();
+            return list;
+        });
+        return copy[0];
+    }
+
+    /** One search result; better hits have a higher score, ties go to the lower id. */
+    static final class Hit {
+        static final Comparator<Hit> BEST_FIRST =
+                Comparator.comparingDouble((Hit hit) -> hit.score).reversed().thenComparingLong(hit -> hit.id);
+
+        final long id;
+        final double score;
+
+        Hit(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private static final class PostingList {
+        long[] ids;
+        int[] entries;
+        int size;
+
+        PostingList() {
+            this(new long[4], new int[4], 0);
+        }
+
+        private PostingList(long[] ids, int[] entries, int size) {
+            this.ids = ids;
+            this.entries = entries;
+            this.size = size;
+        }
+
+        PostingList copy() {
+            return new PostingList(Arrays.copyOf(ids, size), Arrays.copyOf(entries, size), size);
+        }
+
+        void put(long id, int entry) {
+            int index = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                entries[index] = entry;
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(entries, index, entries, index + 1, size - index);
+            ids[index] = id;
+            entries[index] = entry;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(entries, index + 1, entries, index, size - index - 1);
+            size--;
+            if (size > 0 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+                entries = Arrays.copyOf(entries, entries.length / 2);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.Post;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Post repository that keeps titles and contents UTF-8 encoded in an {@link OffHeapTextArena}
+ * (enabled with {@code app.repository.post-storage=off-heap}). The heap only holds a small
+ * header per post with its ids and block location, so text volume no longer adds to GC work.
+ * Posts are served as {@link Utf8Post}s, which decode lazily and serialize the raw bytes.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.repository.post-storage", havingValue = "off-heap")
+@ConditionalOnProperty(name = "app.repository.shards", havingValue = "1", matchIfMissing = true)
+public class OffHeapPostRepository extends InMemoryPostRepository {
+
+    private final OffHeapTextArena arena = new OffHeapTextArena();
+
+    public OffHeapPostRepository() {
+    }
+
+    @Autowired
+    public OffHeapPostRepository(@Qualifier("postIdGenerator") IdGenerator postIdGenerator) {
+        super(postIdGenerator);
+    }
+
+    /** Off-heap bytes currently holding post text. */
+    public long offHeapBytes() {
+        return arena.reservedBytes();
+    }
+
+    @Override
+    protected Post stored(Post post) {
+        OffHeapTextArena.Block block = arena.allocate(Utf8Post.encode(post.getTitle()), Utf8Post.encode(post.getContent()));
+        return new Header(post.getId(), post.getUserId(), post.getVersion(), block);
+    }
+
+    @Override
+    protected Post served(Post stored) {
+        Header header = (Header) stored;
+        byte[][] text = arena.read(header.block);
+        return text == null ? null : new Utf8Post(header.getId(), header.getUserId(), header.getVersion(), text[0], text[1]);
+    }
+
+    @Override
+    protected void released(Post stored) {
+        arena.free(((Header) stored).block);
+    }
+
+    /** What the store holds per post: ids, version and the location of its text. Never handed out. */
+    private static final class Header extends Post {
+        final OffHeapTextArena.Block block;
+
+        Header(Long id, Long userId, Long version, OffHeapTextArena.Block block) {
+            setId(id);
+            setUserId(userId);
+            setVersion(version);
+            this.block = block;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.userpostapi.repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Slab allocator for UTF-8 text pairs (title and content) kept outside the Java heap.
+ *
+ * <p>Memory is taken from direct {@link ByteBuffer} slabs in power-of-two size classes. Freed
+ * blocks go onto a per-class free list and are reused by later allocations of the same class.
+ * Texts too large for a slab get a dedicated buffer that the garbage collector reclaims.
+ *
+ * <p>Readers do not lock. Every block starts with a stamp that is unique per allocation and is
+ * cleared before the block is reused. {@link #read} checks the stamp before and after copying
+ * (a seqlock), so a reader racing with a free never returns another entry's bytes; it gets
+ * {@code null} and looks the entry up again.
+ */
+final class OffHeapTextArena {
+
+    /** Location of one stored text pair. Immutable; a new one is created for every write. */
+    static final class Block {
+        final int slab;
+        final int offset;
+        final int sizeClass;
+        final long stamp;
+        final int titleBytes;
+        final int contentBytes;
+
+        Block(int slab, int offset, int sizeClass, long stamp, int titleBytes, int contentBytes) {
+            this.slab = slab;
+            this.offset = offset;
+            this.sizeClass = sizeClass;
+            this.stamp = stamp;
+            this.titleBytes = titleBytes;
+            this.contentBytes = contentBytes;
+        }
+    }
+
+    static final int SLAB_BYTES = 4 * 1024 * 1024;
+    private static final int MIN_BLOCK_SHIFT = 6;
+    private static final int MAX_BLOCK_SHIFT = 22;
+    private static final int HUGE = -1;
+    private static final int HEADER_BYTES = Long.BYTES;
+
+    // A freed huge buffer is dropped for the GC; readers holding its Block see a zero stamp here.
+    private static final ByteBuffer EMPTY_SLAB = ByteBuffer.allocateDirect(HEADER_BYTES);
+
+    private static final VarHandle STAMP =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Object lock = new Object();
+    // Slabs are only appended; the volatile array copy lets readers index it without locking.
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    // Guarded by lock. Free blocks per size class, packed as (slab << 32 | offset).
+    private final List<ArrayDeque<Long>> freeBlocksByClass = new ArrayList<>();
+    private int currentSlab = -1;
+    private int slabUsed = SLAB_BYTES;
+    private long nextStamp = 1;
+    private long reservedBytes;
+
+    OffHeapTextArena() {
+        for (int shift = MIN_BLOCK_SHIFT; shift <= MAX_BLOCK_SHIFT; shift++) {
+            freeBlocksByClass.add(new ArrayDeque<>());
+        }
+    }
+
+    /** Copies both texts into a newly allocated block. A null text is stored with length -1. */
+    Block allocate(byte[] title, byte[] content) {
+        int titleBytes = title == null ? -1 : title.length;
+        int contentBytes = content == null ? -1 : content.length;
+        int needed = HEADER_BYTES + Math.max(titleBytes, 0) + Math.max(contentBytes, 0);
+        int sizeClass = sizeClassFor(needed);
+        ByteBuffer slab;
+        int slabIndex;
+        int offset;
+        long stamp;
+        synchronized (lock) {
+            stamp = nextStamp++;
+            if (sizeClass == HUGE) {
+                slabIndex = addSlab(ByteBuffer.allocateDirect(needed));
+                offset = 0;
+            } else {
+                Long free = freeBlocksByClass.get(sizeClass).poll();
+                if (free != null) {
+                    slabIndex = (int) (free >>> 32);
+                    offset = (int) (long) free;
+                } else {
+                    int blockBytes = 1 << (sizeClass + MIN_BLOCK_SHIFT);
+                    if (slabUsed + blockBytes > SLAB_BYTES) {
+                        currentSlab = addSlab(ByteBuffer.allocateDirect(SLAB_BYTES));
+                        slabUsed = 0;
+                    }
+                    slabIndex = currentSlab;
+                    offset = slabUsed;
+                    slabUsed += blockBytes;
+                }
+            }
+            reservedBytes += sizeClass == HUGE ? needed : 1 << (sizeClass + MIN_BLOCK_SHIFT);
+            slab = slabs[slabIndex];
+        }
+        // The block is exclusively ours now. Its stamp stays 0 until the data is in place; the
+        // fence keeps the data writes from becoming visible before that 0.
+        STAMP.setVolatile(slab, offset, 0L);
+        VarHandle.storeStoreFence();
+        int position = offset + HEADER_BYTES;
+        if (title != null) {
+            slab.put(position, title);
+            position += title.length;
+        }
+        if (content != null) {
+            slab.put(position, content);
+        }
+        STAMP.setRelease(slab, offset, stamp);
+        return new Block(slabIndex, offset, sizeClass, stamp, titleBytes, contentBytes);
+    }
+
+    /**
+     * Copies a block's texts onto the heap as {@code {title, content}}, or returns null if the
+     * block was freed or reused while it was being read.
+     */
+    byte[][] read(Block block) {
+        ByteBuffer slab = slabs[block.slab];
+        if ((long) STAMP.getAcquire(slab, block.offset) != block.stamp) {
+            return null;
+        }
+        int position = block.offset + HEADER_BYTES;
+        byte[] title = null;
+        byte[] content = null;
+        if (block.titleBytes >= 0) {
+            title = new byte[block.titleBytes];
+            slab.get(position, title);
+            position += block.titleBytes;
+        }
+        if (block.contentBytes >= 0) {
+            content = new byte[block.contentBytes];
+            slab.get(position, content);
+        }
+        VarHandle.acquireFence();
+        if ((long) STAMP.getAcquire(slab, block.offset) != block.stamp) {
+            return null;
+        }
+        return new byte[][] {title, content};
+    }
+
+    void free(Block block) {
+        ByteBuffer slab = slabs[block.slab];
+        // Invalidate before the block can be handed out again, so concurrent readers notice.
+        STAMP.setRelease(slab, block.offset, 0L);
+        synchronized (lock) {
+            if (block.sizeClass == HUGE) {
+                reservedBytes -= slab.capacity();
+                ByteBuffer[] copy = slabs.clone();
+                copy[block.slab] = EMPTY_SLAB;
+                slabs = copy;
+                return;
+            }
+            reservedBytes -= 1 << (block.sizeClass + MIN_BLOCK_SHIFT);
+            freeBlocksByClass.get(block.sizeClass).push((long) block.slab << 32 | block.offset);
+        }
+    }
+
+    /** Bytes currently handed out in blocks, including size-class rounding. */
+    long reservedBytes() {
+        synchronized (lock) {
+            return reservedBytes;
+        }
+    }
+
+    private int addSlab(ByteBuffer slab) {
+        ByteBuffer[] grown = Arrays.copyOf(slabs, slabs.length + 1);
+        grown[slabs.length] = slab;
+        slabs = grown;
+        return slabs.length - 1;
+    }
+
+    private static int sizeClassFor(int bytes) {
+        int shift = Math.max(MIN_BLOCK_SHIFT, 32 - Integer.numberOfLeadingZeros(bytes - 1));
+        return shift > MAX_BLOCK_SHIFT ? HUGE : shift - MIN_BLOCK_SHIFT;
+    }
+}
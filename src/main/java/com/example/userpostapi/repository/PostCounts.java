@@ -0,0 +1,77 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.AuthorStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of posts per user, kept up to date on every write so that a user's count is one
+ * lookup and the top authors one pass over the users with posts, never a pass over the posts.
+ *
+ * <p>Users without posts have no entry. Counts of one user are changed while the repository
+ * holds that user's entry in its owner index, so a count never drops to zero and back while
+ * its entry is being removed.
+ */
+final class PostCounts {
+
+    /** Most posts first; ties go to the lower user id. */
+    static final Comparator<AuthorStats> MOST_POSTS_FIRST = Comparator.comparingLong(AuthorStats::getPostCount).reversed()
+            .thenComparing(AuthorStats::getUserId);
+
+    private static final class Counter extends LongAdder {
+        final long userId;
+
+        Counter(long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private final ConcurrentLongHashMap<Counter> countersByUserId = new ConcurrentLongHashMap<>();
+
+    void added(long userId) {
+        countersByUserId.compute(userId, (key, counter) -> {
+            Counter updated = counter != null ? counter : new Counter(key);
+            updated.increment();
+            return updated;
+        });
+    }
+
+    void removed(long userId) {
+        countersByUserId.computeIfPresent(userId, (key, counter) -> {
+            counter.decrement();
+            return counter.sum() > 0 ? counter : null;
+        });
+    }
+
+    long count(long userId) {
+        Counter counter = countersByUserId.get(userId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /** The {@code limit} users with the most posts, most first: O(users log limit). */
+    List<AuthorStats> top(int limit) {
+        // Min-heap of the best so far; its head is the first to go when a better user turns up.
+        PriorityQueue<AuthorStats> best = new PriorityQueue<>(limit + 1, MOST_POSTS_FIRST.reversed());
+        countersByUserId.forEachValue(counter -> {
+            long count = counter.sum();
+            if (count <= 0) {
+                return;
+            }
+            AuthorStats worst = best.peek();
+            if (best.size() < limit || count > worst.getPostCount()
+                    || count == worst.getPostCount() && counter.userId < worst.getUserId()) {
+                best.add(new AuthorStats(counter.userId, count));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        });
+        List<AuthorStats> top = new ArrayList<>(best);
+        top.sort(MOST_POSTS_FIRST);
+        return top;
+    }
+}
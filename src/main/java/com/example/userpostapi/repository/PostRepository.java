@@ -1,13 +1,47 @@
 package com.example.userpostapi.repository;
 
 
+import com.example.userpostapi.model.AuthorStats;
 import com.example.userpostapi.model.Post;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PostRepository {
     Optional<Post> findById(Long id);
     List<Post> findAll();
+    /** Returns up to {@code limit} entities with ids greater than {@code afterId} (all when null), in id order. */
+    List<Post> findPage(Long afterId, int limit);
+    /** Lazily walks all entities in id order without copying the store. */
+    Stream<Post> streamAll();
+    List<Post> findByUserId(Long userId);
+    /** Number of posts of a user, kept as a counter rather than counted. */
+    long countByUserId(Long userId);
+    /** The {@code limit} users with the most posts, most first; ties go to the lower user id. */
+    List<AuthorStats> findTopAuthors(int limit);
+    /** Returns up to {@code limit} posts whose title or content contains any word of {@code query}, best match first. */
+    List<Post> search(String query, int limit);
+    /**
+     * Creates the entity under a new id if it has none. With an id, writes it if its version
+     * matches the stored one (any version when null); version 0 creates it at that id only if the
+     * id is free, and the id is never handed out again.
+     */
     Post save(Post post);
-    void deleteById(Long id);
+    /**
+     * Saves all entities, drawing the ids of new ones from the id generator in one call. If a write
+     * fails, throws {@link com.example.userpostapi.exception.PartialBatchException} saying which
+     * entities were saved.
+     */
+    List<Post> saveAll(List<Post> posts);
+    /** Deletes the entity in a single lookup; returns false if there was none. */
+    boolean deleteById(Long id);
+    /** Deletes all posts of a user as one write (one afterCommit) and returns how many there were. */
+    int deleteByUserId(Long userId);
+    long count();
+    void addListener(RepositoryListener<Post> listener);
+
+    // Recovery hooks: apply state as-is, without assigning ids or notifying listeners.
+    // Ids seen here are never handed out again by save.
+    void restore(Post post);
+    void restoreDeletion(Long id);
 }
\ No newline at end of file
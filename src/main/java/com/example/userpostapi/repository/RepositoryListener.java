@@ -0,0 +1,101 @@
+package com.example.userpostapi.repository;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Observes committed writes of a repository, e.g. to log them durably.
+ *
+ * <p>{@link #onSave} and {@link #onDelete} run while the repository still holds the entity's
+ * write lock, so for a given id they are seen in the same order the writes were applied. They
+ * must be quick and must not block. Anything slow belongs in {@link #afterCommit}, which the
+ * writing thread calls once the lock has been released. A listener that throws from
+ * {@link #onSave} or {@link #onDelete} fails the write: the repository runs them before it
+ * touches its indexes, and the exception reaches the writer with the store unchanged. The
+ * listeners that had already seen the write are told so through {@link #onAbort}.
+ *
+ * <p>{@link #afterCommit} runs on every listener in registration order, even when one throws;
+ * the listeners after a failed one get {@link #afterFailedCommit} instead, because the write may
+ * not have been made durable.
+ */
+public interface RepositoryListener<T> {
+    void onSave(T entity);
+    void onDelete(Long id);
+
+    /**
+     * Called, still under the lock, when a listener after this one failed the write this one
+     * has just seen in {@link #onSave} or {@link #onDelete}; the write is not applied.
+     */
+    default void onAbort() {
+    }
+
+    default void afterCommit() {
+    }
+
+    /**
+     * Called instead of {@link #afterCommit} when the afterCommit of a listener before this one
+     * threw, e.g. the write-ahead log could not make the write durable. Defaults to afterCommit.
+     */
+    default void afterFailedCommit() {
+        afterCommit();
+    }
+
+    /** Runs {@link #onSave} on each listener in order, aborting the write for all if one throws. */
+    static <T> void notifySave(List<RepositoryListener<T>> listeners, T entity) {
+        notifyEach(listeners, RepositoryListener::onSave, entity);
+    }
+
+    /** Runs {@link #onDelete} on each listener in order, aborting the write for all if one throws. */
+    static <T> void notifyDelete(List<RepositoryListener<T>> listeners, Long id) {
+        notifyEach(listeners, RepositoryListener::onDelete, id);
+    }
+
+    /**
+     * Runs {@link #afterCommit} on each listener in order, and {@link #afterFailedCommit} on the
+     * ones after a listener that threw; then rethrows the first failure.
+     */
+    static <T> void notifyCommit(List<RepositoryListener<T>> listeners) {
+        Throwable failure = null;
+        for (RepositoryListener<T> listener : listeners) {
+            try {
+                if (failure == null) {
+                    listener.afterCommit();
+                } else {
+                    listener.afterFailedCommit();
+                }
+            } catch (RuntimeException | Error e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private static <T, A> void notifyEach(List<RepositoryListener<T>> listeners,
+                                         BiConsumer<RepositoryListener<T>, A> event, A argument) {
+        int notified = 0;
+        try {
+            for (RepositoryListener<T> listener : listeners) {
+                event.accept(listener, argument);
+                notified++;
+            }
+        } catch (RuntimeException | Error e) {
+            for (RepositoryListener<T> listener : listeners.subList(0, notified)) {
+                try {
+                    listener.onAbort();
+                } catch (RuntimeException abortFailure) {
+                    e.addSuppressed(abortFailure);
+                }
+            }
+            throw e;
+        }
+    }
+}
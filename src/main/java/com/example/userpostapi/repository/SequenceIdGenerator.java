@@ -0,0 +1,28 @@
+package com.example.userpostapi.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Strictly increasing ids from one shared counter. Every allocation contends on that counter. */
+public final class SequenceIdGenerator implements IdGenerator {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public long nextId() {
+        return counter.incrementAndGet();
+    }
+
+    /** Reserves the whole range with a single counter update, so the ids are contiguous. */
+    @Override
+    public void nextIds(long[] ids) {
+        long next = counter.getAndAdd(ids.length) + 1;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = next++;
+        }
+    }
+
+    @Override
+    public void observe(long id) {
+        counter.accumulateAndGet(id, Math::max);
+    }
+}
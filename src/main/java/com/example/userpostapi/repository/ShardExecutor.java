@@ -0,0 +1,174 @@
+package com.example.userpostapi.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Fork-join pool shared by the sharded repositories, which run one task per shard for scans and
+ * bulk writes, plus the helpers that spread ids over shards and merge per-shard results.
+ */
+public final class ShardExecutor implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+
+    public ShardExecutor(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("shard-worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Shard holding {@code id}. Fibonacci hashing rather than the Murmur3 mix that
+     * {@link ConcurrentLongHashMap} uses inside each shard: sharing that hash would leave every
+     * shard's table with only the slots whose low bits match the shard.
+     */
+    static int shardOf(long id, int shardCount) {
+        return (int) (((id * 0x9E3779B97F4A7C15L) >>> 32) % shardCount);
+    }
+
+    /** Positions of {@code keys}, grouped by the shard each key maps to. */
+    static int[][] groupByShard(long[] keys, int shardCount) {
+        int[] sizes = new int[shardCount];
+        int[] shardOfKey = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            shardOfKey[i] = shardOf(keys[i], shardCount);
+            sizes[shardOfKey[i]]++;
+        }
+        int[][] positions = new int[shardCount][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            positions[shard] = new int[sizes[shard]];
+            sizes[shard] = 0;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            positions[shardOfKey[i]][sizes[shardOfKey[i]]++] = i;
+        }
+        return positions;
+    }
+
+    /**
+     * Runs {@code task} once per shard in parallel and returns the results by shard. Every task
+     * runs to the end; the first failure is then rethrown as it was thrown.
+     */
+    <T> List<T> forEachShard(int shardCount, IntFunction<T> task) {
+        Object[] results = new Object[shardCount];
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int index = shard;
+            tasks.add(pool.submit(() -> {
+                try {
+                    results[index] = task.apply(index);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> submitted : tasks) {
+            submitted.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        @SuppressWarnings("unchecked")
+        List<T> byShard = (List<T>) Arrays.asList(results);
+        return byShard;
+    }
+
+    /** Merges iterators that are each in id order into the first {@code limit} entities overall. */
+    static <T> List<T> mergePage(List<Iterator<T>> inputs, ToLongFunction<T> id, ToLongFunction<T> version, int limit) {
+        List<T> page = new ArrayList<>(Math.min(limit, 64));
+        Iterator<T> merged = mergeById(inputs, id, version);
+        while (page.size() < limit && merged.hasNext()) {
+            page.add(merged.next());
+        }
+        return page;
+    }
+
+    /** Lazily merges streams that are each in id order; closing the result closes them all. */
+    static <T> Stream<T> mergeStreams(List<Stream<T>> streams, ToLongFunction<T> id, ToLongFunction<T> version) {
+        Iterator<T> iterator = mergeById(streams.stream().map(Stream::iterator).toList(), id, version);
+        Stream<T> merged = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        return merged.onClose(() -> streams.forEach(Stream::close));
+    }
+
+    /**
+     * K-way merge by id. An id present in more than one input (a post caught moving between
+     * shards) is returned once, at its highest version: a move stores the post in its new shard
+     * at the next version before dropping it from the old one, so that copy is the current one.
+     */
+    private static <T> Iterator<T> mergeById(List<Iterator<T>> inputs, ToLongFunction<T> id, ToLongFunction<T> version) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, inputs.size()),
+                (a, b) -> a.id != b.id ? Long.compare(a.id, b.id) : Long.compare(b.version, a.version));
+        for (Iterator<T> input : inputs) {
+            Head.advance(heads, input, id, version);
+        }
+        return new Iterator<>() {
+            private long lastId = Long.MIN_VALUE;
+
+            @Override
+            public boolean hasNext() {
+                while (!heads.isEmpty() && heads.peek().id == lastId) {
+                    Head<T> duplicate = heads.poll();
+                    Head.advance(heads, duplicate.input, id, version);
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Head<T> head = heads.poll();
+                lastId = head.id;
+                Head.advance(heads, head.input, id, version);
+                return head.value;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static final class Head<T> {
+        final T value;
+        final long id;
+        final long version;
+        final Iterator<T> input;
+
+        private Head(T value, long id, long version, Iterator<T> input) {
+            this.value = value;
+            this.id = id;
+            this.version = version;
+            this.input = input;
+        }
+
+        static <T> void advance(PriorityQueue<Head<T>> heads, Iterator<T> input, ToLongFunction<T> id,
+                                ToLongFunction<T> version) {
+            if (input.hasNext()) {
+                T value = input.next();
+                heads.add(new Head<>(value, id.applyAsLong(value), version.applyAsLong(value), input));
+            }
+        }
+    }
+}
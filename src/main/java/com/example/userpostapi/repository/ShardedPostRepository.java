@@ -0,0 +1,313 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.Post;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Post repository split into {@code app.repository.shards} partitions, each an
+ * {@link InMemoryPostRepository} (or {@link OffHeapPostRepository}). A post lives in the shard
+ * of its owning user, so {@link #findByUserId} and {@link #deleteByUserId} touch one shard.
+ *
+ * <p>Since the shard follows the owner rather than the post id, a route map from post id to
+ * shard finds posts by id. Every write of a post runs inside {@code compute} on its route,
+ * which serializes the writers of one post across shards. A post whose owner changes to a
+ * user in another shard moves there with its version; scans and searches running meanwhile may
+ * meet it in both shards, and keep only its newest copy.
+ *
+ * <p>Scans, searches and {@link #saveAll} run one fork-join task per shard. Search ranks
+ * within each shard and merges the scores, so idf and average length are per shard; with
+ * posts spread over shards by owner, they are close to the global ones.
+ */
+public class ShardedPostRepository implements PostRepository {
+
+    private final InMemoryPostRepository[] shards;
+    private final IdGenerator postIdGenerator;
+    private final ShardExecutor executor;
+    // Post id -> shard index. Boxed indexes below 128 are cached, so routing allocates nothing.
+    private final ConcurrentLongHashMap<Integer> shardByPostId;
+    private final List<RepositoryListener<Post>> listeners = new CopyOnWriteArrayList<>();
+
+    public ShardedPostRepository(int shardCount,
+                                 Function<IdGenerator, InMemoryPostRepository> shardFactory,
+                                 IdGenerator postIdGenerator,
+                                 ShardExecutor executor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("app.repository.shards must be at least 1: " + shardCount);
+        }
+        this.shards = new InMemoryPostRepository[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards[shard] = shardFactory.apply(postIdGenerator);
+        }
+        this.postIdGenerator = postIdGenerator;
+        this.executor = executor;
+        // Writers hold a route's stripe while they write the shard, so give it as many stripes
+        // as all shards together.
+        this.shardByPostId = new ConcurrentLongHashMap<>(
+                Integer.highestOneBit(Math.max(1, shardCount * 16 - 1)) << 1);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public Optional<Post> findById(Long id) {
+        while (true) {
+            Integer shard = shardByPostId.get(id);
+            if (shard == null) {
+                return Optional.empty();
+            }
+            Optional<Post> post = shards[shard].findById(id);
+            // A miss on a route that changed meanwhile means the post moved; look again.
+            if (post.isPresent() || shard.equals(shardByPostId.get(id))) {
+                return post;
+            }
+        }
+    }
+
+    @Override
+    public List<Post> findAll() {
+        List<List<Post>> byShard = executor.forEachShard(shards.length, shard -> {
+            List<Post> posts = shards[shard].findAll();
+            posts.sort(Comparator.comparingLong(Post::getId));
+            return posts;
+        });
+        // Merged rather than concatenated, so a post caught moving is returned once.
+        return ShardExecutor.mergePage(byShard.stream().map(List::iterator).toList(),
+                Post::getId, Post::getVersion, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Stream<Post> streamAll() {
+        return ShardExecutor.mergeStreams(Arrays.stream(shards).map(InMemoryPostRepository::streamAll).toList(),
+                Post::getId, Post::getVersion);
+    }
+
+    /** Merges the shards lazily, so a page reads about {@code limit} entities rather than that many per shard. */
+    @Override
+    public List<Post> findPage(Long afterId, int limit) {
+        return ShardExecutor.mergePage(
+                Arrays.stream(shards).map(shard -> shard.iterateAfter(afterId)).toList(),
+                Post::getId, Post::getVersion, limit);
+    }
+
+    @Override
+    public List<Post> findByUserId(Long userId) {
+        return shards[ShardExecutor.shardOf(userId, shards.length)].findByUserId(userId);
+    }
+
+    @Override
+    public long countByUserId(Long userId) {
+        return shards[ShardExecutor.shardOf(userId, shards.length)].countByUserId(userId);
+    }
+
+    @Override
+    public List<AuthorStats> findTopAuthors(int limit) {
+        // A user's posts all live in one shard, so the overall top is among the shards' tops.
+        List<AuthorStats> top = new ArrayList<>();
+        executor.forEachShard(shards.length, shard -> shards[shard].findTopAuthors(limit)).forEach(top::addAll);
+        top.sort(PostCounts.MOST_POSTS_FIRST);
+        return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+    }
+
+    @Override
+    public List<Post> search(String query, int limit) {
+        List<InvertedIndex.Hit[]> byShard = executor.forEachShard(shards.length, shard -> shards[shard].rank(query, limit));
+        List<InvertedIndex.Hit> hits = new ArrayList<>();
+        byShard.forEach(shardHits -> hits.addAll(Arrays.asList(shardHits)));
+        hits.sort(InvertedIndex.Hit.BEST_FIRST);
+        List<Post> posts = new ArrayList<>(Math.min(limit, hits.size()));
+        // A post caught moving can be a hit in two shards; findById returns its current copy once.
+        Set<Long> seen = new HashSet<>();
+        for (InvertedIndex.Hit hit : hits) {
+            if (posts.size() == limit) {
+                break;
+            }
+            if (seen.add(hit.id)) {
+                findById(hit.id).ifPresent(posts::add);
+            }
+        }
+        return posts;
+    }
+
+    @Override
+    public Post save(Post post) {
+        Post saved = post.getId() == null
+                ? write(post, postIdGenerator.nextId(), null)
+                : write(post, post.getId(), post.getVersion());
+        afterCommit();
+        return saved;
+    }
+
+    /**
+     * Draws the new ids in one call, then writes the posts of each owner's shard in a task of
+     * its own. A failing write stops its shard but not the others; once all are done, a
+     * {@link PartialBatchException} says which posts were saved.
+     */
+    @Override
+    public List<Post> saveAll(List<Post> posts) {
+        long[] newIds = new long[(int) posts.stream().filter(post -> post.getId() == null).count()];
+        postIdGenerator.nextIds(newIds);
+        long[] ids = new long[posts.size()];
+        long[] owners = new long[posts.size()];
+        int nextId = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Post post = posts.get(i);
+            ids[i] = post.getId() == null ? newIds[nextId++] : post.getId();
+            owners[i] = routingKey(post, ids[i]);
+        }
+        int[][] positions = ShardExecutor.groupByShard(owners, shards.length);
+        Post[] saved = new Post[posts.size()];
+        RuntimeException[] failures = new RuntimeException[posts.size()];
+        executor.forEachShard(shards.length, shard -> {
+            try {
+                for (int i : positions[shard]) {
+                    Post post = posts.get(i);
+                    try {
+                        saved[i] = write(post, ids[i], post.getId() == null ? null : post.getVersion());
+                    } catch (RuntimeException e) {
+                        failures[i] = e;
+                        break;
+                    }
+                }
+            } finally {
+                // afterCommit belongs to the thread that wrote, which is this shard's task.
+                afterCommit();
+            }
+            return null;
+        });
+        if (Arrays.stream(failures).anyMatch(Objects::nonNull)) {
+            throw new PartialBatchException(saved, failures);
+        }
+        return Arrays.asList(saved);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        if (!remove(id, -1)) {
+            return false;
+        }
+        afterCommit();
+        return true;
+    }
+
+    @Override
+    public int deleteByUserId(Long userId) {
+        int shard = ShardExecutor.shardOf(userId, shards.length);
+        int deleted = 0;
+        try {
+            // The set is concurrent, so removing its members while walking it is safe.
+            for (Long postId : shards[shard].postIdsOf(userId)) {
+                if (remove(postId, shard)) {
+                    deleted++;
+                }
+            }
+        } finally {
+            afterCommit();
+        }
+        return deleted;
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (InMemoryPostRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public void addListener(RepositoryListener<Post> listener) {
+        // The shards call onSave and onDelete under their locks; afterCommit is called from here,
+        // on the thread that wrote.
+        listeners.add(listener);
+        for (InMemoryPostRepository shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    @Override
+    public void restore(Post post) {
+        int target = ShardExecutor.shardOf(routingKey(post, post.getId()), shards.length);
+        Integer current = shardByPostId.get(post.getId());
+        if (current != null && current != target) {
+            shards[current].remove(post.getId(), false);
+        }
+        shards[target].restore(post);
+        shardByPostId.put(post.getId(), target);
+    }
+
+    @Override
+    public void restoreDeletion(Long id) {
+        Integer current = shardByPostId.remove(id);
+        if (current != null) {
+            shards[current].restoreDeletion(id);
+        } else {
+            postIdGenerator.observe(id);
+        }
+    }
+
+    /**
+     * Writes a post into its owner's shard under its route. If the owner now lives in another
+     * shard, the post moves: it is checked against the version held by the old shard, stored in
+     * the new one at the next version, and then quietly dropped from the old one, so listeners
+     * only see the save.
+     */
+    private Post write(Post post, long id, Long expectedVersion) {
+        int target = ShardExecutor.shardOf(routingKey(post, id), shards.length);
+        Post[] saved = new Post[1];
+        shardByPostId.compute(id, (postId, current) -> {
+            if (current == null || current == target) {
+                saved[0] = shards[target].put(post, postId, expectedVersion);
+                return target;
+            }
+            InMemoryPostRepository from = shards[current];
+            long currentVersion = from.findById(postId).map(Post::getVersion).orElse(0L);
+            if (expectedVersion != null && expectedVersion != currentVersion) {
+                throw new VersionConflictException("Post with id " + postId + " is at version " + currentVersion
+                        + ", not " + expectedVersion + ".");
+            }
+            saved[0] = shards[target].putAt(post, postId, currentVersion + 1);
+            from.remove(postId, false);
+            return target;
+        });
+        return saved[0];
+    }
+
+    /** Removes a post and its route, unless {@code onlyFrom} is a shard (not -1) it has left. */
+    private boolean remove(long id, int onlyFrom) {
+        boolean[] removed = new boolean[1];
+        shardByPostId.computeIfPresent(id, (postId, shard) -> {
+            if (onlyFrom >= 0 && shard != onlyFrom) {
+                return shard;
+            }
+            removed[0] = shards[shard].remove(postId, true);
+            return null;
+        });
+        return removed[0];
+    }
+
+    // Posts go with their owner; one without an owner is placed by its own id.
+    private static long routingKey(Post post, long id) {
+        return post.getUserId() != null ? post.getUserId() : id;
+    }
+
+    private void afterCommit() {
+        RepositoryListener.notifyCommit(listeners);
+    }
+}
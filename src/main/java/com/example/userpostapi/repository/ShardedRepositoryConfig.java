@@ -0,0 +1,45 @@
+package com.example.userpostapi.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the in-memory repositories with sharded ones when {@code app.repository.shards} is
+ * not 1. Both repositories share one fork-join pool of up to {@code app.repository.shard-parallelism}
+ * threads (by default one per shard, capped at the number of processors).
+ */
+@Configuration
+@ConditionalOnExpression("'${app.repository.shards:1}' != '1'")
+public class ShardedRepositoryConfig {
+
+    private final int shards;
+
+    public ShardedRepositoryConfig(@Value("${app.repository.shards}") int shards) {
+        this.shards = shards;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardExecutor shardExecutor(@Value("${app.repository.shard-parallelism:0}") int parallelism) {
+        return new ShardExecutor(parallelism > 0
+                ? parallelism
+                : Math.max(1, Math.min(shards, Runtime.getRuntime().availableProcessors())));
+    }
+
+    @Bean
+    public ShardedUserRepository userRepository(@Qualifier("userIdGenerator") IdGenerator userIdGenerator,
+                                                ShardExecutor shardExecutor) {
+        return new ShardedUserRepository(shards, userIdGenerator, shardExecutor);
+    }
+
+    @Bean
+    public ShardedPostRepository postRepository(@Value("${app.repository.post-storage:heap}") String postStorage,
+                                                @Qualifier("postIdGenerator") IdGenerator postIdGenerator,
+                                                ShardExecutor shardExecutor) {
+        return new ShardedPostRepository(shards,
+                "off-heap".equals(postStorage) ? OffHeapPostRepository::new : InMemoryPostRepository::new,
+                postIdGenerator, shardExecutor);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * User repository split by id into {@code app.repository.shards} partitions, each an
+ * {@link InMemoryUserRepository}. Ids come from one generator before a user is routed, so
+ * every lookup by id touches exactly one shard. The shards share one email index, which keeps
+ * emails unique across all of them. Scans and {@link #saveAll} run one fork-join task per shard.
+ */
+public class ShardedUserRepository implements UserRepository {
+
+    private final InMemoryUserRepository[] shards;
+    private final IdGenerator userIdGenerator;
+    private final ConcurrentHashMap<String, Long> userIdsByEmail = new ConcurrentHashMap<>();
+    private final ShardExecutor executor;
+    private final List<RepositoryListener<User>> listeners = new CopyOnWriteArrayList<>();
+
+    public ShardedUserRepository(int shardCount, IdGenerator userIdGenerator, ShardExecutor executor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("app.repository.shards must be at least 1: " + shardCount);
+        }
+        this.shards = new InMemoryUserRepository[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards[shard] = new InMemoryUserRepository(userIdGenerator, userIdsByEmail);
+        }
+        this.userIdGenerator = userIdGenerator;
+        this.executor = executor;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return shardFor(id).findById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<List<User>> byShard = executor.forEachShard(shards.length, shard -> shards[shard].findAll());
+        List<User> users = new ArrayList<>(byShard.stream().mapToInt(List::size).sum());
+        byShard.forEach(users::addAll);
+        return users;
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return ShardExecutor.mergeStreams(Arrays.stream(shards).map(InMemoryUserRepository::streamAll).toList(),
+                User::getId, User::getVersion);
+    }
+
+    /** Merges the shards lazily, so a page reads about {@code limit} entities rather than that many per shard. */
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return ShardExecutor.mergePage(
+                Arrays.stream(shards).map(shard -> shard.iterateAfter(afterId)).toList(),
+                User::getId, User::getVersion, limit);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        String key = UserRepository.normalizeEmail(email);
+        while (true) {
+            Long id = key == null ? null : userIdsByEmail.get(key);
+            if (id == null) {
+                return Optional.empty();
+            }
+            Optional<User> user = shardFor(id).findByEmail(email);
+            // Empty while the index still names this id means the address is really free; if it
+            // moved to another user meanwhile, that user may live in another shard.
+            if (user.isPresent() || id.equals(userIdsByEmail.get(key))) {
+                return user;
+            }
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        long id = user.getId() == null ? userIdGenerator.nextId() : user.getId();
+        User saved = shardFor(id).put(user, id, user.getId() == null ? null : user.getVersion());
+        afterCommit();
+        return saved;
+    }
+
+    /**
+     * Draws the new ids in one call, then writes each shard's users in a task of its own. A
+     * failing write stops its shard but not the others; once all are done, a
+     * {@link PartialBatchException} says which users were saved.
+     */
+    @Override
+    public List<User> saveAll(List<User> users) {
+        long[] newIds = new long[(int) users.stream().filter(user -> user.getId() == null).count()];
+        userIdGenerator.nextIds(newIds);
+        long[] ids = new long[users.size()];
+        int nextId = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Long id = users.get(i).getId();
+            ids[i] = id == null ? newIds[nextId++] : id;
+        }
+        int[][] positions = ShardExecutor.groupByShard(ids, shards.length);
+        User[] saved = new User[users.size()];
+        RuntimeException[] failures = new RuntimeException[users.size()];
+        executor.forEachShard(shards.length, shard -> {
+            try {
+                for (int i : positions[shard]) {
+                    User user = users.get(i);
+                    try {
+                        saved[i] = shards[shard].put(user, ids[i], user.getId() == null ? null : user.getVersion());
+                    } catch (RuntimeException e) {
+                        failures[i] = e;
+                        break;
+                    }
+                }
+            } finally {
+                // afterCommit belongs to the thread that wrote, which is this shard's task.
+                afterCommit();
+            }
+            return null;
+        });
+        if (Arrays.stream(failures).anyMatch(Objects::nonNull)) {
+            throw new PartialBatchException(saved, failures);
+        }
+        return Arrays.asList(saved);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        if (!shardFor(id).remove(id, true)) {
+            return false;
+        }
+        afterCommit();
+        return true;
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (InMemoryUserRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public void addListener(RepositoryListener<User> listener) {
+        // The shards call onSave and onDelete under their locks; afterCommit is called from here,
+        // on the thread that wrote.
+        listeners.add(listener);
+        for (InMemoryUserRepository shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    @Override
+    public void restore(User user) {
+        shardFor(user.getId()).restore(user);
+    }
+
+    @Override
+    public void restoreDeletion(Long id) {
+        shardFor(id).restoreDeletion(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return shardFor(id).existsById(id);
+    }
+
+    private InMemoryUserRepository shardFor(long id) {
+        return shards[ShardExecutor.shardOf(id, shards.length)];
+    }
+
+    private void afterCommit() {
+        RepositoryListener.notifyCommit(listeners);
+    }
+}
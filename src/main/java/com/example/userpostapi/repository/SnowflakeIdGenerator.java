@@ -0,0 +1,67 @@
+package com.example.userpostapi.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered ids that are unique across nodes: 41 bits of milliseconds since 2024-01-01 UTC,
+ * 10 bits of node id and a 12-bit sequence within the millisecond.
+ *
+ * <p>Ids from one node are strictly increasing. A node that issues more than 4096 ids in a
+ * millisecond, or whose clock steps back, keeps counting from its last id and borrows the
+ * following milliseconds instead of waiting.
+ */
+public final class SnowflakeIdGenerator implements IdGenerator {
+
+    static final long EPOCH_MILLIS = 1704067200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long nodeBits;
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    @Override
+    public long nextId() {
+        long now = ((System.currentTimeMillis() - EPOCH_MILLIS) << TIMESTAMP_SHIFT) | nodeBits;
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(now, successor(previous));
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public void observe(long id) {
+        last.accumulateAndGet(id, Math::max);
+    }
+
+    static long nodeId(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    static long timestampMillis(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    // The next id of this node after previous, rolling into the next millisecond when the
+    // sequence is used up. previous may come from observe and carry another node's bits.
+    private long successor(long previous) {
+        long millis = previous >>> TIMESTAMP_SHIFT;
+        long candidate = (millis << TIMESTAMP_SHIFT) | nodeBits | ((previous & SEQUENCE_MASK) + 1);
+        if ((previous & SEQUENCE_MASK) == SEQUENCE_MASK || candidate <= previous) {
+            candidate = ((millis + 1) << TIMESTAMP_SHIFT) | nodeBits;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.userpostapi.repository;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into search terms: maximal runs of letters and digits, lower-cased. Everything
+ * else separates terms. Runs longer than {@link #MAX_TERM_LENGTH} (hashes, encoded blobs) are
+ * dropped instead of bloating the term dictionary.
+ */
+final class Tokenizer {
+
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    static void forEachTerm(String text, Consumer<String> action) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; ) {
+            int codePoint = i < length ? text.codePointAt(i) : ' ';
+            boolean partOfTerm = i < length && Character.isLetterOrDigit(codePoint);
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    action.accept(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+            i += i < length ? Character.charCount(codePoint) : 1;
+        }
+    }
+}
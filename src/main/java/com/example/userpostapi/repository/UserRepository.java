@@ -2,12 +2,47 @@ package com.example.userpostapi.repository;
 
 import com.example.userpostapi.model.User;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository {
     Optional<User> findById(Long id);
     List<User> findAll();
+    /** Returns up to {@code limit} entities with ids greater than {@code afterId} (all when null), in id order. */
+    List<User> findPage(Long afterId, int limit);
+    /** Lazily walks all entities in id order without copying the store. */
+    Stream<User> streamAll();
+    /** Looks a user up by email, ignoring case and surrounding whitespace. */
+    Optional<User> findByEmail(String email);
+    /**
+     * Creates the entity under a new id if it has none. With an id, writes it if its version
+     * matches the stored one (any version when null); version 0 creates it at that id only if the
+     * id is free, and the id is never handed out again.
+     */
     User save(User user);
-    void deleteById(Long id);
+    /**
+     * Saves all entities, drawing the ids of new ones from the id generator in one call. If a write
+     * fails, throws {@link com.example.userpostapi.exception.PartialBatchException} saying which
+     * entities were saved.
+     */
+    List<User> saveAll(List<User> users);
+    /** Deletes the entity in a single lookup; returns false if there was none. */
+    boolean deleteById(Long id);
+    long count();
+    void addListener(RepositoryListener<User> listener);
+
+    // Recovery hooks: apply state as-is, without assigning ids or notifying listeners.
+    // Ids seen here are never handed out again by save.
+    void restore(User user);
+    void restoreDeletion(Long id);
     boolean existsById(Long id);
+
+    /** The form emails are compared in: trimmed and lower-cased. Null for a missing or blank email. */
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
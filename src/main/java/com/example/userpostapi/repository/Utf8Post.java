@@ -0,0 +1,142 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.Post;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A post served from off-heap storage. Title and content arrive as UTF-8 bytes and are only
+ * decoded into {@code String}s if a getter asks for them; JSON, CBOR and Smile serialization
+ * write the bytes straight to the generator instead. Like {@link FrozenPost} it is a read-only snapshot: setters
+ * throw.
+ */
+@JsonSerialize(using = Utf8Post.Serializer.class)
+final class Utf8Post extends Post {
+    private byte[] titleUtf8;
+    private byte[] contentUtf8;
+    private boolean titleDecoded;
+    private boolean contentDecoded;
+
+    Utf8Post(Long id, Long userId, Long version, byte[] titleUtf8, byte[] contentUtf8) {
+        super.setId(id);
+        super.setUserId(userId);
+        super.setVersion(version);
+        this.titleUtf8 = titleUtf8;
+        this.contentUtf8 = contentUtf8;
+    }
+
+    @Override
+    public String getTitle() {
+        if (!titleDecoded) {
+            super.setTitle(decode(titleUtf8));
+            titleDecoded = true;
+        }
+        return super.getTitle();
+    }
+
+    @Override
+    public String getContent() {
+        if (!contentDecoded) {
+            super.setContent(decode(contentUtf8));
+            contentDecoded = true;
+        }
+        return super.getContent();
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw immutable();
+    }
+
+    @Override
+    public void setTitle(String title) {
+        throw immutable();
+    }
+
+    @Override
+    public void setContent(String content) {
+        throw immutable();
+    }
+
+    @Override
+    public void setUserId(Long userId) {
+        throw immutable();
+    }
+
+    @Override
+    public void setVersion(Long version) {
+        throw immutable();
+    }
+
+    byte[] titleUtf8() {
+        return titleUtf8;
+    }
+
+    byte[] contentUtf8() {
+        return contentUtf8;
+    }
+
+    static byte[] encode(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(byte[] utf8) {
+        return utf8 == null ? null : new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Stored posts are immutable; save a new Post instead.");
+    }
+
+    /** Writes the same properties, in the same order, as the default serialization of {@link Post}. */
+    static final class Serializer extends StdSerializer<Utf8Post> {
+
+        Serializer() {
+            super(Utf8Post.class);
+        }
+
+        @Override
+        public void serialize(Utf8Post post, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(post);
+            writeLong(generator, "id", post.getId());
+            if (generator instanceof UTF8JsonGenerator || generator instanceof CBORGenerator
+                    || generator instanceof SmileGenerator) {
+                writeUtf8(generator, "title", post.titleUtf8());
+                writeUtf8(generator, "content", post.contentUtf8());
+            } else {
+                // Character-based generators (e.g. writeValueAsString) cannot take raw UTF-8.
+                generator.writeStringField("title", post.getTitle());
+                generator.writeStringField("content", post.getContent());
+            }
+            writeLong(generator, "userId", post.getUserId());
+            writeLong(generator, "version", post.getVersion());
+            generator.writeEndObject();
+        }
+
+        private static void writeLong(JsonGenerator generator, String name, Long value) throws IOException {
+            generator.writeFieldName(name);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+        private static void writeUtf8(JsonGenerator generator, String name, byte[] utf8) throws IOException {
+            generator.writeFieldName(name);
+            if (utf8 == null) {
+                generator.writeNull();
+            } else {
+                generator.writeUTF8String(utf8, 0, utf8.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.userpostapi.resilience;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * <p>{@code failureThreshold} transient failures in a row open the circuit, and calls are then
+ * rejected without being attempted. After {@code openNanos} one probe call is let through
+ * (half-open): if it succeeds the circuit closes, if it fails it opens again. While closed and
+ * healthy, both checks are a volatile read.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    // Written under this; volatile so the closed path can skip the lock.
+    private volatile State state = State.CLOSED;
+    private volatile int consecutiveFailures;
+    // Guarded by this.
+    private long openedAt;
+    private boolean probing;
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    /** Whether a call may go ahead now; a true result must be followed by a success or failure report. */
+    boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN && !probing) {
+                probing = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    void onSuccess() {
+        if (state == State.CLOSED && consecutiveFailures == 0) {
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures = 0;
+            probing = false;
+            state = State.CLOSED;
+        }
+    }
+
+    void onFailure() {
+        synchronized (this) {
+            if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.nanoTime();
+                probing = false;
+                consecutiveFailures = 0;
+            }
+        }
+    }
+
+    State state() {
+        return state;
+    }
+
+    /** Time until a probe is allowed; 0 unless open. */
+    synchronized long remainingOpenNanos() {
+        return state == State.OPEN ? Math.max(0, openNanos - (System.nanoTime() - openedAt)) : 0;
+    }
+}
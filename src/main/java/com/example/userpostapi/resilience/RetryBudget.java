@@ -0,0 +1,67 @@
+package com.example.userpostapi.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service-wide allowance of retries. Every call earns {@code ratio} of a retry and every retry
+ * spends one, so retries stay a fixed fraction of the traffic however many callers fail at once.
+ * A floor of {@code minPerSecond} keeps retries possible at low traffic. Balances are kept in
+ * thousandths of a retry and capped, so a quiet hour cannot bank a retry storm.
+ */
+final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerCall;
+    private final double minPerNano;
+    private final long cap;
+    private final AtomicLong balance;
+    // Guarded by this.
+    private long refilledAt = System.nanoTime();
+
+    RetryBudget(double ratio, double minPerSecond, double maxBalance) {
+        if (ratio < 0 || minPerSecond < 0 || maxBalance < 1) {
+            throw new IllegalArgumentException("Invalid retry budget: " + ratio + ", " + minPerSecond + ", " + maxBalance);
+        }
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.minPerNano = minPerSecond * SCALE / 1e9;
+        this.cap = Math.round(maxBalance * SCALE);
+        this.balance = new AtomicLong(cap);
+    }
+
+    /** Credits one call. Once the budget is full this is a single read. */
+    void recordCall() {
+        if (depositPerCall > 0 && balance.get() < cap) {
+            deposit(depositPerCall);
+        }
+    }
+
+    /** Spends one retry if the budget allows it. */
+    boolean tryWithdraw() {
+        synchronized (this) {
+            long now = System.nanoTime();
+            long earned = (long) ((now - refilledAt) * minPerNano);
+            if (earned > 0) {
+                deposit(earned);
+                refilledAt = now;
+            }
+        }
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    double available() {
+        return (double) balance.get() / SCALE;
+    }
+
+    private void deposit(long amount) {
+        balance.accumulateAndGet(amount, (current, added) -> Math.min(cap, current + added));
+    }
+}
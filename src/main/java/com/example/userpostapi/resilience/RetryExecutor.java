@@ -0,0 +1,232 @@
+package com.example.userpostapi.resilience;
+
+import com.example.userpostapi.exception.CircuitOpenException;
+import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import com.example.userpostapi.exception.TransientDataAccessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs repository writes with retries, a service-wide retry budget and a circuit breaker per
+ * repository.
+ *
+ * <p>A write failing with {@link TransientDataAccessException} is tried up to
+ * {@code app.retry.max-attempts} times in all. Before each retry it waits a random time between
+ * zero and an exponentially growing ceiling (full jitter), so callers that failed together do
+ * not retry together. Every retry must also be paid for from the {@link RetryBudget}: in an
+ * outage the budget runs dry and calls give up at once instead of multiplying the load. Enough
+ * transient failures in a row open the repository's {@link CircuitBreaker}, after which calls
+ * give up without reaching the repository until a probe succeeds.
+ *
+ * <p>A call that gives up hands the last failure, or a {@link CircuitOpenException}, to its
+ * fallback. {@link #callAsync} schedules each retry on the service executor once its delay has
+ * passed, so nothing waits out the backoff. {@link #call} waits on the calling thread; a caller
+ * takes any lock inside the action, per attempt, never around the call.
+ */
+@Component
+public class RetryExecutor {
+
+    /** Circuits, one per repository. */
+    public enum Circuit {
+        USER_REPOSITORY,
+        POST_REPOSITORY
+    }
+
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final RetryBudget budget;
+    private final Map<Circuit, CircuitBreaker> breakers = new EnumMap<>(Circuit.class);
+    private final Counter budgetExhausted;
+
+    public RetryExecutor(@Qualifier("serviceExecutor") Executor executor,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.retry.max-attempts:3}") int maxAttempts,
+                         @Value("${app.retry.base-delay:50ms}") Duration baseDelay,
+                         @Value("${app.retry.max-delay:1s}") Duration maxDelay,
+                         @Value("${app.retry.budget-ratio:0.1}") double budgetRatio,
+                         @Value("${app.retry.budget-min-per-second:10}") double budgetMinPerSecond,
+                         @Value("${app.circuit-breaker.failure-threshold:10}") int failureThreshold,
+                         @Value("${app.circuit-breaker.open-duration:5s}") Duration openDuration) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("app.retry.max-attempts must be at least 1: " + maxAttempts);
+        }
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.budget = new RetryBudget(budgetRatio, budgetMinPerSecond, Math.max(1, budgetMinPerSecond * 10));
+        for (Circuit circuit : Circuit.values()) {
+            CircuitBreaker breaker = new CircuitBreaker(failureThreshold, openDuration.toNanos());
+            breakers.put(circuit, breaker);
+            Gauge.builder("circuit.state", breaker, b -> b.state().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .tag("circuit", name(circuit))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("retry.budget.available", budget, RetryBudget::available)
+                .description("Retries the service-wide budget would allow right now")
+                .register(meterRegistry);
+        this.budgetExhausted = Counter.builder("retry.budget.exhausted")
+                .description("Retries skipped because the retry budget was spent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fallback for writes without a more specific one: 503 with {@code Retry-After} while the
+     * circuit is open, 500 once retries are spent.
+     */
+    public static <T> Function<TransientDataAccessException, T> giveUp(String action) {
+        return failure -> {
+            throw failed(action, failure);
+        };
+    }
+
+    public static RuntimeException failed(String action, TransientDataAccessException failure) {
+        String message = "Service is currently unable to " + action + ". Please try again later.";
+        if (failure instanceof CircuitOpenException open) {
+            return new ServiceUnavailableException(message, open.getRetryAfterSeconds());
+        }
+        return new OperationFailedException(message);
+    }
+
+    /** Runs the action, waiting out retries on the calling thread. */
+    public <T> T call(Circuit circuit, String operation, Supplier<T> action,
+                      Function<TransientDataAccessException, T> fallback) {
+        Call<T> call = new Call<>(breakers.get(circuit), circuit, operation, action, fallback);
+        budget.recordCall();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(call);
+            } catch (TransientDataAccessException failure) {
+                long delayNanos = retryDelay(call, attempt, failure);
+                if (delayNanos < 0) {
+                    return recover(call, failure);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return recover(call, failure);
+                }
+            }
+        }
+    }
+
+    /** Runs the action on the executor; retries are scheduled, not waited for. */
+    public <T> CompletableFuture<T> callAsync(Circuit circuit, String operation, Supplier<T> action,
+                                              Function<TransientDataAccessException, T> fallback) {
+        Call<T> call = new Call<>(breakers.get(circuit), circuit, operation, action, fallback);
+        budget.recordCall();
+        return CompletableFuture.supplyAsync(() -> step(call, 1), executor).thenCompose(next -> next);
+    }
+
+    private <T> CompletableFuture<T> step(Call<T> call, int attempt) {
+        try {
+            return CompletableFuture.completedFuture(attempt(call));
+        } catch (TransientDataAccessException failure) {
+            long delayNanos = retryDelay(call, attempt, failure);
+            if (delayNanos < 0) {
+                try {
+                    return CompletableFuture.completedFuture(recover(call, failure));
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            Executor delayed = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, executor);
+            return CompletableFuture.supplyAsync(() -> step(call, attempt + 1), delayed).thenCompose(next -> next);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T attempt(Call<T> call) {
+        if (!call.breaker.tryAcquire()) {
+            meterRegistry.counter("circuit.rejected", "circuit", name(call.circuit)).increment();
+            long retryAfterNanos = call.breaker.remainingOpenNanos();
+            throw new CircuitOpenException("Circuit " + name(call.circuit) + " is open.",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos - 1) + 1));
+        }
+        // Every outcome is reported, so a half-open probe is always released; an Error counts as
+        // a failure, any other exception as the repository answering.
+        boolean answered = false;
+        try {
+            T result = call.action.get();
+            answered = true;
+            return result;
+        } catch (RuntimeException e) {
+            answered = !(e instanceof TransientDataAccessException);
+            throw e;
+        } finally {
+            if (answered) {
+                call.breaker.onSuccess();
+            } else {
+                call.breaker.onFailure();
+            }
+        }
+    }
+
+    /** Delay before the next attempt, or -1 to give up now. */
+    private long retryDelay(Call<?> call, int attempt, TransientDataAccessException failure) {
+        if (failure instanceof CircuitOpenException) {
+            return -1;
+        }
+        meterRegistry.counter("retry.attempts.failed", "operation", call.operation,
+                "exception", failure.getClass().getSimpleName()).increment();
+        if (attempt >= maxAttempts) {
+            meterRegistry.counter("retry.exhausted", "operation", call.operation).increment();
+            return -1;
+        }
+        if (!budget.tryWithdraw()) {
+            budgetExhausted.increment();
+            return -1;
+        }
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << Math.min(attempt - 1, 30));
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    private <T> T recover(Call<T> call, TransientDataAccessException failure) {
+        meterRegistry.counter("retry.recoveries", "operation", call.operation).increment();
+        return call.fallback.apply(failure);
+    }
+
+    private static String name(Circuit circuit) {
+        return circuit.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private static final class Call<T> {
+        final CircuitBreaker breaker;
+        final Circuit circuit;
+        final String operation;
+        final Supplier<T> action;
+        final Function<TransientDataAccessException, T> fallback;
+
+        Call(CircuitBreaker breaker, Circuit circuit, String operation, Supplier<T> action,
+             Function<TransientDataAccessException, T> fallback) {
+            this.breaker = breaker;
+            this.circuit = circuit;
+            this.operation = operation;
+            this.action = action;
+            this.fallback = fallback;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.userpostapi.service;
+
+import com.example.userpostapi.exception.DuplicateEmailException;
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import com.example.userpostapi.exception.TransientDataAccessException;
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.resilience.RetryExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/** Limits and saving shared by the batch create operations. */
+final class Batches {
+
+    static final int MAX_SIZE = 10_000;
+
+    private Batches() {
+    }
+
+    static void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new InvalidRequestException("Batch must contain at least one item.");
+        }
+        if (items.size() > MAX_SIZE) {
+            throw new InvalidRequestException("Batch size must not exceed " + MAX_SIZE + ", was " + items.size() + ".");
+        }
+    }
+
+    /** A failure for an item rejected without being written, reported with {@code status}. */
+    static RuntimeException rejected(int status, String message) {
+        return new ItemRejectedException(status, message);
+    }
+
+    /**
+     * Saves the accepted items with {@code saveAll} and sets each one's result at the request
+     * index {@code indexes} gives it. Pass {@link #attempt} and {@link #giveUp} to the retry
+     * executor: an attempt saves only the items still pending, so a retry never repeats a write.
+     * An item the repository rejects, e.g. for an email a concurrent request has just taken, gets
+     * a result of its own, and the items saved before it stay saved. A transient item failure is
+     * rethrown once the rest of the attempt is settled, so the retry backs off with the remaining
+     * items; once retries give up, those fail with 503 or 500.
+     */
+    static final class Save<T> {
+        private final List<BatchItemResult<T>> results;
+        private final UnaryOperator<List<T>> saveAll;
+        private List<T> pending;
+        private List<Integer> pendingIndexes;
+
+        Save(List<T> accepted, List<Integer> indexes, List<BatchItemResult<T>> results, UnaryOperator<List<T>> saveAll) {
+            this.results = results;
+            this.saveAll = saveAll;
+            this.pending = accepted;
+            this.pendingIndexes = indexes;
+        }
+
+        boolean hasPending() {
+            return !pending.isEmpty();
+        }
+
+        List<BatchItemResult<T>> attempt() {
+            while (!pending.isEmpty()) {
+                List<T> saved;
+                try {
+                    saved = saveAll.apply(pending);
+                } catch (PartialBatchException partial) {
+                    settle(partial);
+                    continue;
+                }
+                for (int i = 0; i < pending.size(); i++) {
+                    int index = pendingIndexes.get(i);
+                    results.set(index, BatchItemResult.created(index, saved.get(i)));
+                }
+                pending = List.of();
+                pendingIndexes = List.of();
+            }
+            return results;
+        }
+
+        List<BatchItemResult<T>> giveUp(TransientDataAccessException failure) {
+            for (int index : pendingIndexes) {
+                results.set(index, failed(index, failure));
+            }
+            return results;
+        }
+
+        /** Records what {@code partial} settled and keeps the rest pending; rethrows a transient failure. */
+        private void settle(PartialBatchException partial) {
+            TransientDataAccessException retry = null;
+            List<T> unsaved = new ArrayList<>();
+            List<Integer> unsavedIndexes = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                int index = pendingIndexes.get(i);
+                @SuppressWarnings("unchecked")
+                T item = (T) partial.getSaved().get(i);
+                RuntimeException failure = partial.getFailures().get(i);
+                if (item != null) {
+                    results.set(index, BatchItemResult.created(index, item));
+                } else if (failure != null && !(failure instanceof TransientDataAccessException)) {
+                    results.set(index, failed(index, failure));
+                } else {
+                    if (failure != null && retry == null) {
+                        retry = (TransientDataAccessException) failure;
+                    }
+                    unsaved.add(pending.get(i));
+                    unsavedIndexes.add(index);
+                }
+            }
+            pending = unsaved;
+            pendingIndexes = unsavedIndexes;
+            if (retry != null) {
+                throw retry;
+            }
+        }
+    }
+
+    private static <T> BatchItemResult<T> failed(int index, RuntimeException failure) {
+        if (failure instanceof ItemRejectedException rejection) {
+            return BatchItemResult.failed(index, rejection.status, rejection.getMessage());
+        }
+        if (failure instanceof DuplicateEmailException || failure instanceof VersionConflictException) {
+            return BatchItemResult.failed(index, 409, failure.getMessage());
+        }
+        if (failure instanceof TransientDataAccessException transientFailure) {
+            failure = RetryExecutor.failed("save this item", transientFailure);
+        }
+        if (failure instanceof ServiceUnavailableException) {
+            return BatchItemResult.failed(index, 503, failure.getMessage());
+        }
+        if (failure instanceof OperationFailedException) {
+            return BatchItemResult.failed(index, 500, failure.getMessage());
+        }
+        return BatchItemResult.failed(index, 500, "Item could not be saved.");
+    }
+
+    private static final class ItemRejectedException extends RuntimeException {
+        private final int status;
+
+        ItemRejectedException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
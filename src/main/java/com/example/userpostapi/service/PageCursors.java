@@ -0,0 +1,60 @@
+package com.example.userpostapi.service;
+
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.model.CursorPage;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes keyset cursors as opaque URL-safe tokens and cuts repository results into pages.
+ * A cursor is the last id of the previous page; it is not meant to be built by clients.
+ */
+final class PageCursors {
+
+    static final int MAX_LIMIT = 1000;
+
+    private PageCursors() {
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidRequestException("Invalid page cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    static String encode(long id) {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(id).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static int checkLimit(int limit) {
+        if (limit < 1) {
+            throw new InvalidRequestException("Page limit must be at least 1.");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Builds a page from a repository slice fetched with {@code limit + 1} rows: the extra row
+     * only signals that another page exists and is not returned.
+     */
+    static <T> CursorPage<T> toPage(List<T> slice, int limit, Function<T, Long> idOf) {
+        if (slice.size() <= limit) {
+            return new CursorPage<>(slice, null);
+        }
+        List<T> items = slice.subList(0, limit);
+        return new CursorPage<>(items, encode(idOf.apply(items.get(limit - 1))));
+    }
+}
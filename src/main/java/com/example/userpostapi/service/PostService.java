@@ -1,13 +1,31 @@
 package com.example.userpostapi.service;
 
 
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
 import com.example.userpostapi.model.Post;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface PostService {
     Post getPostById(Long id);
+    CompletableFuture<Post> getPostByIdAsync(Long id);
     List<Post> getAllPosts();
+    CursorPage<Post> getPostsPage(String after, int limit);
+    Stream<Post> streamAllPosts();
+    List<Post> getPostsByUserId(Long userId);
+    CompletableFuture<List<Post>> getPostsByUserIdAsync(Long userId);
+    List<Post> searchPosts(String query, int limit);
+    AuthorStats getUserStats(Long userId);
+    List<AuthorStats> getTopAuthors(int limit);
     Post createPost(Post post);
+    CompletableFuture<Post> createPostAsync(Post post);
+    List<BatchItemResult<Post>> createPosts(List<Post> posts);
+    CompletableFuture<List<BatchItemResult<Post>>> createPostsAsync(List<Post> posts);
     Post updatePost(Long id, Post post);
+    CompletableFuture<Post> updatePostAsync(Long id, Post post);
     void deletePost(Long id);
+    CompletableFuture<Void> deletePostAsync(Long id);
 }
\ No newline at end of file
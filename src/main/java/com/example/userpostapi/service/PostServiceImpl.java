@@ -1,34 +1,58 @@
 package com.example.userpostapi.service;
 
-import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.exception.InvalidRequestException;
 import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.exception.PartialBatchException;
 import com.example.userpostapi.exception.ResourceNotFoundException;
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
 import com.example.userpostapi.model.Post;
 import com.example.userpostapi.repository.PostRepository;
 import com.example.userpostapi.repository.UserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import com.example.userpostapi.resilience.RetryExecutor.Circuit;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 @Service
 public class PostServiceImpl implements PostService {
 
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final UserLocks userLocks;
+    private final RetryExecutor retryExecutor;
+    private final Executor serviceExecutor;
 
-    public PostServiceImpl(PostRepository postRepository, UserRepository userRepository) {
+    public PostServiceImpl(PostRepository postRepository, UserRepository userRepository, UserLocks userLocks,
+                           RetryExecutor retryExecutor, @Qualifier("serviceExecutor") Executor serviceExecutor) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.userLocks = userLocks;
+        this.retryExecutor = retryExecutor;
+        this.serviceExecutor = serviceExecutor;
     }
 
     @Override
     public Post getPostById(Long id) {
-        try {
-            return postRepository.findById(id)
-                    .orElseThrow(() -> new DataAccessException("Post with id " + id + " not found."));
-        } catch (DataAccessException e) {
-            throw new ResourceNotFoundException(e.getMessage());
+        Post post = postRepository.findById(id).orElse(null);
+        if (post == null) {
+            throw postNotFound(id);
         }
+        return post;
+    }
+
+    @Override
+    public CompletableFuture<Post> getPostByIdAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> getPostById(id), serviceExecutor);
     }
 
     @Override
@@ -36,40 +60,229 @@ public class PostServiceImpl implements PostService {
         return postRepository.findAll();
     }
 
+    @Override
+    public Stream<Post> streamAllPosts() {
+        return postRepository.streamAll();
+    }
+
+    @Override
+    public CursorPage<Post> getPostsPage(String after, int limit) {
+        int pageSize = PageCursors.checkLimit(limit);
+        List<Post> slice = postRepository.findPage(PageCursors.decode(after), pageSize + 1);
+        return PageCursors.toPage(slice, pageSize, Post::getId);
+    }
+
+    @Override
+    public List<Post> getPostsByUserId(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User with id " + userId + " not found.");
+        }
+        return postRepository.findByUserId(userId);
+    }
+
+    @Override
+    public CompletableFuture<List<Post>> getPostsByUserIdAsync(Long userId) {
+        return CompletableFuture.supplyAsync(() -> getPostsByUserId(userId), serviceExecutor);
+    }
+
+    @Override
+    public List<Post> searchPosts(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Search query must not be empty.");
+        }
+        return postRepository.search(query, PageCursors.checkLimit(limit));
+    }
+
+    @Override
+    public AuthorStats getUserStats(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User with id " + userId + " not found.");
+        }
+        return new AuthorStats(userId, postRepository.countByUserId(userId));
+    }
+
+    @Override
+    public List<AuthorStats> getTopAuthors(int limit) {
+        return postRepository.findTopAuthors(PageCursors.checkLimit(limit));
+    }
+
     @Override
     public Post createPost(Post post) {
+        if (post.getUserId() == null) {
+            throw new InvalidRequestException("Cannot create post. userId is required.");
+        }
+        // Each attempt takes the owner's lock itself, so no retry waits while holding it.
+        return retryExecutor.call(Circuit.POST_REPOSITORY, "createPost",
+                () -> userLocks.withUserShared(post.getUserId(), () -> saveWithOwner(post)),
+                RetryExecutor.giveUp("create post"));
+    }
+
+    @Override
+    public CompletableFuture<Post> createPostAsync(Post post) {
+        if (post.getUserId() == null) {
+            return CompletableFuture.failedFuture(new InvalidRequestException("Cannot create post. userId is required."));
+        }
+        // Each attempt takes the owner's lock itself; a lock cannot be held across a scheduled retry.
+        return retryExecutor.callAsync(Circuit.POST_REPOSITORY, "createPost",
+                () -> userLocks.withUserShared(post.getUserId(), () -> saveWithOwner(post)),
+                RetryExecutor.giveUp("create post"));
+    }
+
+    private Post saveWithOwner(Post post) {
+        // The owner cannot be deleted between the check and the save.
         if (!userRepository.existsById(post.getUserId())) {
             throw new OperationFailedException("Cannot create post. User with id " + post.getUserId() + " does not exist.");
         }
+        // A create never writes at a client's id: that would overwrite or update a post, and
+        // version 0 would reserve the id, which only imports may do.
+        post.setId(null);
+        post.setVersion(null);
         return postRepository.save(post);
     }
 
     @Override
-    public Post updatePost(Long id, Post postUpdates) {
-        try {
-            Post existingPost = postRepository.findById(id)
-                    .orElseThrow(() -> new DataAccessException("Post with id " + id + " not found."));
+    public List<BatchItemResult<Post>> createPosts(List<Post> posts) {
+        Batches.Save<Post> save = acceptPosts(posts);
+        if (!save.hasPending()) {
+            return save.attempt();
+        }
+        return retryExecutor.call(Circuit.POST_REPOSITORY, "createPosts", save::attempt, save::giveUp);
+    }
 
-            if (!userRepository.existsById(postUpdates.getUserId())) {
-                throw new OperationFailedException("Cannot update post. User with id " + postUpdates.getUserId() + " does not exist.");
+    @Override
+    public CompletableFuture<List<BatchItemResult<Post>>> createPostsAsync(List<Post> posts) {
+        Batches.Save<Post> save = acceptPosts(posts);
+        if (!save.hasPending()) {
+            return CompletableFuture.completedFuture(save.attempt());
+        }
+        return retryExecutor.callAsync(Circuit.POST_REPOSITORY, "createPosts", save::attempt, save::giveUp);
+    }
+
+    private Batches.Save<Post> acceptPosts(List<Post> posts) {
+        Batches.checkSize(posts);
+        List<BatchItemResult<Post>> results = new ArrayList<>(posts.size());
+        List<Post> accepted = new ArrayList<>(posts.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            if (post == null) {
+                results.add(BatchItemResult.failed(i, 400, "Item must not be null."));
+                continue;
+            }
+            if (post.getUserId() == null) {
+                results.add(BatchItemResult.failed(i, 400, "Cannot create post. userId is required."));
+                continue;
             }
+            // As for single creates, the repository assigns the id and the version.
+            post.setId(null);
+            post.setVersion(null);
+            accepted.add(post);
+            acceptedIndexes.add(i);
+            results.add(null);
+        }
+        return new Batches.Save<>(accepted, acceptedIndexes, results, this::saveAllWithOwners);
+    }
+
+    /**
+     * Saves posts under their owners' locks, taken for this attempt only, so no owner can be
+     * deleted between its check and the save. Posts whose owner does not exist are rejected.
+     */
+    private List<Post> saveAllWithOwners(List<Post> posts) {
+        long[] ownerIds = posts.stream().mapToLong(Post::getUserId).toArray();
+        return userLocks.withUsersShared(ownerIds, () -> {
+            // Each distinct owner is looked up once, however many rows reference it.
+            Map<Long, Boolean> ownerExists = new HashMap<>();
+            RuntimeException[] failures = new RuntimeException[posts.size()];
+            List<Post> owned = new ArrayList<>(posts.size());
+            List<Integer> ownedIndexes = new ArrayList<>(posts.size());
+            for (int i = 0; i < posts.size(); i++) {
+                Post post = posts.get(i);
+                if (ownerExists.computeIfAbsent(post.getUserId(), userRepository::existsById)) {
+                    owned.add(post);
+                    ownedIndexes.add(i);
+                } else {
+                    failures[i] = Batches.rejected(422, ownerMissing(post));
+                }
+            }
+            if (owned.size() == posts.size()) {
+                return postRepository.saveAll(posts);
+            }
+            Object[] saved = new Object[posts.size()];
+            try {
+                List<Post> ownedSaved = owned.isEmpty() ? List.of() : postRepository.saveAll(owned);
+                for (int i = 0; i < ownedSaved.size(); i++) {
+                    saved[ownedIndexes.get(i)] = ownedSaved.get(i);
+                }
+            } catch (PartialBatchException partial) {
+                for (int i = 0; i < owned.size(); i++) {
+                    saved[ownedIndexes.get(i)] = partial.getSaved().get(i);
+                    failures[ownedIndexes.get(i)] = partial.getFailures().get(i);
+                }
+            }
+            throw new PartialBatchException(saved, failures);
+        });
+    }
 
-            existingPost.setTitle(postUpdates.getTitle());
-            existingPost.setContent(postUpdates.getContent());
-            existingPost.setUserId(postUpdates.getUserId());
+    private static String ownerMissing(Post post) {
+        return "Cannot create post. User with id " + post.getUserId() + " does not exist.";
+    }
 
-            return postRepository.save(existingPost);
-        } catch (DataAccessException e) {
-            throw new ResourceNotFoundException(e.getMessage());
+    @Override
+    public Post updatePost(Long id, Post postUpdates) {
+        if (postUpdates.getUserId() == null) {
+            throw new InvalidRequestException("Cannot update post. userId is required.");
+        }
+        return retryExecutor.call(Circuit.POST_REPOSITORY, "updatePost",
+                () -> userLocks.withUserShared(postUpdates.getUserId(), () -> saveUpdate(id, postUpdates)),
+                RetryExecutor.giveUp("update post"));
+    }
+
+    @Override
+    public CompletableFuture<Post> updatePostAsync(Long id, Post postUpdates) {
+        if (postUpdates.getUserId() == null) {
+            return CompletableFuture.failedFuture(new InvalidRequestException("Cannot update post. userId is required."));
+        }
+        return retryExecutor.callAsync(Circuit.POST_REPOSITORY, "updatePost",
+                () -> userLocks.withUserShared(postUpdates.getUserId(), () -> saveUpdate(id, postUpdates)),
+                RetryExecutor.giveUp("update post"));
+    }
+
+    private Post saveUpdate(Long id, Post postUpdates) {
+        Post existingPost = getPostById(id);
+
+        if (!userRepository.existsById(postUpdates.getUserId())) {
+            throw new OperationFailedException("Cannot update post. User with id " + postUpdates.getUserId() + " does not exist.");
         }
+
+        // Stored posts are immutable snapshots: save a new one, conditional on the version
+        // the caller sent or, failing that, the version just read.
+        Post updatedPost = new Post();
+        updatedPost.setId(existingPost.getId());
+        updatedPost.setTitle(postUpdates.getTitle());
+        updatedPost.setContent(postUpdates.getContent());
+        updatedPost.setUserId(postUpdates.getUserId());
+        updatedPost.setVersion(postUpdates.getVersion() != null ? postUpdates.getVersion() : existingPost.getVersion());
+        return postRepository.save(updatedPost);
     }
 
     @Override
     public void deletePost(Long id) {
-        try {
-            postRepository.deleteById(id);
-        } catch (DataAccessException e) {
-            throw new ResourceNotFoundException(e.getMessage());
+        boolean deleted = retryExecutor.call(Circuit.POST_REPOSITORY, "deletePost",
+                () -> postRepository.deleteById(id), RetryExecutor.giveUp("delete post"));
+        if (!deleted) {
+            throw postNotFound(id);
         }
     }
+
+    @Override
+    public CompletableFuture<Void> deletePostAsync(Long id) {
+        return retryExecutor.callAsync(Circuit.POST_REPOSITORY, "deletePost",
+                        () -> postRepository.deleteById(id), RetryExecutor.giveUp("delete post"))
+                .thenCompose(deleted -> deleted ? CompletableFuture.<Void>completedFuture(null)
+                        : CompletableFuture.failedFuture(postNotFound(id)));
+    }
+
+    private static ResourceNotFoundException postNotFound(Long id) {
+        return new ResourceNotFoundException("Post with id " + id + " not found.");
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.userpostapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped read-write locks that keep posts and their owners consistent.
+ *
+ * <p>Writing a post for a user holds that user's read lock from the owner check until the post
+ * is saved; deleting a user holds its write lock while its posts and then the user are removed. So a
+ * delete waits for in-flight post writes, and fences new ones until the cascade is done. Users
+ * map onto a fixed number of stripes: writes for different users only meet on a stripe when
+ * their ids collide, and then share it as readers.
+ *
+ * <p>Callers take the locks inside each attempt of a retried write, never around the retries,
+ * so no thread holds a stripe while it waits out a backoff.
+ */
+@Component
+public class UserLocks {
+
+    private final ReentrantReadWriteLock[] stripes;
+
+    public UserLocks(@Value("${app.user-locks.stripes:1024}") int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount) - 1) << 1;
+        stripes = new ReentrantReadWriteLock[Math.max(1, count)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /** Runs {@code action} while no delete of {@code userId} can start or be in progress. */
+    public <T> T withUserShared(long userId, Supplier<T> action) {
+        Lock lock = stripes[stripe(userId)].readLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #withUserShared} for several users at once. Stripes are locked in index order,
+     * so two such calls can never wait on each other in a cycle.
+     */
+    public <T> T withUsersShared(long[] userIds, Supplier<T> action) {
+        int[] indexes = Arrays.stream(userIds).mapToInt(this::stripe).sorted().distinct().toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].readLock().lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].readLock().unlock();
+            }
+        }
+    }
+
+    /** Runs {@code action} while no post write for {@code userId} is in progress. */
+    public <T> T withUserExclusive(long userId, Supplier<T> action) {
+        Lock lock = stripes[stripe(userId)].writeLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (stripes.length - 1);
+    }
+}
@@ -1,12 +1,27 @@
 package com.example.userpostapi.service;
 
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
 import com.example.userpostapi.model.User;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface UserService {
     User getUserById(Long id);
+    CompletableFuture<User> getUserByIdAsync(Long id);
     List<User> getAllUsers();
+    CursorPage<User> getUsersPage(String after, int limit);
+    Stream<User> streamAllUsers();
+    /** The user with this email as a list of zero or one, matching how {@code GET /users?email=} filters. */
+    List<User> getUsersByEmail(String email);
     User createUser(User user);
+    /** Like {@link #createUser}, but retries by scheduling the next attempt instead of sleeping. */
+    CompletableFuture<User> createUserAsync(User user);
+    List<BatchItemResult<User>> createUsers(List<User> users);
+    CompletableFuture<List<BatchItemResult<User>>> createUsersAsync(List<User> users);
     User updateUser(Long id, User user);
+    CompletableFuture<User> updateUserAsync(Long id, User user);
     void deleteUser(Long id);
+    CompletableFuture<Void> deleteUserAsync(Long id);
 }
@@ -1,34 +1,57 @@
 package com.example.userpostapi.service;
 
 import com.example.userpostapi.exception.*;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
 import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
 import com.example.userpostapi.repository.UserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import com.example.userpostapi.resilience.RetryExecutor.Circuit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService {
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
     private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final UserLocks userLocks;
+    private final RetryExecutor retryExecutor;
+    private final Executor serviceExecutor;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, PostRepository postRepository, UserLocks userLocks,
+                           RetryExecutor retryExecutor, @Qualifier("serviceExecutor") Executor serviceExecutor) {
         this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.userLocks = userLocks;
+        this.retryExecutor = retryExecutor;
+        this.serviceExecutor = serviceExecutor;
     }
 
     @Override
     public User getUserById(Long id) {
-        try {
-            return userRepository.findById(id)
-                    .orElseThrow(() -> new DataAccessException("User with id " + id + " not found."));
-        } catch (DataAccessException e) {
-            throw new ResourceNotFoundException(e.getMessage());
+        User user = userRepository.findById(id).orElse(null);
+        if (user == null) {
+            throw userNotFound(id);
         }
+        return user;
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByIdAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> getUserById(id), serviceExecutor);
     }
 
     @Override
@@ -37,37 +60,154 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Retryable(value = {TransientDataAccessException.class}, maxAttempts = 3, backoff = @Backoff(delay = 100))
+    public Stream<User> streamAllUsers() {
+        return userRepository.streamAll();
+    }
+
+    @Override
+    public CursorPage<User> getUsersPage(String after, int limit) {
+        int pageSize = PageCursors.checkLimit(limit);
+        List<User> slice = userRepository.findPage(PageCursors.decode(after), pageSize + 1);
+        return PageCursors.toPage(slice, pageSize, User::getId);
+    }
+
+    @Override
+    public List<User> getUsersByEmail(String email) {
+        if (UserRepository.normalizeEmail(email) == null) {
+            throw new InvalidRequestException("Email must not be empty.");
+        }
+        return userRepository.findByEmail(email).map(List::of).orElse(List.of());
+    }
+
+    @Override
     public User createUser(User user) {
+        return retryExecutor.call(Circuit.USER_REPOSITORY, "createUser", () -> saveUser(user),
+                failure -> recoverFromCreateUser(failure, user));
+    }
+
+    @Override
+    public CompletableFuture<User> createUserAsync(User user) {
+        return retryExecutor.callAsync(Circuit.USER_REPOSITORY, "createUser", () -> saveUser(user),
+                failure -> recoverFromCreateUser(failure, user));
+    }
+
+    private User saveUser(User user) {
         log.info("Attempting to save user...");
+        // A create never writes at a client's id: that would overwrite or update a user, and
+        // version 0 would reserve the id, which only imports may do.
+        user.setId(null);
+        user.setVersion(null);
         return userRepository.save(user);
     }
 
-    @Recover
     public User recoverFromCreateUser(TransientDataAccessException e, User user) {
         log.error("All retries failed for creating user '{}'. Reason: {}", user.getName(), e.getMessage());
-        throw new OperationFailedException("Service is currently unable to create user. Please try again later.");
+        throw RetryExecutor.failed("create user", e);
     }
 
     @Override
-    public User updateUser(Long id, User userUpdates) {
-        try {
-            User existingUser = userRepository.findById(id)
-                    .orElseThrow(() -> new DataAccessException("User with id " + id + " not found."));
-            existingUser.setName(userUpdates.getName());
-            existingUser.setEmail(userUpdates.getEmail());
-            return userRepository.save(existingUser);
-        } catch (DataAccessException e) {
-            throw new ResourceNotFoundException(e.getMessage());
+    public List<BatchItemResult<User>> createUsers(List<User> users) {
+        Batches.Save<User> save = acceptUsers(users);
+        if (!save.hasPending()) {
+            return save.attempt();
         }
+        return retryExecutor.call(Circuit.USER_REPOSITORY, "createUsers", save::attempt, save::giveUp);
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<User>>> createUsersAsync(List<User> users) {
+        Batches.Save<User> save = acceptUsers(users);
+        if (!save.hasPending()) {
+            return CompletableFuture.completedFuture(save.attempt());
+        }
+        return retryExecutor.callAsync(Circuit.USER_REPOSITORY, "createUsers", save::attempt, save::giveUp);
+    }
+
+    private Batches.Save<User> acceptUsers(List<User> users) {
+        Batches.checkSize(users);
+        // Taken emails are reported per item, including those a concurrent create claims first.
+        Set<String> batchEmails = new HashSet<>();
+        List<BatchItemResult<User>> results = new ArrayList<>(users.size());
+        List<User> accepted = new ArrayList<>(users.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user == null) {
+                results.add(BatchItemResult.failed(i, 400, "Item must not be null."));
+                continue;
+            }
+            String email = UserRepository.normalizeEmail(user.getEmail());
+            if (email != null && (!batchEmails.add(email) || userRepository.findByEmail(email).isPresent())) {
+                results.add(BatchItemResult.failed(i, 409, "Email " + user.getEmail().trim() + " is already used by another user."));
+                continue;
+            }
+            // As for single creates, the repository assigns the id and the version.
+            user.setId(null);
+            user.setVersion(null);
+            accepted.add(user);
+            acceptedIndexes.add(i);
+            results.add(null);
+        }
+        return new Batches.Save<>(accepted, acceptedIndexes, results, userRepository::saveAll);
+    }
+
+    @Override
+    public User updateUser(Long id, User userUpdates) {
+        return retryExecutor.call(Circuit.USER_REPOSITORY, "updateUser",
+                () -> saveUpdate(id, userUpdates), RetryExecutor.giveUp("update user"));
+    }
+
+    @Override
+    public CompletableFuture<User> updateUserAsync(Long id, User userUpdates) {
+        return retryExecutor.callAsync(Circuit.USER_REPOSITORY, "updateUser",
+                () -> saveUpdate(id, userUpdates), RetryExecutor.giveUp("update user"));
+    }
+
+    private User saveUpdate(Long id, User userUpdates) {
+        User existingUser = getUserById(id);
+        // Stored users are immutable snapshots: save a new one, conditional on the version
+        // the caller sent or, failing that, the version just read.
+        User updatedUser = new User();
+        updatedUser.setId(existingUser.getId());
+        updatedUser.setName(userUpdates.getName());
+        updatedUser.setEmail(userUpdates.getEmail());
+        updatedUser.setVersion(userUpdates.getVersion() != null ? userUpdates.getVersion() : existingUser.getVersion());
+        return userRepository.save(updatedUser);
     }
 
     @Override
     public void deleteUser(Long id) {
-        try {
-            userRepository.deleteById(id);
-        } catch (DataAccessException e) {
-            throw new ResourceNotFoundException(e.getMessage());
+        boolean deleted = retryExecutor.call(Circuit.USER_REPOSITORY, "deleteUser",
+                () -> deleteWithPosts(id), RetryExecutor.giveUp("delete user"));
+        if (!deleted) {
+            throw userNotFound(id);
         }
     }
+
+    @Override
+    public CompletableFuture<Void> deleteUserAsync(Long id) {
+        return retryExecutor.callAsync(Circuit.USER_REPOSITORY, "deleteUser",
+                        () -> deleteWithPosts(id), RetryExecutor.giveUp("delete user"))
+                .thenCompose(deleted -> deleted ? CompletableFuture.<Void>completedFuture(null)
+                        : CompletableFuture.failedFuture(userNotFound(id)));
+    }
+
+    /**
+     * One attempt of a delete: the user's posts, then the user, under the user's lock so no post
+     * can be added in between. A failed attempt leaves the user in place, so the retry deletes
+     * any posts written since and tries again; no user is left gone with its posts behind.
+     */
+    private boolean deleteWithPosts(Long id) {
+        return userLocks.withUserExclusive(id, () -> {
+            if (!userRepository.existsById(id)) {
+                return false;
+            }
+            postRepository.deleteByUserId(id);
+            return userRepository.deleteById(id);
+        });
+    }
+
+    private static ResourceNotFoundException userNotFound(Long id) {
+        return new ResourceNotFoundException("User with id " + id + " not found.");
+    }
 }
@@ -0,0 +1,126 @@
+package com.example.userpostapi.admission;
+
+import com.example.userpostapi.admission.AdmissionControlInterceptor.RequestClass;
+import com.example.userpostapi.controller.UserController;
+import com.example.userpostapi.exception.RestExceptionHandler;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.service.PostService;
+import com.example.userpostapi.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AdmissionControlTest {
+
+    private AdmissionBudget reads;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        reads = budget("read", 1, 2, meterRegistry);
+        AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(Map.of(
+                RequestClass.READ, reads,
+                RequestClass.QUERY, budget("query", 4, 10, meterRegistry),
+                RequestClass.WRITE, budget("write", 4, 10, meterRegistry)), "X-Client-Id", 3);
+
+        UserService userService = Mockito.mock(UserService.class);
+        User user = new User();
+        user.setId(1L);
+        user.setName("alice");
+        user.setVersion(1L);
+        when(userService.getUserById(anyLong())).thenReturn(user);
+        when(userService.createUserAsync(any(User.class))).thenReturn(CompletableFuture.completedFuture(user));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new UserController(userService, Mockito.mock(PostService.class), new ObjectMapper()))
+                .addInterceptors(interceptor)
+                .setControllerAdvice(new RestExceptionHandler(meterRegistry))
+                .build();
+    }
+
+    private static AdmissionBudget budget(String name, int limit, double burst, SimpleMeterRegistry meterRegistry) {
+        return new AdmissionBudget(name,
+                new AdaptiveConcurrencyLimit(limit, 1, 100, 1, TimeUnit.SECONDS),
+                new ClientRateLimiter(0.001, burst, 100),
+                meterRegistry);
+    }
+
+    @Test
+    @DisplayName("A client over its read rate should get 429 with Retry-After, without touching other budgets or clients")
+    void whenClientExceedsRate_shouldRejectWith429() throws Exception {
+        mockMvc.perform(get("/users/1").header("X-Client-Id", "a")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/1").header("X-Client-Id", "a")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/1").header("X-Client-Id", "a"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.error").value("Rate limit exceeded for read, try again later."));
+        mockMvc.perform(get("/users/1").header("X-Client-Id", "b")).andExpect(status().isOk());
+        MvcResult created = mockMvc.perform(post("/users").header("X-Client-Id", "a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"alice\",\"email\":\"alice@example.com\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(created)).andExpect(status().isCreated());
+        assertThat(reads.rateLimited.count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("A request arriving while its class is at the concurrency limit should get 503 with Retry-After")
+    void whenAtConcurrencyLimit_shouldShedWith503() throws Exception {
+        assertThat(reads.concurrency.tryAcquire()).isTrue();
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+
+        reads.concurrency.release(0);
+        mockMvc.perform(get("/users/1")).andExpect(status().isOk());
+        assertThat(reads.concurrency.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("The concurrency limit should back off on slow completions and grow while in use and fast")
+    void whenLatencyChanges_shouldAdaptLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 20, 10, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(limit.limit()).isEqualTo(9);
+
+        for (int i = 0; i < 100; i++) {
+            while (limit.tryAcquire()) {
+                // Fill the limit so it counts as in use.
+            }
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertThat(limit.limit()).isGreaterThan(9).isLessThanOrEqualTo(20);
+    }
+}
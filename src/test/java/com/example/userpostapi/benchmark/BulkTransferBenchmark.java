@@ -0,0 +1,102 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.BulkTransferResult;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.persistence.BulkTransfer;
+import com.example.userpostapi.persistence.DurabilityManager;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export of a populated store and import into an empty one. One in ten entities is a
+ * user, the rest are posts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BulkTransferBenchmark {
+
+    @Param({"1000000"})
+    public int entities;
+
+    private Path directory;
+    private Path file;
+    private BulkTransfer source;
+    private BulkTransfer target;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        directory = Files.createTempDirectory("bulk-benchmark");
+        file = directory.resolve("export.bin");
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        for (int i = 0; i < entities; i++) {
+            if (i % 10 == 0) {
+                User user = new User();
+                user.setName("user" + i);
+                user.setEmail("user" + i + "@example.com");
+                users.save(user);
+            } else {
+                Post post = new Post();
+                post.setTitle("title " + i);
+                post.setContent("content of post " + i + " with a few more words to look like a real body");
+                post.setUserId((long) (i / 10 + 1));
+                posts.save(post);
+            }
+        }
+        source = transfer(users, posts);
+        source.exportTo(file);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTarget() {
+        target = transfer(new InMemoryUserRepository(), new InMemoryPostRepository());
+    }
+
+    @Benchmark
+    public BulkTransferResult export() throws IOException {
+        return source.exportTo(directory.resolve("again.bin"));
+    }
+
+    @Benchmark
+    public BulkTransferResult importIntoEmptyStore() throws IOException {
+        return target.importFrom(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private BulkTransfer transfer(InMemoryUserRepository users, InMemoryPostRepository posts) {
+        return new BulkTransfer(users, posts, new StaticListableBeanFactory().getBeanProvider(DurabilityManager.class),
+                directory.toString(), 0);
+    }
+}
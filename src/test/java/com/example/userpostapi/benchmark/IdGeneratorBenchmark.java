@@ -0,0 +1,101 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.IdGenerator;
+import com.example.userpostapi.repository.IdGeneratorConfig;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the id generators, alone and behind {@link InMemoryUserRepository#save}, as
+ * the number of threads grows. Run {@link #main} (e.g. with
+ * {@code -Dbenchmark.main=com.example.userpostapi.benchmark.IdGeneratorBenchmark}) to sweep
+ * thread counts from 1 to twice the core count and print one row per count. JMH's result
+ * options ({@code -Djmh.args="-rf json -rff target/id-generator.json"}) write the runs of all
+ * thread counts to one file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"sequence", "block", "snowflake"})
+    public String generator;
+
+    private IdGenerator idGenerator;
+    private InMemoryUserRepository userRepository;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        idGenerator = IdGeneratorConfig.create(generator, 1024, 1);
+        // Fresh per iteration so the store does not grow across the whole run.
+        userRepository = new InMemoryUserRepository(IdGeneratorConfig.create(generator, 1024, 1));
+    }
+
+    @Benchmark
+    public long nextId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    public User insert() {
+        User user = new User();
+        user.setName("user");
+        return userRepository.save(user);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        List<RunResult> allResults = new ArrayList<>();
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+        StringBuilder table = new StringBuilder(String.format("%-8s %-10s %-10s %12s%n",
+                "threads", "benchmark", "generator", "ops/us"));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(IdGeneratorBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            allResults.addAll(results);
+            for (RunResult result : results) {
+                String label = result.getParams().getBenchmark();
+                table.append(String.format("%-8d %-10s %-10s %12.2f%n", threads,
+                        label.substring(label.lastIndexOf('.') + 1),
+                        result.getParams().getParam("generator"),
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+        System.out.print(table);
+        if (commandLine.getResult().hasValue() || commandLine.getResultFormat().hasValue()) {
+            ResultFormatType format = commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+            String file = commandLine.getResult().orElse("jmh-result." + format.toString().toLowerCase());
+            ResultFormatFactory.getInstance(format, file).writeOut(allResults);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.exception.TransientDataAccessException;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.RepositoryListener;
+import com.example.userpostapi.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for a slow backing store: every data access sleeps for a fixed latency before
+ * reaching the wrapped repository, and saves fail transiently with the given probability.
+ */
+class LatencyInjectingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final long latencyMillis;
+    private final double transientFailureRate;
+
+    LatencyInjectingUserRepository(UserRepository delegate, long latencyMillis, double transientFailureRate) {
+        this.delegate = delegate;
+        this.latencyMillis = latencyMillis;
+        this.transientFailureRate = transientFailureRate;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        pause();
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        pause();
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        pause();
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        pause();
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        pause();
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public User save(User user) {
+        pause();
+        if (ThreadLocalRandom.current().nextDouble() < transientFailureRate) {
+            throw new TransientDataAccessException("Injected transient failure");
+        }
+        return delegate.save(user);
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        pause();
+        return delegate.saveAll(users);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        pause();
+        return delegate.deleteById(id);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void addListener(RepositoryListener<User> listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void restore(User user) {
+        delegate.restore(user);
+    }
+
+    @Override
+    public void restoreDeletion(Long id) {
+        delegate.restoreDeletion(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        pause();
+        return delegate.existsById(id);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
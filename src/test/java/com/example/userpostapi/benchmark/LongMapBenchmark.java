@@ -0,0 +1,91 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.repository.ConcurrentLongHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the repositories' primary store: {@code ConcurrentHashMap<Long, V>} (the
+ * previous implementation) against {@link ConcurrentLongHashMap}. Keys are drawn at random
+ * from the populated id range, as point reads by id are. Override {@code -t} to scale threads.
+ *
+ * <p>Heap footprint of the two is compared by {@link LongMapFootprint}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LongMapBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"ConcurrentHashMap", "ConcurrentLongHashMap"})
+    public String impl;
+
+    private Store store;
+
+    interface Store {
+        Object get(long key);
+        void put(long key, Object value);
+    }
+
+    @Setup(Level.Trial)
+    public void populate() {
+        store = create(impl);
+        for (long id = 1; id <= size; id++) {
+            store.put(id, new Object());
+        }
+    }
+
+    static Store create(String impl) {
+        if ("ConcurrentHashMap".equals(impl)) {
+            Map<Long, Object> map = new ConcurrentHashMap<>();
+            return new Store() {
+                public Object get(long key) { return map.get(key); }
+                public void put(long key, Object value) { map.put(key, value); }
+            };
+        }
+        ConcurrentLongHashMap<Object> map = new ConcurrentLongHashMap<>();
+        return new Store() {
+            public Object get(long key) { return map.get(key); }
+            public void put(long key, Object value) { map.put(key, value); }
+        };
+    }
+
+    @Benchmark
+    public Object get() {
+        return store.get(ThreadLocalRandom.current().nextLong(1, size + 1));
+    }
+
+    /** 90% reads, 10% overwrites of existing ids, like a read-mostly API. */
+    @Benchmark
+    public Object readMostly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long key = random.nextLong(1, size + 1);
+        if (random.nextInt(10) == 0) {
+            store.put(key, Boolean.TRUE);
+            return null;
+        }
+        return store.get(key);
+    }
+}
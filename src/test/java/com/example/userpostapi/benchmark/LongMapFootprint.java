@@ -0,0 +1,45 @@
+package com.example.userpostapi.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Retained heap per entry of the repositories' primary store, old ({@code ConcurrentHashMap<Long, V>})
+ * against new ({@code ConcurrentLongHashMap}). Values are one shared object, so only the map's
+ * own overhead is measured.
+ *
+ * <p>Run with: {@code mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark.main=com.example.userpostapi.benchmark.LongMapFootprint -Djmh.args=1000000}
+ */
+public final class LongMapFootprint {
+
+    private LongMapFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (String impl : new String[] {"ConcurrentHashMap", "ConcurrentLongHashMap"}) {
+            long before = usedHeap();
+            LongMapBenchmark.Store store = LongMapBenchmark.create(impl);
+            Object value = new Object();
+            for (long id = 1; id <= entries; id++) {
+                store.put(id, value);
+            }
+            long retained = usedHeap() - before;
+            System.out.printf("%-22s %,d entries: %,d bytes retained, %.1f bytes/entry%n",
+                    impl, entries, retained, (double) retained / entries);
+            // Keep the map reachable until it has been measured.
+            if (store.get(1) != value) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.controller.UserController;
+import com.example.userpostapi.exception.RestExceptionHandler;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import com.example.userpostapi.service.PostServiceImpl;
+import com.example.userpostapi.service.UserLocks;
+import com.example.userpostapi.service.UserServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cost of a request for an id that does not exist: the service calls that answer 404, and the
+ * whole round trip through MockMvc and {@code RestExceptionHandler} for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotFoundBenchmark {
+
+    private static final long MISSING_ID = 1_000_000L;
+
+    private UserServiceImpl userService;
+    private PostServiceImpl postService;
+    private Post update;
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        InMemoryPostRepository postRepository = new InMemoryPostRepository();
+        User user = new User();
+        user.setName("owner");
+        User owner = userRepository.save(user);
+        UserLocks userLocks = new UserLocks(1024);
+        RetryExecutor retryExecutor = new RetryExecutor(Runnable::run, new SimpleMeterRegistry(),
+                3, Duration.ofMillis(50), Duration.ofSeconds(1), 0.1, 10, 10, Duration.ofSeconds(5));
+        userService = new UserServiceImpl(userRepository, postRepository, userLocks, retryExecutor, Runnable::run);
+        postService = new PostServiceImpl(postRepository, userRepository, userLocks, retryExecutor, Runnable::run);
+        update = new Post();
+        update.setTitle("title");
+        update.setUserId(owner.getId());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new UserController(userService, postService, new ObjectMapper()))
+                .setControllerAdvice(new RestExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+    }
+
+    @Benchmark
+    public Object getUserByIdMiss() {
+        try {
+            return userService.getUserById(MISSING_ID);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object getPostByIdMiss() {
+        try {
+            return postService.getPostById(MISSING_ID);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object updatePostMiss() {
+        try {
+            return postService.updatePost(MISSING_ID, update);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object deletePostMiss() {
+        try {
+            postService.deletePost(MISSING_ID);
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object httpGetUserMiss() throws Exception {
+        return mockMvc.perform(get("/users/" + MISSING_ID)).andReturn();
+    }
+}
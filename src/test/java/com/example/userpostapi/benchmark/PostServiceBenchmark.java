@@ -0,0 +1,94 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import com.example.userpostapi.service.PostServiceImpl;
+import com.example.userpostapi.service.UserLocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PostServiceImpl#createPost}, including its owner existence check, against the batch
+ * path that checks each distinct owner once. Scores are per post in both cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int BATCH = 100;
+
+    private PostServiceImpl postService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // Fresh per iteration so the post store does not grow across the whole run.
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            userRepository.save(user);
+        }
+        RetryExecutor retryExecutor = new RetryExecutor(Runnable::run, new SimpleMeterRegistry(),
+                3, Duration.ofMillis(50), Duration.ofSeconds(1), 0.1, 10, 10, Duration.ofSeconds(5));
+        postService = new PostServiceImpl(new InMemoryPostRepository(), userRepository, new UserLocks(1024),
+                retryExecutor, Runnable::run);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Post createPost() {
+        return postService.createPost(post());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Post createPostContended() {
+        return postService.createPost(post());
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH)
+    public List<BatchItemResult<Post>> createPostsBatch() {
+        List<Post> posts = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            posts.add(post());
+        }
+        return postService.createPosts(posts);
+    }
+
+    private static Post post() {
+        Post post = new Post();
+        post.setTitle("A benchmark post");
+        post.setContent("Some content that is about as long as a short post body tends to be.");
+        post.setUserId(ThreadLocalRandom.current().nextLong(USERS) + 1);
+        return post;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.persistence.DurabilityManager;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery time: load a snapshot holding 90% of the entities, then replay a log tail
+ * with the remaining 10%. One in ten entities is a user, the rest are posts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class RecoveryBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int entities;
+
+    private Path directory;
+    private DurabilityManager recovered;
+
+    @Setup(Level.Trial)
+    public void writeDataSet() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        DurabilityManager writer = new DurabilityManager(users, posts, directory.toString(), false, Duration.ofDays(1));
+        writer.start();
+        int snapshotAt = entities / 10 * 9;
+        for (int i = 0; i < entities; i++) {
+            if (i == snapshotAt) {
+                writer.snapshot();
+            }
+            if (i % 10 == 0) {
+                User user = new User();
+                user.setName("user" + i);
+                user.setEmail("user" + i + "@example.com");
+                users.save(user);
+            } else {
+                Post post = new Post();
+                post.setTitle("title " + i);
+                post.setContent("content of post " + i + " with a few more words to look like a real body");
+                post.setUserId((long) (i / 10 + 1));
+                posts.save(post);
+            }
+        }
+        writer.stop();
+    }
+
+    @Benchmark
+    public DurabilityManager recover() throws IOException {
+        recovered = new DurabilityManager(new InMemoryUserRepository(), new InMemoryPostRepository(),
+                directory.toString(), false, Duration.ofDays(1));
+        recovered.start();
+        return recovered;
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopRecovered() throws IOException {
+        if (recovered != null) {
+            recovered.stop();
+            recovered = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDataSet() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point reads, updates and full scans of the in-memory repositories at several store sizes.
+ * Point operations run single-threaded and with 8 threads; ids are drawn at random from the
+ * populated range, and updates overwrite existing entities so the store size stays fixed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private InMemoryUserRepository userRepository;
+    private InMemoryPostRepository postRepository;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        userRepository = new InMemoryUserRepository();
+        postRepository = new InMemoryPostRepository();
+        int users = Math.max(1, size / 10);
+        for (int i = 0; i < users; i++) {
+            userRepository.save(user("user" + i));
+        }
+        for (int i = 0; i < size; i++) {
+            postRepository.save(post(i % users + 1L));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<Post> findPostById() {
+        return postRepository.findById(randomPostId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<Post> findPostByIdContended() {
+        return postRepository.findById(randomPostId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<User> findUserById() {
+        return userRepository.findById(ThreadLocalRandom.current().nextLong(Math.max(1, size / 10)) + 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Post savePost() {
+        Post post = post(1L);
+        post.setId(randomPostId());
+        return postRepository.save(post);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Post savePostContended() {
+        Post post = post(1L);
+        post.setId(randomPostId());
+        return postRepository.save(post);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Post> findAllPosts() {
+        return postRepository.findAll();
+    }
+
+    private long randomPostId() {
+        return ThreadLocalRandom.current().nextLong(size) + 1;
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        return user;
+    }
+
+    private static Post post(long userId) {
+        Post post = new Post();
+        post.setTitle("A benchmark post");
+        post.setContent("Some content that is about as long as a short post body tends to be.");
+        post.setUserId(userId);
+        return post;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the full-text index at several corpus sizes, against the linear scan with
+ * {@code String.contains} it replaces. Post text is drawn from a 5,000-word vocabulary with a
+ * Zipf-like skew, so {@code common} matches a large share of the corpus and {@code rare} a few
+ * posts; {@code mixed} combines them, as a typical two-word query does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 5_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"rare", "common", "mixed"})
+    public String query;
+
+    private InMemoryPostRepository postRepository;
+    private String queryText;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        postRepository = new InMemoryPostRepository();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Post post = new Post();
+            post.setTitle(words(random, 6));
+            post.setContent(words(random, 40));
+            post.setUserId(i % 1000 + 1L);
+            postRepository.save(post);
+        }
+        switch (query) {
+            case "rare" -> queryText = word(VOCABULARY - 1);
+            case "common" -> queryText = word(0);
+            default -> queryText = word(0) + " " + word(VOCABULARY - 1);
+        }
+    }
+
+    @Benchmark
+    public List<Post> indexedTop10() {
+        return postRepository.search(queryText, 10);
+    }
+
+    @Benchmark
+    public List<Post> linearScan() {
+        String[] terms = queryText.split(" ");
+        List<Post> matches = new ArrayList<>();
+        for (Post post : postRepository.findAll()) {
+            for (String term : terms) {
+                if (post.getTitle().contains(term) || post.getContent().contains(term)) {
+                    matches.add(post);
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Squaring a uniform draw skews picks towards the low ranks.
+            double u = random.nextDouble();
+            text.append(i == 0 ? "" : " ").append(word((int) (u * u * VOCABULARY)));
+        }
+        return text.toString();
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.OffHeapPostRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson serialization of post lists as returned by the list endpoints, for posts served by
+ * the heap repository and by the off-heap one (which writes its stored UTF-8 directly), in each
+ * negotiable body format. {@code readPostList} is the client side of the same payload and
+ * {@code writePostListGzip} adds the response compression. Payload sizes, plain and gzipped,
+ * are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int posts;
+
+    @Param({"heap", "off-heap"})
+    public String storage;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private List<Post> page;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        InMemoryPostRepository repository = "off-heap".equals(storage)
+                ? new OffHeapPostRepository()
+                : new InMemoryPostRepository();
+        for (int i = 0; i < posts; i++) {
+            Post post = new Post();
+            post.setTitle("Post number " + i);
+            post.setContent("Some content that is about as long as a short post body tends to be, with ümlauts.");
+            post.setUserId(i % 10 + 1L);
+            repository.save(post);
+        }
+        page = repository.findPage(null, posts);
+        objectMapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+        try {
+            payload = objectMapper.writeValueAsBytes(page);
+            System.out.printf("%n%s, %d posts: %d bytes, %d gzipped%n", format, posts, payload.length, gzip(payload).length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public byte[] writePostList() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writePostListGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public List<Post> readPostList() throws IOException {
+        return objectMapper.readValue(payload, new TypeReference<>() { });
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
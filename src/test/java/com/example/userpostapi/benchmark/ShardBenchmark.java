@@ -0,0 +1,112 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.SequenceIdGenerator;
+import com.example.userpostapi.repository.ShardExecutor;
+import com.example.userpostapi.repository.ShardedPostRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The flat post repository ({@code shards=1}) against the sharded one: point reads, a user's
+ * posts, a page, a full scan and a bulk save. Scans and bulk saves only gain from shards with
+ * as many cores free as there are shards; point reads show the cost of the route lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardBenchmark {
+
+    private static final int POSTS = 200_000;
+    private static final int USERS = 20_000;
+    private static final int BATCH = 10_000;
+
+    @Param({"1", "4", "8"})
+    public int shards;
+
+    private ShardExecutor executor;
+    private PostRepository postRepository;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        executor = new ShardExecutor(shards);
+        postRepository = shards == 1
+                ? new InMemoryPostRepository()
+                : new ShardedPostRepository(shards, InMemoryPostRepository::new, new SequenceIdGenerator(), executor);
+        for (int first = 1; first <= POSTS; first += BATCH) {
+            postRepository.saveAll(batch(first, false));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        executor.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Optional<Post> findById() {
+        return postRepository.findById(ThreadLocalRandom.current().nextLong(POSTS) + 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public List<Post> findByUserId() {
+        return postRepository.findByUserId(ThreadLocalRandom.current().nextLong(USERS) + 1);
+    }
+
+    @Benchmark
+    public List<Post> findPage() {
+        return postRepository.findPage(ThreadLocalRandom.current().nextLong(POSTS - 100), 100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Post> findAll() {
+        return postRepository.findAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Post> saveAllOverwrite() {
+        return postRepository.saveAll(batch(ThreadLocalRandom.current().nextLong(POSTS - BATCH) + 1, true));
+    }
+
+    // Ids come from a sequence, so post id N is always owned by user (N - 1) % USERS + 1.
+    private static List<Post> batch(long firstId, boolean withIds) {
+        List<Post> posts = new ArrayList<>(BATCH);
+        for (long id = firstId; id < firstId + BATCH; id++) {
+            Post post = new Post();
+            post.setTitle("A benchmark post");
+            post.setContent("Some content that is about as long as a short post body tends to be.");
+            post.setUserId((id - 1) % USERS + 1);
+            if (withIds) {
+                post.setId(id);
+            }
+            posts.add(post);
+        }
+        return posts;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.userpostapi.benchmark;
+
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import com.example.userpostapi.service.UserLocks;
+import com.example.userpostapi.service.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Load comparison of the thread models against a repository with injected latency (10 ms per
+ * call, 20% transient save failures). Not a JMH benchmark: each scenario pushes a fixed number
+ * of requests through at once and reports throughput and latency percentiles.
+ *
+ * <ul>
+ *   <li>reads on 200 platform threads (Tomcat's default pool) vs. one virtual thread per request;</li>
+ *   <li>creates with retries: {@link UserServiceImpl#createUser} on a 16-thread pool, which waits
+ *       out its backoff on the pool thread, vs. {@link UserServiceImpl#createUserAsync} on the same
+ *       pool, which schedules it.</li>
+ * </ul>
+ *
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec
+ * -Dbenchmark.main=com.example.userpostapi.benchmark.ThreadModelLoadComparison}. The virtual
+ * scenario is skipped below Java 21.
+ */
+public final class ThreadModelLoadComparison {
+
+    private static final int REQUESTS = 20_000;
+    private static final int CREATES = 2_000;
+    private static final long LATENCY_MILLIS = 10;
+
+    private ThreadModelLoadComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LatencyInjectingUserRepository repository =
+                new LatencyInjectingUserRepository(new InMemoryUserRepository(), LATENCY_MILLIS, 0.2);
+        for (int i = 0; i < 1_000; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            repository.restore(withId(user, i + 1L));
+        }
+
+        ExecutorService platformPool = Executors.newFixedThreadPool(200);
+        report("reads, 200 platform threads", run(REQUESTS, service(repository, platformPool),
+                (service, i) -> CompletableFuture.supplyAsync(() -> service.getUserById(i % 1_000 + 1L), platformPool)));
+        platformPool.shutdown();
+
+        if (JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            // What the application's serviceExecutor is with spring.threads.virtual.enabled=true.
+            SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("service-");
+            virtualThreads.setVirtualThreads(true);
+            report("reads, virtual threads", run(REQUESTS, service(repository, virtualThreads),
+                    (service, i) -> service.getUserByIdAsync(i % 1_000 + 1L)));
+            virtualThreads.close();
+        } else {
+            System.out.println("reads, virtual threads: skipped, needs Java 21 (running " + Runtime.version() + ")");
+        }
+
+        ExecutorService blockingPool = Executors.newFixedThreadPool(16);
+        report("creates, blocking backoff, 16 threads", run(CREATES, service(repository, blockingPool),
+                (service, i) -> CompletableFuture.supplyAsync(() -> service.createUser(newUser(i)), blockingPool)));
+        blockingPool.shutdown();
+
+        ExecutorService asyncPool = Executors.newFixedThreadPool(16);
+        report("creates, scheduled backoff, 16 threads", run(CREATES, service(repository, asyncPool),
+                (service, i) -> service.createUserAsync(newUser(i))));
+        asyncPool.shutdown();
+    }
+
+    private interface Request {
+        CompletableFuture<?> start(UserServiceImpl service, int index);
+    }
+
+    private static UserServiceImpl service(LatencyInjectingUserRepository repository, Executor executor) {
+        RetryExecutor retryExecutor = new RetryExecutor(executor, new SimpleMeterRegistry(),
+                3, Duration.ofMillis(50), Duration.ofSeconds(1), 0.1, 10, 10, Duration.ofSeconds(5));
+        return new UserServiceImpl(repository, new InMemoryPostRepository(), new UserLocks(1024), retryExecutor, executor);
+    }
+
+    private static long[] run(int requests, UserServiceImpl service, Request request) {
+        long[] latencies = new long[requests];
+        List<CompletableFuture<?>> pending = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            pending.add(request.start(service, i)
+                    .handle((result, failure) -> latencies[index] = System.nanoTime() - submitted));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        long elapsed = System.nanoTime() - start;
+        long[] result = Arrays.copyOf(latencies, requests + 1);
+        result[requests] = elapsed;
+        return result;
+    }
+
+    private static void report(String scenario, long[] run) {
+        int requests = run.length - 1;
+        long elapsed = run[requests];
+        long[] latencies = Arrays.copyOf(run, requests);
+        Arrays.sort(latencies);
+        Function<Double, Long> percentile = p -> TimeUnit.NANOSECONDS.toMillis(latencies[(int) Math.min(requests - 1, p * requests)]);
+        System.out.printf("%-42s %8.0f req/s   p50 %5d ms   p99 %5d ms%n", scenario,
+                requests / (elapsed / 1e9), percentile.apply(0.50), percentile.apply(0.99));
+    }
+
+    private static User newUser(int index) {
+        User user = new User();
+        user.setName("new" + index);
+        return user;
+    }
+
+    private static User withId(User user, long id) {
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.userpostapi.changes;
+
+import com.example.userpostapi.controller.ChangeController;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.persistence.DurabilityManager;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class ChangeFeedTest {
+
+    private InMemoryUserRepository userRepository;
+    private InMemoryPostRepository postRepository;
+    private ChangeFeed changeFeed;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        startFeed(new InMemoryUserRepository());
+    }
+
+    private void startFeed(InMemoryUserRepository users) {
+        userRepository = users;
+        postRepository = new InMemoryPostRepository();
+        changeFeed = new ChangeFeed(userRepository, postRepository,
+                new StaticListableBeanFactory().getBeanProvider(DurabilityManager.class),
+                4, 16, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        changeFeed.start();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ChangeController(changeFeed)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.stop();
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        return user;
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!response.getContentAsString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(response.getContentAsString()).contains(expected);
+    }
+
+    @Test
+    @DisplayName("A subscriber resuming from a sequence should get the missed changes, then live ones")
+    void whenResumingFromSequence_shouldReplayThenFollow() throws Exception {
+        User alice = userRepository.save(user("alice"));
+        userRepository.save(user("bob"));
+
+        MockHttpServletResponse response = mockMvc.perform(get("/changes").param("since", changeFeed.epoch() + "-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        Post post = new Post();
+        post.setTitle("hello");
+        post.setUserId(alice.getId());
+        postRepository.save(post);
+        userRepository.deleteById(alice.getId());
+
+        // Events are written a line at a time; wait for the last line of the last one.
+        awaitContent(response, "data:{\"sequence\":4,\"entity\":\"user\",\"type\":\"deleted\",\"id\":1}");
+        String stream = response.getContentAsString();
+        String id = "id:" + changeFeed.epoch() + "-";
+        assertThat(stream).doesNotContain(id + "1\n");
+        assertThat(stream).contains(id + "2\nevent:change\ndata:{\"sequence\":2,\"entity\":\"user\",\"type\":\"saved\",\"id\":2,\"version\":1,");
+        assertThat(stream.indexOf(id + "3")).isLessThan(stream.indexOf(id + "4"));
+        assertThat(stream).contains("\"entity\":\"post\",\"type\":\"saved\"");
+        assertThat(stream).contains("data:{\"sequence\":4,\"entity\":\"user\",\"type\":\"deleted\",\"id\":1}");
+    }
+
+    @Test
+    @DisplayName("A subscriber behind the buffer should get a reset event instead of a gap")
+    void whenSequenceOverwritten_shouldSendReset() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            userRepository.save(user("user" + i));
+        }
+
+        MockHttpServletResponse response = mockMvc.perform(get("/changes").header("Last-Event-ID", changeFeed.epoch() + "-2"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        awaitContent(response, "event:reset");
+        assertThat(response.getContentAsString()).doesNotContain("event:change");
+    }
+
+    @Test
+    @DisplayName("A write failed by a later listener should never reach subscribers")
+    void whenLaterListenerFailsWrite_shouldNotPublishIt() throws Exception {
+        userRepository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onSave(User saved) {
+                if ("rejected".equals(saved.getName())) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+
+            @Override
+            public void onDelete(Long id) {
+            }
+        });
+        MockHttpServletResponse response = mockMvc.perform(get("/changes"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        assertThatThrownBy(() -> userRepository.save(user("rejected"))).isInstanceOf(IllegalStateException.class);
+        userRepository.save(user("accepted"));
+
+        awaitContent(response, "\"name\":\"accepted\"");
+        assertThat(response.getContentAsString())
+                .doesNotContain("rejected")
+                .doesNotContain("id:" + changeFeed.epoch() + "-1\n")
+                .contains("id:" + changeFeed.epoch() + "-2\n");
+    }
+
+    @Test
+    @DisplayName("A write whose commit failed in an earlier listener should never reach subscribers")
+    void whenEarlierListenerFailsCommit_shouldNotPublishIt() throws Exception {
+        changeFeed.stop();
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        // Registered before the feed, like the write-ahead log.
+        users.addListener(new RepositoryListener<>() {
+            private final ThreadLocal<Boolean> unsynced = ThreadLocal.withInitial(() -> false);
+
+            @Override
+            public void onSave(User saved) {
+                unsynced.set("unsynced".equals(saved.getName()));
+            }
+
+            @Override
+            public void onDelete(Long id) {
+            }
+
+            @Override
+            public void afterCommit() {
+                if (unsynced.get()) {
+                    throw new IllegalStateException("fsync failed");
+                }
+            }
+        });
+        startFeed(users);
+        MockHttpServletResponse response = mockMvc.perform(get("/changes"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        assertThatThrownBy(() -> userRepository.save(user("unsynced"))).isInstanceOf(IllegalStateException.class);
+        userRepository.save(user("synced"));
+
+        awaitContent(response, "\"name\":\"synced\"");
+        assertThat(response.getContentAsString())
+                .doesNotContain("unsynced")
+                .doesNotContain("id:" + changeFeed.epoch() + "-1\n")
+                .contains("id:" + changeFeed.epoch() + "-2\n");
+    }
+
+    @Test
+    @DisplayName("A resume point from another epoch should get a reset, not the change that now has its number")
+    void whenResumingFromOtherEpoch_shouldSendReset() throws Exception {
+        userRepository.save(user("alice"));
+        userRepository.save(user("bob"));
+
+        MockHttpServletResponse response = mockMvc.perform(get("/changes").param("since", (changeFeed.epoch() ^ 1) + "-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        awaitContent(response, "event:reset");
+        assertThat(response.getContentAsString()).doesNotContain("event:change");
+    }
+}
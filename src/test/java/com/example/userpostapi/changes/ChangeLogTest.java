@@ -0,0 +1,38 @@
+package com.example.userpostapi.changes;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeLogTest {
+
+    @Test
+    @DisplayName("Events should be numbered in append order and readable by sequence")
+    void whenAppended_shouldBeReadableBySequence() {
+        ChangeLog changeLog = new ChangeLog(8);
+
+        changeLog.append("user", "saved", 1, 1L, null);
+        changeLog.append("post", "deleted", 7, null, null);
+
+        assertThat(changeLog.lastSequence()).isEqualTo(2);
+        assertThat(changeLog.read(1).getEntity()).isEqualTo("user");
+        assertThat(changeLog.read(2).getId()).isEqualTo(7);
+        assertThat(changeLog.read(3)).isNull();
+    }
+
+    @Test
+    @DisplayName("Old events should be overwritten once the buffer wraps around")
+    void whenBufferWraps_shouldDropOldestEvents() {
+        ChangeLog changeLog = new ChangeLog(4);
+
+        for (long id = 1; id <= 10; id++) {
+            changeLog.append("user", "saved", id, 1L, null);
+        }
+
+        assertThat(changeLog.firstAvailable()).isEqualTo(7);
+        assertThat(changeLog.read(6)).isNull();
+        assertThat(changeLog.read(7).getId()).isEqualTo(7);
+        assertThat(changeLog.read(10).getId()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.userpostapi.controller;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Binary formats and gzip through the real server, since MockMvc bypasses Tomcat's compression. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ContentNegotiationIntegrationTest {
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = "application/x-jackson-smile";
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    }
+
+    @Test
+    void whenBodiesAreCborAndSmile_shouldRoundTripAndCompressLargeLists() throws Exception {
+        CBORMapper cbor = new CBORMapper();
+        SmileMapper smile = new SmileMapper();
+
+        // Create a user with a CBOR body and read the CBOR response.
+        User user = new User();
+        user.setName("Binary Client");
+        user.setEmail("binary.client@example.com");
+        HttpResponse<byte[]> created = client.send(request("/users")
+                .header("Content-Type", CBOR)
+                .header("Accept", CBOR)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(cbor.writeValueAsBytes(user)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(created.statusCode()).isEqualTo(201);
+        assertThat(created.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith(CBOR));
+        User savedUser = cbor.readValue(created.body(), User.class);
+        assertThat(savedUser.getEmail()).isEqualTo("binary.client@example.com");
+
+        // Create posts in one Smile batch.
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Post post = new Post();
+            post.setTitle("Post " + i);
+            post.setContent("Content of post " + i + ", long enough to make the listing worth compressing.");
+            post.setUserId(savedUser.getId());
+            posts.add(post);
+        }
+        HttpResponse<byte[]> batch = client.send(request("/posts/batch")
+                .header("Content-Type", SMILE)
+                .header("Accept", SMILE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(smile.writeValueAsBytes(posts)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(batch.statusCode()).isEqualTo(201);
+
+        // The listing comes back as gzip-compressed CBOR when the client accepts both.
+        HttpResponse<byte[]> listing = client.send(request("/posts")
+                .header("Accept", CBOR)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(listing.headers().firstValue("Content-Encoding")).contains("gzip");
+        List<Post> listed;
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(listing.body()))) {
+            listed = cbor.readValue(body, new TypeReference<>() { });
+        }
+        assertThat(listed).hasSizeGreaterThanOrEqualTo(50);
+
+        // JSON stays the default.
+        HttpResponse<String> json = client.send(request("/users/" + savedUser.getId()).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(json.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith("application/json"));
+    }
+}
@@ -2,27 +2,50 @@ package com.example.userpostapi.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.userpostapi.exception.DuplicateEmailException;
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.Post;
 import com.example.userpostapi.model.User;
+import com.example.userpostapi.service.PostService;
 import com.example.userpostapi.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // @WebMvcTest remains the same. It sets up the web layer for testing.
 @WebMvcTest(UserController.class)
+@Import(MessageFormatConfig.class)
 class UserControllerTest {
 
     @Autowired
@@ -33,9 +56,15 @@ class UserControllerTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PostService postService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
      * This static nested class provides the mock bean definition.
      * Spring will detect this configuration and use it for this test class only.
@@ -47,6 +76,17 @@ class UserControllerTest {
             // Create and return a mock of the UserService.
             return Mockito.mock(UserService.class);
         }
+
+        @Bean
+        public PostService postService() {
+            return Mockito.mock(PostService.class);
+        }
+
+        // The web slice has no metrics auto-configuration; RestExceptionHandler needs a registry.
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
     }
 
     @Test
@@ -62,12 +102,17 @@ class UserControllerTest {
         savedUser.setEmail("test@example.com");
 
         // Use the autowired mock service
-        when(userService.createUser(any(User.class))).thenReturn(savedUser);
+        when(userService.createUserAsync(any(User.class))).thenReturn(CompletableFuture.completedFuture(savedUser));
 
-        // Act & Assert
-        mockMvc.perform(post("/users")
+        // Act
+        MvcResult result = mockMvc.perform(post("/users")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userToCreate)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.name").value("Test User"));
@@ -89,4 +134,192 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.name").value("Test User"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenGetPostsOfUser_shouldReturnUsersPosts() throws Exception {
+        // Arrange
+        Post post = new Post();
+        post.setId(7L);
+        post.setTitle("Hello");
+        post.setUserId(1L);
+
+        when(postService.getPostsByUserId(1L)).thenReturn(List.of(post));
+
+        // Act & Assert
+        mockMvc.perform(get("/users/1/posts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7L))
+                .andExpect(jsonPath("$[0].userId").value(1L));
+    }
+
+    @Test
+    void whenGetUserStats_shouldReturnPostCount() throws Exception {
+        // Arrange
+        when(postService.getUserStats(1L)).thenReturn(new AuthorStats(1L, 3));
+
+        // Act & Assert
+        mockMvc.perform(get("/users/1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1L))
+                .andExpect(jsonPath("$.postCount").value(3));
+    }
+
+    @Test
+    void whenGetUsersAsNdjson_shouldStreamOneUserPerLine() throws Exception {
+        // Arrange
+        User first = new User();
+        first.setId(1L);
+        first.setName("First");
+        User second = new User();
+        second.setId(2L);
+        second.setName("Second");
+
+        when(userService.streamAllUsers()).thenReturn(Stream.of(first, second));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"First\",\"email\":null,\"version\":null}\n"
+                                + "{\"id\":2,\"name\":\"Second\",\"email\":null,\"version\":null}\n"));
+    }
+
+    @Test
+    void whenPostUserBatchWithRejectedItem_shouldReturnMultiStatus() throws Exception {
+        // Arrange
+        User savedUser = new User();
+        savedUser.setId(1L);
+        savedUser.setName("Test User");
+
+        when(userService.createUsersAsync(anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+                BatchItemResult.created(0, savedUser),
+                BatchItemResult.failed(1, 400, "Item must not be null."))));
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"Test User\"},null]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].item.id").value(1L))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Item must not be null."))
+                .andExpect(jsonPath("$[1].item").doesNotExist());
+    }
+
+    @Test
+    void whenGetUserWithCurrentETag_shouldReturnNotModified() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setName("Test User");
+        user.setVersion(3L);
+
+        when(userService.getUserById(1L)).thenReturn(user);
+
+        // Act & Assert
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+        mockMvc.perform(get("/users/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void whenGetUserAsCbor_shouldTagTheCborRepresentationSeparately() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setName("Test User");
+        user.setVersion(3L);
+
+        when(userService.getUserById(1L)).thenReturn(user);
+
+        // Act & Assert
+        mockMvc.perform(get("/users/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"3-cbor\""))
+                .andExpect(header().string("Vary", "Accept"));
+        // The JSON tag does not validate a cached CBOR body, nor the other way round.
+        mockMvc.perform(get("/users/1").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/1").header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+        mockMvc.perform(get("/users/1").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void whenPutUserWithStaleIfMatch_shouldReturnPreconditionFailed() throws Exception {
+        // Arrange
+        when(userService.updateUserAsync(eq(1L), argThat(user -> user.getVersion() == 2L)))
+                .thenReturn(CompletableFuture.failedFuture(new VersionConflictException("User with id 1 is at version 3, not 2.")));
+
+        // Act
+        MvcResult result = mockMvc.perform(put("/users/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("User with id 1 is at version 3, not 2."));
+        assertEquals(1.0, meterRegistry.counter("api.errors",
+                "exception", "PreconditionFailedException", "status", "412").count());
+    }
+
+    @Test
+    void whenCreateUserWithTakenEmail_shouldReturnConflict() throws Exception {
+        // Arrange
+        User userToCreate = new User();
+        userToCreate.setName("Copy");
+        userToCreate.setEmail("Test@Example.com");
+        when(userService.createUserAsync(any(User.class))).thenReturn(CompletableFuture.failedFuture(
+                new DuplicateEmailException("Email Test@Example.com is already used by another user.")));
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userToCreate)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Email Test@Example.com is already used by another user."));
+    }
+
+    @Test
+    void whenGetUsersByEmail_shouldReturnMatchingUser() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId(4L);
+        user.setEmail("test@example.com");
+        when(userService.getUsersByEmail("TEST@example.com")).thenReturn(List.of(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/users").param("email", "TEST@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4L))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.userpostapi.metrics;
+
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RepositoryMetricsPostProcessorTest {
+
+    @Test
+    @DisplayName("Repository beans should be wrapped with timers and a size gauge")
+    void whenRepositoryPostProcessed_shouldRecordTimingsAndSize() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> registryProvider = mock(ObjectProvider.class);
+        when(registryProvider.getObject()).thenReturn(registry);
+        RepositoryMetricsPostProcessor postProcessor = new RepositoryMetricsPostProcessor(registryProvider);
+
+        UserRepository userRepository = (UserRepository) postProcessor
+                .postProcessAfterInitialization(new InMemoryUserRepository(), "userRepository");
+        userRepository.save(new User());
+        userRepository.findById(1L);
+        userRepository.findById(2L);
+
+        assertThat(userRepository).isInstanceOf(TimedUserRepository.class);
+        assertThat(registry.get("repository.operations").tags("repository", "users", "operation", "findById")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("repository.size").tags("repository", "users").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.model.BulkTransferResult;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkTransferTest {
+
+    @TempDir
+    Path directory;
+
+    private BulkTransfer transfer(InMemoryUserRepository users, InMemoryPostRepository posts) {
+        return new BulkTransfer(users, posts, new StaticListableBeanFactory().getBeanProvider(DurabilityManager.class),
+                directory.toString(), 2);
+    }
+
+    private static User user(InMemoryUserRepository users, String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        return users.save(user);
+    }
+
+    private static Post post(InMemoryPostRepository posts, String title, Long userId) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(title + " content");
+        post.setUserId(userId);
+        return posts.save(post);
+    }
+
+    @Test
+    @DisplayName("An import should reproduce what was exported, ids included")
+    void whenExportedAndImported_shouldReproduceStore() throws IOException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        for (int i = 0; i < 50; i++) {
+            User user = user(users, "user" + i);
+            for (int j = 0; j < 100; j++) {
+                post(posts, "post " + i + "-" + j, user.getId());
+            }
+        }
+        BulkTransfer source = transfer(users, posts);
+        Path file = source.resolve("export.bin");
+
+        BulkTransferResult exported = source.exportTo(file);
+        InMemoryUserRepository importedUsers = new InMemoryUserRepository();
+        InMemoryPostRepository importedPosts = new InMemoryPostRepository();
+        BulkTransferResult imported = transfer(importedUsers, importedPosts).importFrom(file);
+
+        assertThat(exported.getUsers()).isEqualTo(50);
+        assertThat(exported.getPosts()).isEqualTo(5000);
+        assertThat(imported.getUsers()).isEqualTo(50);
+        assertThat(imported.getPosts()).isEqualTo(5000);
+        assertThat(importedUsers.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(users.findAll());
+        assertThat(importedPosts.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(posts.findAll());
+        assertThat(importedPosts.countByUserId(1L)).isEqualTo(100);
+        // Imported ids are never handed out again.
+        assertThat(user(importedUsers, "new").getId()).isEqualTo(51L);
+    }
+
+    @Test
+    @DisplayName("An import with posts of unknown users should be rejected before writing anything")
+    void whenOwnersMissing_shouldRejectWholeFile() throws IOException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        User alice = user(users, "alice");
+        post(posts, "kept", alice.getId());
+        post(posts, "orphan", 99L);
+        BulkTransfer source = transfer(users, posts);
+        Path file = source.resolve("orphans.bin");
+        source.exportTo(file);
+
+        InMemoryUserRepository targetUsers = new InMemoryUserRepository();
+        InMemoryPostRepository targetPosts = new InMemoryPostRepository();
+        assertThatThrownBy(() -> transfer(targetUsers, targetPosts).importFrom(file))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("user 99");
+        assertThat(targetUsers.count()).isZero();
+        assertThat(targetPosts.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("An import should reach repository listeners like any other write, users first")
+    void whenImported_shouldNotifyListeners() throws IOException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        User alice = user(users, "alice");
+        post(posts, "first", alice.getId());
+        post(posts, "second", alice.getId());
+        BulkTransfer source = transfer(users, posts);
+        Path file = source.resolve("listened.bin");
+        source.exportTo(file);
+
+        InMemoryUserRepository targetUsers = new InMemoryUserRepository();
+        InMemoryPostRepository targetPosts = new InMemoryPostRepository();
+        List<String> seen = new CopyOnWriteArrayList<>();
+        targetUsers.addListener(new RepositoryListener<>() {
+            @Override
+            public void onSave(User user) {
+                seen.add("user " + user.getId());
+            }
+
+            @Override
+            public void onDelete(Long id) {
+            }
+        });
+        targetPosts.addListener(new RepositoryListener<>() {
+            @Override
+            public void onSave(Post post) {
+                seen.add("post " + post.getId());
+            }
+
+            @Override
+            public void onDelete(Long id) {
+            }
+        });
+        transfer(targetUsers, targetPosts).importFrom(file);
+
+        assertThat(seen).first().isEqualTo("user 1");
+        assertThat(seen).containsExactlyInAnyOrder("user 1", "post 1", "post 2");
+    }
+
+    @Test
+    @DisplayName("An import holding an id already in the store should be rejected before writing anything")
+    void whenIdsCollide_shouldRejectWholeFile() throws IOException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        user(users, "alice");
+        BulkTransfer source = transfer(users, posts);
+        Path file = source.resolve("colliding.bin");
+        source.exportTo(file);
+
+        InMemoryUserRepository targetUsers = new InMemoryUserRepository();
+        User bob = user(targetUsers, "bob");
+        assertThatThrownBy(() -> transfer(targetUsers, new InMemoryPostRepository()).importFrom(file))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("user 1 already exists");
+        assertThat(targetUsers.findAll()).usingRecursiveFieldByFieldElementComparator().containsExactly(bob);
+    }
+
+    @Test
+    @DisplayName("An import using one email for two users should be rejected before writing anything")
+    void whenEmailTwiceInFile_shouldRejectWholeFile() throws IOException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        // Recovery hooks do not enforce unique emails, so they can build such a file.
+        for (long id = 1; id <= 2; id++) {
+            User user = new User();
+            user.setId(id);
+            user.setName("twin" + id);
+            user.setEmail(id == 1 ? "twin@example.com" : " Twin@Example.com");
+            users.restore(user);
+        }
+        BulkTransfer source = transfer(users, new InMemoryPostRepository());
+        Path file = source.resolve("twins.bin");
+        source.exportTo(file);
+
+        InMemoryUserRepository targetUsers = new InMemoryUserRepository();
+        assertThatThrownBy(() -> transfer(targetUsers, new InMemoryPostRepository()).importFrom(file))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("is already used by user 1");
+        assertThat(targetUsers.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("File names with a path should be rejected")
+    void whenFileNameHasPath_shouldReject() {
+        BulkTransfer transfer = transfer(new InMemoryUserRepository(), new InMemoryPostRepository());
+
+        assertThatThrownBy(() -> transfer.resolve("../outside.bin")).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> transfer.resolve("nested/file.bin")).isInstanceOf(InvalidRequestException.class);
+        assertThat(transfer.resolve("export.bin")).isEqualTo(directory.toAbsolutePath().resolve("export.bin"));
+    }
+}
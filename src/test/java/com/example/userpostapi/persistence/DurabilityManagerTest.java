@@ -0,0 +1,169 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class DurabilityManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private InMemoryUserRepository userRepository;
+    private InMemoryPostRepository postRepository;
+    private DurabilityManager durabilityManager;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        durabilityManager.stop();
+    }
+
+    private void startNode() throws IOException {
+        userRepository = new InMemoryUserRepository();
+        postRepository = new InMemoryPostRepository();
+        durabilityManager = new DurabilityManager(userRepository, postRepository,
+                directory.toString(), true, Duration.ofHours(1));
+        durabilityManager.start();
+    }
+
+    private void restartNode() throws IOException {
+        durabilityManager.stop();
+        startNode();
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private Post post(String title, Long userId) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(title + " content");
+        post.setUserId(userId);
+        return postRepository.save(post);
+    }
+
+    @Test
+    @DisplayName("Recovery should replay saves, updates and deletes from the log")
+    void whenRestarted_shouldReplayLog() throws IOException {
+        startNode();
+        User alice = user("alice");
+        User bob = user("bob");
+        post("hello", alice.getId());
+        User renamed = new User();
+        renamed.setId(alice.getId());
+        renamed.setName("alice2");
+        userRepository.save(renamed);
+        userRepository.deleteById(bob.getId());
+
+        restartNode();
+
+        assertThat(userRepository.findAll()).extracting(User::getName, User::getVersion).containsExactly(tuple("alice2", 2L));
+        assertThat(postRepository.findByUserId(alice.getId())).extracting(Post::getTitle).containsExactly("hello");
+        // The deleted user's id is not handed out again.
+        assertThat(user("carol").getId()).isEqualTo(bob.getId() + 1);
+    }
+
+    @Test
+    @DisplayName("Recovery should load the snapshot and replay only the newer log")
+    void whenSnapshotTaken_shouldRecoverFromSnapshotAndTail() throws IOException {
+        startNode();
+        User alice = user("alice");
+        User bob = user("bob");
+        userRepository.deleteById(bob.getId());
+        durabilityManager.snapshot();
+        post("after snapshot", alice.getId());
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("snapshot-0000000000000001.snap", "wal-0000000000000001.log");
+        }
+
+        restartNode();
+
+        assertThat(userRepository.findAll()).extracting(User::getName).containsExactly("alice");
+        assertThat(postRepository.findAll()).extracting(Post::getTitle).containsExactly("after snapshot");
+        assertThat(user("carol").getId()).isEqualTo(bob.getId() + 1);
+    }
+
+    @Test
+    @DisplayName("Recovery should ignore a torn record at the end of the log")
+    void whenLogHasTornTail_shouldRecoverCompleteRecords() throws IOException {
+        startNode();
+        user("alice");
+        durabilityManager.stop();
+        Path segment = WriteAheadLog.segmentPath(directory, 0);
+        long completeLength = Files.size(segment);
+        Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        startNode();
+
+        assertThat(userRepository.findAll()).extracting(User::getName).containsExactly("alice");
+        assertThat(Files.size(segment)).isEqualTo(completeLength);
+    }
+
+    @Test
+    @DisplayName("Recovery should fail on a bad record in a segment older than the newest")
+    void whenOlderSegmentCorrupt_shouldFailStartup() throws IOException {
+        startNode();
+        user("alice");
+        restartNode();
+        user("bob");
+        durabilityManager.stop();
+        Files.write(WriteAheadLog.segmentPath(directory, 0), new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        assertThatThrownBy(this::startNode)
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("wal-0000000000000000.log is corrupt");
+    }
+
+    @Test
+    @DisplayName("Recovery should fail on a snapshot with a bad record instead of loading part of it")
+    void whenSnapshotCorrupt_shouldFailStartup() throws IOException {
+        startNode();
+        user("alice");
+        user("bob");
+        durabilityManager.snapshot();
+        durabilityManager.stop();
+        Path snapshot = directory.resolve("snapshot-0000000000000001.snap");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+
+        assertThatThrownBy(this::startNode)
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("is corrupt at byte");
+    }
+
+    @Test
+    @DisplayName("Recovery should fail on an empty snapshot")
+    void whenSnapshotEmpty_shouldFailStartup() throws IOException {
+        startNode();
+        durabilityManager.stop();
+        Files.write(directory.resolve("snapshot-0000000000000001.snap"), new byte[0]);
+
+        assertThatThrownBy(this::startNode)
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("is empty or its header is corrupt");
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.userpostapi.persistence;
+
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.repository.RepositoryListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicationTest {
+
+    private final InMemoryUserRepository primaryUsers = new InMemoryUserRepository();
+    private final InMemoryPostRepository primaryPosts = new InMemoryPostRepository();
+    private final InMemoryUserRepository replicaUsers = new InMemoryUserRepository();
+    private final InMemoryPostRepository replicaPosts = new InMemoryPostRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicationPrimary primary;
+    private ReplicationReplica replica;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (replica != null) {
+            replica.stop();
+        }
+        if (primary != null) {
+            primary.stop();
+        }
+    }
+
+    private void startPrimary(int backlog) throws IOException {
+        primary = new ReplicationPrimary(primaryUsers, primaryPosts, meterRegistry,
+                0, backlog, 16, Duration.ofMillis(50));
+        primary.start();
+    }
+
+    private void startReplica() {
+        replica = new ReplicationReplica(replicaUsers, replicaPosts, new SimpleMeterRegistry(),
+                "localhost", primary.port(), Duration.ofMillis(500));
+        replica.start();
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        return primaryUsers.save(user);
+    }
+
+    private Post post(String title, Long userId) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(title + " content");
+        post.setUserId(userId);
+        return primaryPosts.save(post);
+    }
+
+    private void awaitCaughtUp() throws InterruptedException {
+        await(() -> replica.isCaughtUp() && replica.appliedSequence() >= primary.lastSequence());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private void assertReplicaMatchesPrimary() {
+        assertThat(replicaUsers.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(primaryUsers.findAll());
+        assertThat(replicaPosts.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(primaryPosts.findAll());
+    }
+
+    @Test
+    @DisplayName("A new replica should load a snapshot and then follow live writes")
+    void whenReplicaJoins_shouldCatchUpAndFollow() throws Exception {
+        startPrimary(1024);
+        User alice = user("alice");
+        User bob = user("bob");
+        Post hello = post("hello", alice.getId());
+
+        startReplica();
+        awaitCaughtUp();
+        assertReplicaMatchesPrimary();
+
+        Post edit = new Post();
+        edit.setId(hello.getId());
+        edit.setTitle("hello again");
+        edit.setContent(hello.getContent());
+        edit.setUserId(bob.getId());
+        edit.setVersion(hello.getVersion());
+        primaryPosts.save(edit);
+        post("second", bob.getId());
+        primaryPosts.deleteByUserId(alice.getId());
+        primaryUsers.deleteById(alice.getId());
+        awaitCaughtUp();
+
+        assertReplicaMatchesPrimary();
+        assertThat(replicaUsers.findById(alice.getId())).isEmpty();
+        assertThat(meterRegistry.get("replication.lag.records").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("A write failed by a listener after replication's should never reach replicas")
+    void whenLaterListenerFailsWrite_shouldNotReplicateIt() throws Exception {
+        startPrimary(1024);
+        primaryUsers.addListener(new RepositoryListener<>() {
+            @Override
+            public void onSave(User saved) {
+                if ("rejected".equals(saved.getName())) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+
+            @Override
+            public void onDelete(Long id) {
+            }
+        });
+        startReplica();
+        awaitCaughtUp();
+
+        assertThatThrownBy(() -> user("rejected")).isInstanceOf(IllegalStateException.class);
+        User accepted = user("accepted");
+        awaitCaughtUp();
+
+        assertReplicaMatchesPrimary();
+        assertThat(replicaUsers.findAll()).extracting(User::getId).containsExactly(accepted.getId());
+    }
+
+    @Test
+    @DisplayName("A replica that fell out of the backlog should reload a snapshot and drop deleted entities")
+    void whenReplicaFallsOutOfBacklog_shouldResynchronize() throws Exception {
+        startPrimary(4);
+        User alice = user("alice");
+        User bob = user("bob");
+        post("hello", alice.getId());
+        startReplica();
+        awaitCaughtUp();
+
+        replica.disconnect();
+        primaryUsers.deleteById(alice.getId());
+        for (int i = 0; i < 10; i++) {
+            post("post " + i, bob.getId());
+        }
+        awaitCaughtUp();
+
+        assertReplicaMatchesPrimary();
+        assertThat(replicaUsers.findById(alice.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Replaying a save older than the stored version should leave the entity unchanged")
+    void whenReplayingOlderSave_shouldKeepNewerVersion() {
+        User user = user("alice");
+        byte[] first = LogRecords.userSaved(user);
+        User edit = new User();
+        edit.setId(user.getId());
+        edit.setName("alice v2");
+        edit.setEmail(user.getEmail());
+        edit.setVersion(user.getVersion());
+        User updated = primaryUsers.save(edit);
+
+        LogRecords.applyIfNewer(ByteBuffer.wrap(LogRecords.userSaved(updated)), replicaUsers, replicaPosts);
+        LogRecords.applyIfNewer(ByteBuffer.wrap(first), replicaUsers, replicaPosts);
+
+        assertThat(replicaUsers.findById(user.getId())).get()
+                .extracting(User::getName, User::getVersion)
+                .containsExactly("alice v2", updated.getVersion());
+    }
+
+    @Test
+    @DisplayName("A replica should refuse writes and serve reads")
+    void replicaWriteGuard_shouldRejectWrites() {
+        ReplicaWriteGuard guard = new ReplicaWriteGuard();
+
+        assertThat(guard.preHandle(new MockHttpServletRequest("GET", "/users/1"), new MockHttpServletResponse(), null))
+                .isTrue();
+        assertThatThrownBy(() -> guard.preHandle(new MockHttpServletRequest("POST", "/users"),
+                new MockHttpServletResponse(), null))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.userpostapi.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLongHashMapTest {
+
+    @Test
+    @DisplayName("put/get/remove should behave like a map, including key 0 and negative keys")
+    void whenBasicOperations_shouldBehaveLikeMap() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>(4);
+
+        assertThat(map.put(0L, "zero")).isNull();
+        assertThat(map.put(-5L, "minus five")).isNull();
+        assertThat(map.put(0L, "zero again")).isEqualTo("zero");
+
+        assertThat(map.get(0L)).isEqualTo("zero again");
+        assertThat(map.get(-5L)).isEqualTo("minus five");
+        assertThat(map.get(42L)).isNull();
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.remove(-5L)).isEqualTo("minus five");
+        assertThat(map.remove(-5L)).isNull();
+        assertThat(map.containsKey(-5L)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Entries should survive growth and tombstone cleanup")
+    void whenManyInsertsAndRemoves_shouldKeepLiveEntries() {
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>(2);
+        for (long i = 0; i < 100_000; i++) {
+            map.put(i, i);
+        }
+        for (long i = 0; i < 100_000; i += 2) {
+            map.remove(i);
+        }
+        for (long i = 100_000; i < 150_000; i++) {
+            map.put(i, i);
+        }
+
+        assertThat(map.size()).isEqualTo(100_000);
+        assertThat(map.get(4L)).isNull();
+        assertThat(map.get(5L)).isEqualTo(5L);
+        assertThat(map.get(149_999L)).isEqualTo(149_999L);
+        List<Long> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertThat(values).hasSize(100_000);
+    }
+
+    @Test
+    @DisplayName("compute and replace should be atomic per key")
+    void whenComputeAndReplace_shouldApplyAtomically() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>();
+        map.compute(1L, (key, existing) -> existing == null ? "a" : existing + "b");
+        map.compute(1L, (key, existing) -> existing == null ? "a" : existing + "b");
+        assertThat(map.get(1L)).isEqualTo("ab");
+
+        String current = map.get(1L);
+        assertThat(map.replace(1L, current, "c")).isTrue();
+        assertThat(map.replace(1L, current, "d")).isFalse();
+        assertThat(map.computeIfPresent(2L, (key, existing) -> "never")).isNull();
+        assertThat(map.compute(1L, (key, existing) -> null)).isNull();
+        assertThat(map.containsKey(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Concurrent writers and optimistic readers should not lose or invent entries")
+    void whenConcurrentWritersAndReaders_shouldStayConsistent() throws Exception {
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>(4);
+        int threads = 4;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                for (long i = base; i < base + perThread; i++) {
+                    map.put(i, i);
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (long i = base; i < base + perThread; i++) {
+                    Long value = map.get(i);
+                    assertThat(value == null || value == i).isTrue();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(map.size()).isEqualTo(threads * perThread);
+        for (long i = 0; i < (long) threads * perThread; i++) {
+            assertThat(map.get(i)).isEqualTo(i);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.userpostapi.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdGeneratorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sequence", "block", "snowflake"})
+    @DisplayName("Concurrent threads should never receive the same id")
+    void whenManyThreadsAllocate_shouldIssueUniqueIds(String type) throws Exception {
+        IdGenerator generator = IdGeneratorConfig.create(type, 64, 3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                long[] batch = new long[100];
+                for (int i = 0; i < 2_000; i++) {
+                    assertThat(ids.add(generator.nextId())).isTrue();
+                }
+                generator.nextIds(batch);
+                for (long id : batch) {
+                    assertThat(ids.add(id)).isTrue();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(ids).hasSize(8 * 2_100).allMatch(id -> id > 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sequence", "block", "snowflake"})
+    @DisplayName("Ids after observe should be above the observed id")
+    void whenIdObserved_shouldOnlyIssueHigherIds(String type) {
+        IdGenerator generator = IdGeneratorConfig.create(type, 64, 3);
+        long first = generator.nextId();
+
+        generator.observe(first + 10_000);
+
+        assertThat(generator.nextId()).isGreaterThan(first + 10_000);
+    }
+
+    @Test
+    @DisplayName("Snowflake ids should carry the node id and increase")
+    void whenSnowflakeIdsIssued_shouldEncodeNodeAndIncrease() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        long before = System.currentTimeMillis();
+
+        long previous = 0;
+        // More than one millisecond's worth of sequence numbers.
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(SnowflakeIdGenerator.nodeId(id)).isEqualTo(5);
+            previous = id;
+        }
+        assertThat(SnowflakeIdGenerator.timestampMillis(previous)).isGreaterThanOrEqualTo(before);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.model.AuthorStats;
+import com.example.userpostapi.model.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InMemoryPostRepositoryTest {
+
+    protected PostRepository postRepository;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = createRepository();
+    }
+
+    protected PostRepository createRepository() {
+        return new InMemoryPostRepository();
+    }
+
+    protected Post post(String title, Long userId) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent(title + " content");
+        post.setUserId(userId);
+        return post;
+    }
+
+    @Test
+    @DisplayName("findByUserId should return only that user's posts in id order")
+    void whenFindByUserId_shouldReturnOwnPostsInIdOrder() {
+        Post first = postRepository.save(post("first", 1L));
+        postRepository.save(post("other", 2L));
+        Post second = postRepository.save(post("second", 1L));
+
+        assertThat(postRepository.findByUserId(1L))
+                .extracting(Post::getId)
+                .containsExactly(first.getId(), second.getId());
+        assertThat(postRepository.findByUserId(3L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findByUserId should follow a post saved with a new userId")
+    void whenUserIdReassigned_shouldMovePostBetweenUsers() {
+        Post post = postRepository.save(post("moving", 1L));
+
+        Post moved = post("moving", 2L);
+        moved.setId(post.getId());
+        postRepository.save(moved);
+
+        assertThat(postRepository.findByUserId(1L)).isEmpty();
+        assertThat(postRepository.findByUserId(2L)).extracting(Post::getId).containsExactly(post.getId());
+    }
+
+    @Test
+    @DisplayName("findByUserId should not return deleted posts")
+    void whenPostDeleted_shouldDropFromUserIndex() {
+        Post post = postRepository.save(post("gone", 1L));
+
+        postRepository.deleteById(post.getId());
+
+        assertThat(postRepository.findByUserId(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Post counts should follow creates, owner changes and deletes")
+    void whenPostsWritten_shouldMaintainCountsPerUser() {
+        Post first = postRepository.save(post("first", 1L));
+        postRepository.save(post("second", 1L));
+        postRepository.save(post("third", 2L));
+
+        Post moved = post("first", 2L);
+        moved.setId(first.getId());
+        moved.setVersion(first.getVersion());
+        postRepository.save(moved);
+        postRepository.save(post("fourth", 3L));
+        postRepository.deleteByUserId(3L);
+
+        assertThat(postRepository.countByUserId(1L)).isEqualTo(1);
+        assertThat(postRepository.countByUserId(2L)).isEqualTo(2);
+        assertThat(postRepository.countByUserId(3L)).isZero();
+    }
+
+    @Test
+    @DisplayName("findTopAuthors should return the users with the most posts, most first")
+    void whenFindTopAuthors_shouldRankByPostCount() {
+        for (long userId = 1; userId <= 5; userId++) {
+            for (int i = 0; i < userId % 4; i++) {
+                postRepository.save(post("post " + i, userId));
+            }
+        }
+
+        // Counts: user 1 -> 1, 2 -> 2, 3 -> 3, 4 -> 0, 5 -> 1.
+        assertThat(postRepository.findTopAuthors(3))
+                .extracting(AuthorStats::getUserId, AuthorStats::getPostCount)
+                .containsExactly(tuple(3L, 3L), tuple(2L, 2L), tuple(1L, 1L));
+        assertThat(postRepository.findTopAuthors(10)).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("deleteById should report whether the post existed")
+    void whenDeleteById_shouldReturnWhetherRemoved() {
+        Post post = postRepository.save(post("once", 1L));
+
+        assertThat(postRepository.deleteById(post.getId())).isTrue();
+        assertThat(postRepository.deleteById(post.getId())).isFalse();
+        assertThat(postRepository.findById(post.getId())).isEmpty();
+        assertThat(postRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("findPage should walk posts in id order after the given id")
+    void whenFindPage_shouldReturnNextIdsInOrder() {
+        for (int i = 0; i < 5; i++) {
+            postRepository.save(post("post" + i, 1L));
+        }
+        postRepository.deleteById(3L);
+
+        assertThat(postRepository.findPage(null, 2)).extracting(Post::getId).containsExactly(1L, 2L);
+        assertThat(postRepository.findPage(2L, 2)).extracting(Post::getId).containsExactly(4L, 5L);
+        assertThat(postRepository.findPage(5L, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("saveAll should assign one contiguous id range and index every post")
+    void whenSaveAll_shouldAssignContiguousIds() {
+        postRepository.save(post("single", 1L));
+
+        List<Post> saved = postRepository.saveAll(List.of(post("a", 1L), post("b", 2L), post("c", 1L)));
+
+        assertThat(saved).extracting(Post::getId).containsExactly(2L, 3L, 4L);
+        assertThat(postRepository.findByUserId(1L)).extracting(Post::getId).containsExactly(1L, 2L, 4L);
+        assertThat(postRepository.save(post("next", 2L)).getId()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("save should bump the version and reject a stale expected version")
+    void whenSavedWithStaleVersion_shouldThrowVersionConflict() {
+        Post created = postRepository.save(post("v1", 1L));
+        Post update = post("v2", 1L);
+        update.setId(created.getId());
+        update.setVersion(created.getVersion());
+        Post updated = postRepository.save(update);
+
+        Post stale = post("lost", 1L);
+        stale.setId(created.getId());
+        stale.setVersion(created.getVersion());
+
+        assertThat(created.getVersion()).isEqualTo(1L);
+        assertThat(updated.getVersion()).isEqualTo(2L);
+        assertThatThrownBy(() -> postRepository.save(stale)).isInstanceOf(VersionConflictException.class);
+        assertThat(postRepository.findById(created.getId()).orElseThrow().getTitle()).isEqualTo("v2");
+    }
+
+    @Test
+    @DisplayName("Posts handed out by the store should be immutable")
+    void whenStoredPostMutated_shouldThrow() {
+        Post saved = postRepository.save(post("frozen", 1L));
+
+        Post found = postRepository.findById(saved.getId()).orElseThrow();
+
+        assertThatThrownBy(() -> found.setTitle("changed")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("search should rank posts by how well they match and honour the limit")
+    void whenSearch_shouldReturnBestMatchesFirst() {
+        Post both = postRepository.save(post("Java streams", 1L));
+        Post one = postRepository.save(post("Cooking pasta", 1L));
+        Post repeated = postRepository.save(post("Streams, streams and more STREAMS", 2L));
+
+        assertThat(postRepository.search("java STREAMS", 10)).extracting(Post::getId)
+                .containsExactlyInAnyOrder(both.getId(), repeated.getId());
+        assertThat(postRepository.search("java streams", 1)).extracting(Post::getId).containsExactly(both.getId());
+        assertThat(postRepository.search("pasta", 10)).extracting(Post::getId).containsExactly(one.getId());
+        assertThat(postRepository.search("kotlin", 10)).isEmpty();
+        assertThat(postRepository.search("!!!", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search should follow updates and deletes")
+    void whenPostUpdatedOrDeleted_shouldReindexText() {
+        Post created = postRepository.save(post("original words", 1L));
+        Post other = postRepository.save(post("original draft", 1L));
+
+        Post update = post("rewritten text", 1L);
+        update.setId(created.getId());
+        postRepository.save(update);
+        postRepository.deleteById(other.getId());
+
+        assertThat(postRepository.search("original", 10)).isEmpty();
+        assertThat(postRepository.search("rewritten", 10)).extracting(Post::getId).containsExactly(created.getId());
+    }
+
+    @Test
+    @DisplayName("A listener that throws should fail the write and leave every index as it was")
+    void whenListenerThrows_shouldLeaveIndexesUnchanged() {
+        Post kept = postRepository.save(post("original words", 1L));
+        postRepository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onSave(Post entity) {
+                throw new IllegalStateException("listener failed");
+            }
+
+            @Override
+            public void onDelete(Long id) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+
+        Post moved = post("rewritten text", 2L);
+        moved.setId(kept.getId());
+        moved.setVersion(kept.getVersion());
+        assertThatThrownBy(() -> postRepository.save(moved)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> postRepository.save(post("new", 3L))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> postRepository.deleteById(kept.getId())).isInstanceOf(IllegalStateException.class);
+
+        assertThat(postRepository.findById(kept.getId())).get().extracting(Post::getTitle).isEqualTo("original words");
+        assertThat(postRepository.findPage(null, 10)).extracting(Post::getId).containsExactly(kept.getId());
+        assertThat(postRepository.findByUserId(1L)).extracting(Post::getId).containsExactly(kept.getId());
+        assertThat(postRepository.findByUserId(2L)).isEmpty();
+        assertThat(postRepository.countByUserId(1L)).isEqualTo(1);
+        assertThat(postRepository.countByUserId(2L)).isZero();
+        assertThat(postRepository.search("original", 10)).extracting(Post::getId).containsExactly(kept.getId());
+        assertThat(postRepository.search("rewritten", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Concurrent rewrites of one post should leave only the stored text searchable")
+    void whenPostRewrittenConcurrently_shouldIndexTheStoredText() throws Exception {
+        Post created = postRepository.save(post("initial", 1L));
+        int threads = 4;
+        int rewrites = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String writer = "writer" + (char) ('a' + t);
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < rewrites; i++) {
+                    Post rewrite = post(writer + "x" + i, 1L);
+                    rewrite.setId(created.getId());
+                    postRepository.save(rewrite);
+                }
+                return null;
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < rewrites; i++) {
+                postRepository.search("writera writerb content", 10);
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        String storedTitle = postRepository.findById(created.getId()).orElseThrow().getTitle();
+        assertThat(postRepository.search(storedTitle, 10)).extracting(Post::getId).containsExactly(created.getId());
+        for (int t = 0; t < threads; t++) {
+            String writer = "writer" + (char) ('a' + t);
+            for (int i = 0; i < rewrites; i++) {
+                String title = writer + "x" + i;
+                if (!title.equals(storedTitle)) {
+                    assertThat(postRepository.search(title, 10)).as(title).isEmpty();
+                }
+            }
+        }
+    }
+}
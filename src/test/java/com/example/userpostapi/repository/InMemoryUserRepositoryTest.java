@@ -0,0 +1,160 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.exception.DuplicateEmailException;
+import com.example.userpostapi.exception.PartialBatchException;
+import com.example.userpostapi.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryUserRepositoryTest {
+
+    protected UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = createRepository();
+    }
+
+    protected UserRepository createRepository() {
+        return new InMemoryUserRepository();
+    }
+
+    protected User user(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+
+    @Test
+    @DisplayName("findByEmail should ignore case and surrounding whitespace")
+    void whenFindByEmail_shouldMatchNormalizedEmail() {
+        User saved = userRepository.save(user("alice", "Alice@Example.com"));
+
+        assertThat(userRepository.findByEmail(" alice@example.COM ")).map(User::getId).contains(saved.getId());
+        assertThat(userRepository.findByEmail("bob@example.com")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("save should reject an email another user already holds")
+    void whenEmailTaken_shouldThrowDuplicateEmail() {
+        userRepository.save(user("alice", "alice@example.com"));
+
+        assertThatThrownBy(() -> userRepository.save(user("copy", "ALICE@example.com")))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Changing or deleting a user should release the old email")
+    void whenEmailChangedOrUserDeleted_shouldFreeEmail() {
+        User alice = userRepository.save(user("alice", "alice@example.com"));
+        User bob = userRepository.save(user("bob", "bob@example.com"));
+
+        User renamed = user("alice", "alice@work.example.com");
+        renamed.setId(alice.getId());
+        userRepository.save(renamed);
+        userRepository.deleteById(bob.getId());
+
+        assertThat(userRepository.findByEmail("alice@example.com")).isEmpty();
+        assertThat(userRepository.findByEmail("alice@work.example.com")).map(User::getId).contains(alice.getId());
+        assertThat(userRepository.save(user("new alice", "alice@example.com")).getId()).isNotNull();
+        assertThat(userRepository.save(user("new bob", "bob@example.com")).getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Concurrent creates with one email should let exactly one through")
+    void whenSameEmailCreatedConcurrently_shouldAcceptOnlyOne() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String name = "user" + i;
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    userRepository.save(user(name, "shared@example.com"));
+                    return true;
+                } catch (DuplicateEmailException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> attempt : attempts) {
+            accepted += attempt.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(accepted).isEqualTo(1);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A listener that throws should fail the write and leave the email index as it was")
+    void whenListenerThrows_shouldKeepEmailIndexUnchanged() {
+        User alice = userRepository.save(user("alice", "alice@example.com"));
+        AtomicBoolean failing = new AtomicBoolean(true);
+        userRepository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onSave(User entity) {
+                if (failing.get()) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+
+            @Override
+            public void onDelete(Long id) {
+                if (failing.get()) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+        });
+
+        User renamed = user("alice", "alice@work.example.com");
+        renamed.setId(alice.getId());
+        assertThatThrownBy(() -> userRepository.save(renamed)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> userRepository.save(user("carol", "carol@example.com")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> userRepository.deleteById(alice.getId())).isInstanceOf(IllegalStateException.class);
+
+        assertThat(userRepository.findByEmail("alice@example.com")).map(User::getId).contains(alice.getId());
+        assertThat(userRepository.findByEmail("alice@work.example.com")).isEmpty();
+        assertThat(userRepository.findByEmail("carol@example.com")).isEmpty();
+        assertThat(userRepository.findPage(null, 10)).extracting(User::getId).containsExactly(alice.getId());
+
+        // Nothing was left claimed by the failed writes.
+        failing.set(false);
+        assertThat(userRepository.save(user("carol", "carol@example.com")).getId()).isNotNull();
+        assertThat(userRepository.save(user("other", "alice@work.example.com")).getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("saveAll should say which users were saved when one of them fails")
+    void whenSaveAllHitsTakenEmail_shouldThrowPartialBatch() {
+        userRepository.save(user("owner", "taken@example.com"));
+
+        assertThatThrownBy(() -> userRepository.saveAll(List.of(user("first", "first@example.com"), user("second", "taken@example.com"))))
+                .isInstanceOfSatisfying(PartialBatchException.class, partial -> {
+                    assertThat(partial.getSaved().get(0)).isNotNull();
+                    assertThat(partial.getSaved().get(1)).isNull();
+                    assertThat(partial.getFailures().get(1)).isInstanceOf(DuplicateEmailException.class);
+                });
+        assertThat(userRepository.findByEmail("first@example.com")).isPresent();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs the heap repository's tests against off-heap text storage, plus storage-specific checks. */
+class OffHeapPostRepositoryTest extends InMemoryPostRepositoryTest {
+
+    @Override
+    protected PostRepository createRepository() {
+        return new OffHeapPostRepository();
+    }
+
+    @Test
+    @DisplayName("Text should round-trip through off-heap storage, including nulls and non-ASCII")
+    void whenSaved_shouldServeSameText() {
+        Post saved = postRepository.save(post("héllo wörld ✓", 1L));
+        Post empty = new Post();
+        empty.setUserId(1L);
+        Post savedEmpty = postRepository.save(empty);
+
+        Post found = postRepository.findById(saved.getId()).orElseThrow();
+        assertThat(found.getTitle()).isEqualTo("héllo wörld ✓");
+        assertThat(found.getContent()).isEqualTo("héllo wörld ✓ content");
+        Post foundEmpty = postRepository.findById(savedEmpty.getId()).orElseThrow();
+        assertThat(foundEmpty.getTitle()).isNull();
+        assertThat(foundEmpty.getContent()).isNull();
+    }
+
+    @Test
+    @DisplayName("Serving a post should produce the same JSON as a heap post")
+    void whenSerialized_shouldMatchHeapJson() throws Exception {
+        Post saved = postRepository.save(post("quote \" and ✓", 3L));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        Post served = postRepository.findById(saved.getId()).orElseThrow();
+
+        // Byte output takes the raw UTF-8 path, String output the decoding path.
+        assertThat(objectMapper.writeValueAsBytes(served)).isEqualTo(objectMapper.writeValueAsBytes(saved));
+        assertThat(objectMapper.writeValueAsString(served)).isEqualTo(objectMapper.writeValueAsString(saved));
+    }
+
+    @Test
+    @DisplayName("Updates and deletes should return blocks for reuse")
+    void whenUpdatedAndDeleted_shouldReuseOffHeapBlocks() {
+        OffHeapPostRepository repository = (OffHeapPostRepository) postRepository;
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            posts.add(repository.save(post("post " + i, 1L)));
+        }
+        long reserved = repository.offHeapBytes();
+
+        Post replacement = post("post 0", 1L);
+        replacement.setId(posts.get(0).getId());
+        replacement.setContent("replaced");
+        repository.save(replacement);
+        assertThat(repository.findById(replacement.getId()).orElseThrow().getContent()).isEqualTo("replaced");
+        assertThat(repository.offHeapBytes()).isEqualTo(reserved);
+
+        posts.forEach(post -> repository.deleteById(post.getId()));
+        assertThat(repository.offHeapBytes()).isZero();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.model.Post;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Runs the heap repository's tests against four shards, plus checks of routing between them. */
+class ShardedPostRepositoryTest extends InMemoryPostRepositoryTest {
+
+    private static final int SHARDS = 4;
+
+    private final ShardExecutor executor = new ShardExecutor(SHARDS);
+
+    @Override
+    protected PostRepository createRepository() {
+        return new ShardedPostRepository(SHARDS, InMemoryPostRepository::new, new SequenceIdGenerator(), executor);
+    }
+
+    @AfterEach
+    void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Scans should merge the shards in id order")
+    void whenPostsSpreadOverShards_shouldScanInIdOrder() {
+        List<Post> batch = new ArrayList<>();
+        for (long userId = 1; userId <= 20; userId++) {
+            batch.add(post("post" + userId, userId));
+        }
+        List<Post> saved = postRepository.saveAll(batch);
+        List<Long> ids = saved.stream().map(Post::getId).toList();
+
+        assertThat(ids).containsExactlyElementsOf(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L,
+                11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L));
+        assertThat(postRepository.findPage(null, 7)).extracting(Post::getId).containsExactlyElementsOf(ids.subList(0, 7));
+        assertThat(postRepository.findPage(7L, 100)).extracting(Post::getId).containsExactlyElementsOf(ids.subList(7, 20));
+        try (Stream<Post> all = postRepository.streamAll()) {
+            assertThat(all.map(Post::getId)).containsExactlyElementsOf(ids);
+        }
+        assertThat(postRepository.findAll()).hasSize(20);
+        assertThat(postRepository.count()).isEqualTo(20);
+        assertThat(postRepository.findByUserId(7L)).extracting(Post::getTitle).containsExactly("post7");
+    }
+
+    @Test
+    @DisplayName("A post given to a user in another shard should move there with its version")
+    void whenOwnerInOtherShard_shouldMovePostAndKeepVersion() {
+        long owner = 1;
+        long newOwner = userInOtherShard(owner);
+        Post created = postRepository.save(post("moving", owner));
+
+        Post move = post("moved", newOwner);
+        move.setId(created.getId());
+        move.setVersion(created.getVersion());
+        Post moved = postRepository.save(move);
+        Post stale = post("lost", owner);
+        stale.setId(created.getId());
+        stale.setVersion(created.getVersion());
+
+        assertThat(moved.getVersion()).isEqualTo(2L);
+        assertThat(postRepository.findById(created.getId())).map(Post::getUserId).contains(newOwner);
+        assertThat(postRepository.findByUserId(owner)).isEmpty();
+        assertThat(postRepository.findByUserId(newOwner)).extracting(Post::getId).containsExactly(created.getId());
+        assertThat(postRepository.count()).isEqualTo(1);
+        assertThatThrownBy(() -> postRepository.save(stale)).isInstanceOf(VersionConflictException.class);
+        assertThat(postRepository.deleteById(created.getId())).isTrue();
+        assertThat(postRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Scans and searches that see a moving post in both shards should return only its new copy")
+    void whenPostMovesDuringScan_shouldReturnNewestCopyOnce() throws Exception {
+        List<List<Post>> scans = new ArrayList<>();
+        CountDownLatch ranked = new CountDownLatch(SHARDS);
+        CompletableFuture<List<Post>> search = new CompletableFuture<>();
+        ShardedPostRepository[] sharded = new ShardedPostRepository[1];
+        // Scans between storing the post in its new shard and dropping it from the old one.
+        sharded[0] = new ShardedPostRepository(SHARDS, ids -> new InMemoryPostRepository(ids) {
+            @Override
+            boolean remove(Long id, boolean notify) {
+                if (!notify) {
+                    try (Stream<Post> all = sharded[0].streamAll()) {
+                        scans.add(all.toList());
+                    }
+                    scans.add(sharded[0].findPage(null, 10));
+                    scans.add(sharded[0].findAll());
+                    // A search ranks both copies now, then waits on the route until the move is done.
+                    new Thread(() -> search.complete(sharded[0].search("moving moved", 10))).start();
+                    awaitQuietly(ranked);
+                }
+                return super.remove(id, notify);
+            }
+
+            @Override
+            InvertedIndex.Hit[] rank(String query, int limit) {
+                InvertedIndex.Hit[] hits = super.rank(query, limit);
+                ranked.countDown();
+                return hits;
+            }
+        }, new SequenceIdGenerator(), executor);
+        long owner = 1;
+        long newOwner = userInOtherShard(owner);
+        Post created = sharded[0].save(post("moving", owner));
+
+        Post move = post("moved", newOwner);
+        move.setId(created.getId());
+        move.setVersion(created.getVersion());
+        sharded[0].save(move);
+        scans.add(search.get(5, TimeUnit.SECONDS));
+
+        assertThat(scans).hasSize(4).allSatisfy(scan -> assertThat(scan).singleElement().satisfies(post -> {
+            assertThat(post.getVersion()).isEqualTo(2L);
+            assertThat(post.getUserId()).isEqualTo(newOwner);
+        }));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("search should merge the best hits of every shard")
+    void whenMatchesInSeveralShards_shouldMergeByScore() {
+        Post strong = postRepository.save(post("streams streams streams", 1L));
+        Post weak = postRepository.save(post("streams and a lot of other words here", userInOtherShard(1L)));
+        postRepository.save(post("nothing relevant", 3L));
+
+        assertThat(postRepository.search("streams", 10)).extracting(Post::getId)
+                .containsExactly(strong.getId(), weak.getId());
+        assertThat(postRepository.search("streams", 1)).extracting(Post::getId).containsExactly(strong.getId());
+    }
+
+    private static long userInOtherShard(long userId) {
+        long other = userId + 1;
+        while (ShardExecutor.shardOf(other, SHARDS) == ShardExecutor.shardOf(userId, SHARDS)) {
+            other++;
+        }
+        return other;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.repository.shards=4")
+class ShardedRepositoryConfigTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    @DisplayName("app.repository.shards above 1 should replace the flat repositories with sharded ones")
+    void whenShardsConfigured_shouldWireShardedRepositories() {
+        assertThat(context.getBeansOfType(InMemoryUserRepository.class)).isEmpty();
+        assertThat(context.getBeansOfType(InMemoryPostRepository.class)).isEmpty();
+        assertThat(context.getBean(ShardExecutor.class)).isNotNull();
+
+        User user = new User();
+        user.setName("sharded");
+        user.setEmail("sharded@example.com");
+        User saved = userRepository.save(user);
+        Post post = new Post();
+        post.setTitle("title");
+        post.setUserId(saved.getId());
+        Post savedPost = postRepository.save(post);
+
+        assertThat(userRepository.findByEmail("sharded@example.com")).map(User::getId).contains(saved.getId());
+        assertThat(postRepository.findByUserId(saved.getId())).extracting(Post::getId).containsExactly(savedPost.getId());
+    }
+}
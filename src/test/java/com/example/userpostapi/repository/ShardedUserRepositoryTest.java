@@ -0,0 +1,51 @@
+package com.example.userpostapi.repository;
+
+import com.example.userpostapi.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs the in-memory repository's tests against four shards sharing one email index. */
+class ShardedUserRepositoryTest extends InMemoryUserRepositoryTest {
+
+    private final ShardExecutor executor = new ShardExecutor(4);
+
+    @Override
+    protected UserRepository createRepository() {
+        return new ShardedUserRepository(4, new SequenceIdGenerator(), executor);
+    }
+
+    @AfterEach
+    void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("saveAll should spread users over shards and scans should merge them in id order")
+    void whenSavedAll_shouldFindEveryUserAcrossShards() {
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            batch.add(user("user" + i, "user" + i + "@example.com"));
+        }
+
+        List<User> saved = userRepository.saveAll(batch);
+        List<Long> ids = saved.stream().map(User::getId).toList();
+
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+        assertThat(userRepository.findPage(ids.get(4), 5)).extracting(User::getId).containsExactlyElementsOf(ids.subList(5, 10));
+        try (Stream<User> all = userRepository.streamAll()) {
+            assertThat(all.map(User::getId)).containsExactlyElementsOf(ids);
+        }
+        assertThat(userRepository.count()).isEqualTo(12);
+        for (int i = 0; i < 12; i++) {
+            assertThat(userRepository.findByEmail("USER" + i + "@example.com")).map(User::getId).contains(ids.get(i));
+            assertThat(userRepository.existsById(ids.get(i))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.userpostapi.resilience;
+
+import com.example.userpostapi.exception.CircuitOpenException;
+import com.example.userpostapi.exception.TransientDataAccessException;
+import com.example.userpostapi.exception.VersionConflictException;
+import com.example.userpostapi.resilience.RetryExecutor.Circuit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RetryExecutor retryExecutor(int failureThreshold, Duration openDuration, double budgetRatio, double budgetMinPerSecond) {
+        return new RetryExecutor(Runnable::run, meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(5),
+                budgetRatio, budgetMinPerSecond, failureThreshold, openDuration);
+    }
+
+    /** Fails with a transient error the given number of times, then returns "ok". */
+    private static Supplier<String> failing(AtomicInteger calls, int failures) {
+        return () -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw new TransientDataAccessException("busy");
+            }
+            return "ok";
+        };
+    }
+
+    @Test
+    @DisplayName("Transient failures should be retried until an attempt succeeds")
+    void whenTransientFailures_shouldRetryAndSucceed() {
+        RetryExecutor retryExecutor = retryExecutor(10, Duration.ofMinutes(1), 0.1, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retryExecutor.call(Circuit.USER_REPOSITORY, "op", failing(calls, 2), failure -> "fallback");
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.counter("retry.attempts.failed", "operation", "op",
+                "exception", "TransientDataAccessException").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Other failures should propagate at once and count as the repository answering")
+    void whenNonTransientFailure_shouldNotRetry() {
+        RetryExecutor retryExecutor = retryExecutor(1, Duration.ofMinutes(1), 0.1, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryExecutor.call(Circuit.USER_REPOSITORY, "op", () -> {
+            calls.incrementAndGet();
+            throw new VersionConflictException("stale");
+        }, failure -> "fallback")).isInstanceOf(VersionConflictException.class);
+
+        assertThat(calls).hasValue(1);
+        assertThat(retryExecutor.call(Circuit.USER_REPOSITORY, "op", () -> "ok", failure -> "fallback")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("An open circuit should skip the repository until a probe after the open period closes it")
+    void whenCircuitOpen_shouldFailFastThenProbe() throws Exception {
+        RetryExecutor retryExecutor = retryExecutor(3, Duration.ofMillis(50), 0.1, 10);
+        AtomicInteger calls = new AtomicInteger();
+        assertThat(retryExecutor.call(Circuit.POST_REPOSITORY, "op", failing(calls, 3), failure -> "gave up")).isEqualTo("gave up");
+
+        AtomicInteger rejected = new AtomicInteger();
+        String result = retryExecutor.call(Circuit.POST_REPOSITORY, "op", failing(calls, 3), failure -> {
+            assertThat(failure).isInstanceOf(CircuitOpenException.class);
+            return "rejected " + rejected.incrementAndGet();
+        });
+        assertThat(result).isEqualTo("rejected 1");
+        assertThat(calls).hasValue(3);
+        assertThat(retryExecutor.call(Circuit.USER_REPOSITORY, "op", () -> "other circuit", failure -> "fallback"))
+                .isEqualTo("other circuit");
+
+        Thread.sleep(60);
+        assertThat(retryExecutor.call(Circuit.POST_REPOSITORY, "op", failing(calls, 3), failure -> "fallback")).isEqualTo("ok");
+        assertThat(retryExecutor.call(Circuit.POST_REPOSITORY, "op", () -> "closed", failure -> "fallback")).isEqualTo("closed");
+    }
+
+    @Test
+    @DisplayName("A probe that throws an Error should reopen the circuit, not leave it stuck half-open")
+    void whenProbeThrowsError_shouldReleaseProbe() throws Exception {
+        RetryExecutor retryExecutor = retryExecutor(1, Duration.ofMillis(50), 0.1, 10);
+        AtomicInteger calls = new AtomicInteger();
+        retryExecutor.call(Circuit.POST_REPOSITORY, "op", failing(calls, 1), failure -> "gave up");
+
+        Thread.sleep(60);
+        assertThatThrownBy(() -> retryExecutor.call(Circuit.POST_REPOSITORY, "op", () -> {
+            throw new StackOverflowError();
+        }, failure -> "fallback")).isInstanceOf(StackOverflowError.class);
+        assertThat(retryExecutor.call(Circuit.POST_REPOSITORY, "op", () -> "skipped", failure -> "rejected"))
+                .isEqualTo("rejected");
+
+        Thread.sleep(60);
+        assertThat(retryExecutor.call(Circuit.POST_REPOSITORY, "op", () -> "closed", failure -> "fallback")).isEqualTo("closed");
+    }
+
+    @Test
+    @DisplayName("Once the retry budget is spent, failures should go straight to the fallback")
+    void whenBudgetSpent_shouldStopRetrying() {
+        // No per-call deposits and a floor of one retry per second: the budget holds 10 retries.
+        RetryExecutor retryExecutor = retryExecutor(1000, Duration.ofMinutes(1), 0, 1);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            retryExecutor.call(Circuit.USER_REPOSITORY, "op", failing(calls, Integer.MAX_VALUE), failure -> "gave up");
+        }
+        assertThat(calls).hasValue(15);
+
+        calls.set(0);
+        retryExecutor.call(Circuit.USER_REPOSITORY, "op", failing(calls, Integer.MAX_VALUE), failure -> "gave up");
+
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.counter("retry.budget.exhausted").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Async calls should retry on the executor and hand the last failure to the fallback")
+    void whenCallAsync_shouldRetryWithoutBlocking() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            RetryExecutor retryExecutor = new RetryExecutor(executor, meterRegistry, 3, Duration.ofMillis(1),
+                    Duration.ofMillis(5), 0.1, 10, 10, Duration.ofMinutes(1));
+            AtomicInteger calls = new AtomicInteger();
+
+            assertThat(retryExecutor.callAsync(Circuit.USER_REPOSITORY, "op", failing(calls, 2), failure -> "fallback").join())
+                    .isEqualTo("ok");
+            assertThat(retryExecutor.callAsync(Circuit.USER_REPOSITORY, "op", failing(calls, 100), Throwable::getMessage).join())
+                    .isEqualTo("busy");
+            assertThat(calls).hasValue(6);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.userpostapi.service;
+
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.exception.ResourceNotFoundException;
+import com.example.userpostapi.exception.TransientDataAccessException;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.repository.PostRepository;
+import com.example.userpostapi.repository.UserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostServiceImplTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private UserLocks userLocks = new UserLocks(16);
+
+    @Spy
+    private RetryExecutor retryExecutor = new RetryExecutor(Runnable::run, new SimpleMeterRegistry(),
+            3, Duration.ZERO, Duration.ZERO, 0.1, 10, 10, Duration.ofMinutes(1));
+
+    @InjectMocks
+    private PostServiceImpl postService;
+
+    private Post post(String title, Long userId) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setUserId(userId);
+        return post;
+    }
+
+    @Test
+    @DisplayName("Create posts should check each owner once and report rejected rows individually")
+    void whenCreatePosts_shouldValidateDistinctOwnersOnceAndReportPerItem() {
+        // Arrange
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(false);
+        when(postRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            long id = 10;
+            for (Post post : posts) {
+                post.setId(id++);
+            }
+            return posts;
+        });
+        List<Post> posts = Arrays.asList(post("a", 1L), post("b", 2L), post("c", 1L), post("d", null), null);
+
+        // Act
+        List<BatchItemResult<Post>> results = postService.createPosts(posts);
+
+        // Assert
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(201, 422, 201, 400, 400);
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results.get(0).getItem().getId()).isEqualTo(10L);
+        assertThat(results.get(2).getItem().getId()).isEqualTo(11L);
+        verify(userRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).existsById(2L);
+        verify(postRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Create posts should reject an empty batch")
+    void whenCreatePostsWithEmptyBatch_shouldThrowInvalidRequest() {
+        assertThrows(InvalidRequestException.class, () -> postService.createPosts(Collections.emptyList()));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    @DisplayName("Search should reject a blank query without touching the repository")
+    void whenSearchQueryBlank_shouldThrowInvalidRequest() {
+        assertThrows(InvalidRequestException.class, () -> postService.searchPosts("  ", 10));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    @DisplayName("User stats should report a missing user as not found")
+    void whenUserStatsOfUnknownUser_shouldThrowNotFound() {
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> postService.getUserStats(9L));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    @DisplayName("Create post should ignore an id and version sent by the client")
+    void whenCreatePost_withClientIdAndVersion_shouldSaveAsNew() {
+        // Arrange
+        Post post = post("a", 1L);
+        post.setId(Long.MAX_VALUE);
+        post.setVersion(0L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.save(post)).thenReturn(post);
+
+        // Act
+        postService.createPost(post);
+
+        // Assert
+        verify(postRepository).save(argThat(saved -> saved.getId() == null && saved.getVersion() == null));
+    }
+
+    @Test
+    @DisplayName("Create post should take the owner's lock per attempt, not hold it across retries")
+    void whenCreatePost_withTransientFailure_shouldReleaseLockBetweenAttempts() {
+        // Arrange
+        Post post = post("a", 1L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.save(post))
+                .thenThrow(new TransientDataAccessException("busy"))
+                .thenReturn(post);
+
+        // Act
+        Post created = postService.createPost(post);
+
+        // Assert
+        assertThat(created).isSameAs(post);
+        verify(userLocks, times(2)).withUserShared(eq(1L), any());
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    @DisplayName("Create post async should retry transient failures and check the owner on every attempt")
+    void whenCreatePostAsync_withTransientFailures_shouldRetryAndReturnPost() {
+        // Arrange
+        PostServiceImpl asyncService = new PostServiceImpl(postRepository, userRepository, userLocks, retryExecutor, Runnable::run);
+        Post post = post("a", 1L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.save(post))
+                .thenThrow(new TransientDataAccessException("busy"))
+                .thenReturn(post);
+
+        // Act
+        Post created = asyncService.createPostAsync(post).join();
+
+        // Assert
+        assertThat(created).isSameAs(post);
+        verify(postRepository, times(2)).save(post);
+        verify(userRepository, times(2)).existsById(1L);
+        verify(userLocks, times(2)).withUserShared(eq(1L), any());
+    }
+
+    @Test
+    @DisplayName("Create post async should fail without saving when the owner does not exist")
+    void whenCreatePostAsync_withMissingOwner_shouldFailWithOperationFailed() {
+        // Arrange
+        PostServiceImpl asyncService = new PostServiceImpl(postRepository, userRepository, userLocks, retryExecutor, Runnable::run);
+        when(userRepository.existsById(2L)).thenReturn(false);
+
+        // Act
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> asyncService.createPostAsync(post("a", 2L)).join());
+
+        // Assert
+        assertThat(failure.getCause()).isInstanceOf(OperationFailedException.class);
+        verifyNoInteractions(postRepository);
+    }
+}
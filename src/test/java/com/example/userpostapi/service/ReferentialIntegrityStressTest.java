@@ -0,0 +1,114 @@
+package com.example.userpostapi.service;
+
+import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.model.Post;
+import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.InMemoryPostRepository;
+import com.example.userpostapi.repository.InMemoryUserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races post creation (single and batch) against user deletion on real repositories and
+ * checks that no post outlives its owner.
+ */
+class ReferentialIntegrityStressTest {
+
+    private static final int USERS = 200;
+    private static final int WRITERS = 4;
+    private static final int CREATES_PER_WRITER = 5_000;
+
+    @Test
+    @DisplayName("Posts created while their owners are deleted should never be left behind")
+    void whenCreatesRaceDeletes_shouldLeaveNoOrphanPosts() throws Exception {
+        InMemoryUserRepository userRepository = new InMemoryUserRepository() {
+            @Override
+            public boolean existsById(Long id) {
+                boolean exists = super.existsById(id);
+                // Widen the window between the owner check and the save that the locks must close.
+                Thread.yield();
+                return exists;
+            }
+        };
+        InMemoryPostRepository postRepository = new InMemoryPostRepository();
+        UserLocks userLocks = new UserLocks(64);
+        RetryExecutor retryExecutor = new RetryExecutor(Runnable::run, new SimpleMeterRegistry(),
+                3, Duration.ZERO, Duration.ZERO, 0.1, 10, 10, Duration.ofMinutes(1));
+        PostServiceImpl postService = new PostServiceImpl(postRepository, userRepository, userLocks, retryExecutor, Runnable::run);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, postRepository, userLocks, retryExecutor, Runnable::run);
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            userIds.add(userRepository.save(user).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            boolean batches = w % 2 == 1;
+            tasks.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < CREATES_PER_WRITER; i++) {
+                    if (batches) {
+                        postService.createPosts(List.of(post(random.nextLong(1, USERS + 1)), post(random.nextLong(1, USERS + 1))));
+                        continue;
+                    }
+                    try {
+                        postService.createPost(post(random.nextLong(1, USERS + 1)));
+                    } catch (OperationFailedException e) {
+                        // The owner is already gone; that is the expected outcome of the race.
+                    }
+                }
+                return null;
+            }));
+        }
+        List<Long> deletionOrder = new ArrayList<>(userIds.subList(0, USERS * 3 / 4));
+        Collections.shuffle(deletionOrder);
+        tasks.add(executor.submit(() -> {
+            start.await();
+            for (Long userId : deletionOrder) {
+                userService.deleteUser(userId);
+                Thread.yield();
+            }
+            return null;
+        }));
+
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(postRepository.findAll())
+                .isNotEmpty()
+                .allSatisfy(post -> assertThat(userRepository.existsById(post.getUserId())).isTrue());
+        for (Long userId : deletionOrder) {
+            assertThat(postRepository.findByUserId(userId)).isEmpty();
+        }
+    }
+
+    private static Post post(long userId) {
+        Post post = new Post();
+        post.setTitle("stress");
+        post.setUserId(userId);
+        return post;
+    }
+}
@@ -3,24 +3,40 @@ package com.example.userpostapi.service;
 import static org.junit.jupiter.api.Assertions.*;
 
 
-import com.example.userpostapi.exception.DataAccessException;
+import com.example.userpostapi.exception.DuplicateEmailException;
+import com.example.userpostapi.exception.InvalidRequestException;
+import com.example.userpostapi.exception.OperationFailedException;
+import com.example.userpostapi.exception.PartialBatchException;
 import com.example.userpostapi.exception.ResourceNotFoundException;
+import com.example.userpostapi.exception.ServiceUnavailableException;
+import com.example.userpostapi.exception.TransientDataAccessException;
+import com.example.userpostapi.model.BatchItemResult;
+import com.example.userpostapi.model.CursorPage;
 import com.example.userpostapi.model.User;
+import com.example.userpostapi.repository.PostRepository;
 import com.example.userpostapi.repository.UserRepository;
+import com.example.userpostapi.resilience.RetryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +45,16 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PostRepository postRepository;
+
+    @Spy
+    private UserLocks userLocks = new UserLocks(16);
+
+    @Spy
+    private RetryExecutor retryExecutor = new RetryExecutor(Runnable::run, new SimpleMeterRegistry(),
+            3, Duration.ZERO, Duration.ZERO, 0.1, 10, 6, Duration.ofMinutes(1));
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -85,4 +111,201 @@ class UserServiceImplTest {
             userService.getUserById(99L);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Get users page should return a cursor only when more users follow")
+    void whenGetUsersPage_shouldReturnCursorForNextPage() {
+        // Arrange
+        User second = new User();
+        second.setId(2L);
+        when(userRepository.findPage(null, 2)).thenReturn(List.of(user, second));
+        when(userRepository.findPage(1L, 2)).thenReturn(List.of(second));
+
+        // Act
+        CursorPage<User> first = userService.getUsersPage(null, 1);
+        CursorPage<User> last = userService.getUsersPage(first.getNextCursor(), 1);
+
+        // Assert
+        assertThat(first.getItems()).extracting(User::getId).containsExactly(1L);
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(last.getItems()).extracting(User::getId).containsExactly(2L);
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Get users page should reject a malformed cursor")
+    void whenGetUsersPage_withBadCursor_shouldThrowInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> userService.getUsersPage("not-a-cursor!", 10));
+    }
+
+    @Test
+    @DisplayName("Create user async should retry transient failures and then succeed")
+    void whenCreateUserAsync_withTransientFailures_shouldRetryAndReturnUser() {
+        // Arrange
+        UserServiceImpl asyncService = new UserServiceImpl(userRepository, postRepository, userLocks, retryExecutor, Runnable::run);
+        when(userRepository.save(user))
+                .thenThrow(new TransientDataAccessException("busy"))
+                .thenThrow(new TransientDataAccessException("busy"))
+                .thenReturn(user);
+
+        // Act
+        User created = asyncService.createUserAsync(user).join();
+
+        // Assert
+        assertEquals("Test User", created.getName());
+        verify(userRepository, times(3)).save(user);
+    }
+
+    @Test
+    @DisplayName("Create user should ignore an id and version sent by the client")
+    void whenCreateUser_withClientIdAndVersion_shouldSaveAsNew() {
+        // Arrange
+        user.setId(5L);
+        user.setVersion(3L);
+        when(userRepository.save(user)).thenReturn(user);
+
+        // Act
+        userService.createUser(user);
+
+        // Assert
+        verify(userRepository).save(argThat(saved -> saved.getId() == null && saved.getVersion() == null));
+    }
+
+    @Test
+    @DisplayName("Create user async should recover with OperationFailedException once attempts run out")
+    void whenCreateUserAsync_withPersistentFailure_shouldFailWithOperationFailed() {
+        // Arrange
+        UserServiceImpl asyncService = new UserServiceImpl(userRepository, postRepository, userLocks, retryExecutor, Runnable::run);
+        when(userRepository.save(user)).thenThrow(new TransientDataAccessException("busy"));
+
+        // Act
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> asyncService.createUserAsync(user).join());
+
+        // Assert
+        assertThat(failure.getCause()).isInstanceOf(OperationFailedException.class);
+        verify(userRepository, times(3)).save(user);
+    }
+
+    @Test
+    @DisplayName("Create user should fail fast with 503 once repeated transient failures open the circuit")
+    void whenCreateUser_afterRepeatedFailures_shouldFailFastWithServiceUnavailable() {
+        // Arrange
+        when(userRepository.save(user)).thenThrow(new TransientDataAccessException("down"));
+        assertThrows(OperationFailedException.class, () -> userService.createUser(user));
+        assertThrows(OperationFailedException.class, () -> userService.createUser(user));
+
+        // Act
+        ServiceUnavailableException failure = assertThrows(ServiceUnavailableException.class,
+                () -> userService.createUser(user));
+
+        // Assert
+        assertThat(failure.getRetryAfterSeconds()).isPositive();
+        verify(userRepository, times(6)).save(user);
+    }
+
+    @Test
+    @DisplayName("Delete user should remove all of their posts and then the user")
+    void whenDeleteUser_shouldCascadeToPosts() {
+        // Arrange
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.deleteById(1L)).thenReturn(true);
+
+        // Act
+        userService.deleteUser(1L);
+
+        // Assert
+        var inOrder = inOrder(userRepository, postRepository);
+        inOrder.verify(postRepository).deleteByUserId(1L);
+        inOrder.verify(userRepository).deleteById(1L);
+    }
+
+    @Test
+    @DisplayName("Delete user should keep the user until a retry has removed their posts")
+    void whenDeleteUser_withTransientFailure_shouldRetryPostsAndUserTogether() {
+        // Arrange
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.deleteByUserId(1L))
+                .thenThrow(new TransientDataAccessException("busy"))
+                .thenReturn(2);
+        when(userRepository.deleteById(1L)).thenReturn(true);
+
+        // Act
+        userService.deleteUser(1L);
+
+        // Assert
+        verify(postRepository, times(2)).deleteByUserId(1L);
+        verify(userRepository, times(1)).deleteById(1L);
+    }
+
+    @Test
+    @DisplayName("Delete of a missing user should be not found and leave posts alone")
+    void whenDeleteMissingUser_shouldThrowNotFound() {
+        // Arrange
+        when(userRepository.existsById(9L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(9L));
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    @DisplayName("Create users should report an email taken concurrently per item and still save the rest")
+    void whenCreateUsers_withEmailTakenMidBatch_shouldReportThatItemOnly() {
+        // Arrange
+        User first = newUser("first", "first@example.com");
+        User taken = newUser("taken", "taken@example.com");
+        User last = newUser("last", "last@example.com");
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.saveAll(anyList()))
+                .thenThrow(new PartialBatchException(
+                        new Object[] {withId(first, 10L), null, null},
+                        new RuntimeException[] {null, new DuplicateEmailException("Email taken@example.com is already used by another user."), null}))
+                .thenAnswer(invocation -> List.of(withId(last, 11L)));
+
+        // Act
+        List<BatchItemResult<User>> results = userService.createUsers(List.of(first, taken, last));
+
+        // Assert
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(201, 409, 201);
+        assertThat(results.get(0).getItem().getId()).isEqualTo(10L);
+        assertThat(results.get(2).getItem().getId()).isEqualTo(11L);
+        verify(userRepository).saveAll(List.of(last));
+    }
+
+    @Test
+    @DisplayName("Create users should retry a transient item failure with the unsaved users only")
+    void whenCreateUsers_withTransientItemFailure_shouldRetryRemainingUsers() {
+        // Arrange
+        User first = newUser("first", "first@example.com");
+        User second = newUser("second", "second@example.com");
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.saveAll(anyList()))
+                .thenThrow(new PartialBatchException(
+                        new Object[] {withId(first, 10L), null},
+                        new RuntimeException[] {null, new TransientDataAccessException("busy")}))
+                .thenAnswer(invocation -> List.of(withId(second, 11L)));
+
+        // Act
+        List<BatchItemResult<User>> results = userService.createUsers(List.of(first, second));
+
+        // Assert
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(201, 201);
+        assertThat(results.get(1).getItem().getId()).isEqualTo(11L);
+        verify(userRepository).saveAll(List.of(second));
+        verify(retryExecutor, times(1)).call(any(), anyString(), any(), any());
+    }
+
+    private static User newUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static User withId(User user, long id) {
+        User saved = newUser(user.getName(), user.getEmail());
+        saved.setId(id);
+        return saved;
+    }
+}